@@ -2,6 +2,7 @@ package ru.yandex.javacourse.http;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import ru.yandex.javacourse.http.adapter.DurationTypeAdapter;
 import ru.yandex.javacourse.http.adapter.LocalDateTimeTypeAdapter;
@@ -10,16 +11,20 @@ import ru.yandex.javacourse.model.Epic;
 import ru.yandex.javacourse.model.Subtask;
 import ru.yandex.javacourse.model.Task;
 import ru.yandex.javacourse.service.Managers;
+import ru.yandex.javacourse.service.SessionHistoryManager;
 import ru.yandex.javacourse.service.TaskManager;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
 
 public class HttpTaskServer {
     private final int port;
     private final TaskManager taskManager;
+    private final Executor executor;
+    private final SessionHistoryManager sessionHistory;
     private HttpServer httpServer;
     private static Gson gson = new GsonBuilder()
             .setPrettyPrinting()
@@ -31,6 +36,8 @@ public class HttpTaskServer {
     public HttpTaskServer() {
         taskManager = Managers.getDefault();
         port = 8080;
+        executor = null;
+        sessionHistory = null;
         gson = new GsonBuilder()
                 .setPrettyPrinting()
                 .serializeNulls()
@@ -42,11 +49,42 @@ public class HttpTaskServer {
     public HttpTaskServer(TaskManager taskManager) {
         this.taskManager = taskManager;
         port = 8080;
+        executor = null;
+        sessionHistory = null;
     }
 
     public HttpTaskServer(TaskManager taskManager, int port) {
         this.taskManager = taskManager;
         this.port = port;
+        executor = null;
+        sessionHistory = null;
+    }
+
+    /**
+     * Создаёт сервер, который обрабатывает запросы в потоках заданного исполнителя.
+     * Менеджер задач должен быть потокобезопасным, например {@link Managers#getConcurrent()}
+     */
+    public HttpTaskServer(TaskManager taskManager, int port, Executor executor) {
+        this.taskManager = taskManager;
+        this.port = port;
+        this.executor = executor;
+        sessionHistory = null;
+    }
+
+    /**
+     * Создаёт сервер с отдельной историей для каждого клиента, который обрабатывает запросы
+     * в потоках заданного исполнителя. Клиент определяется по заголовку {@link SessionHttpHandler#CLIENT_ID_HEADER}.
+     * Менеджер задач должен быть создан с этим менеджером истории и вызывать его в потоке запроса,
+     * а при многопоточном исполнителе ещё и быть потокобезопасным, например
+     * {@code new ConcurrentTaskManager(sessionHistory)}
+     *
+     * @param executor исполнитель запросов или null для одного потока сервера
+     */
+    public HttpTaskServer(TaskManager taskManager, int port, Executor executor, SessionHistoryManager sessionHistory) {
+        this.taskManager = taskManager;
+        this.port = port;
+        this.executor = executor;
+        this.sessionHistory = sessionHistory;
     }
 
     public static Gson getGson() {
@@ -76,15 +114,20 @@ public class HttpTaskServer {
 
     public void start() throws IOException {
         httpServer = HttpServer.create(new InetSocketAddress(port), 0);
-        httpServer.createContext("/tasks", new TaskHandler(taskManager, gson));
-        httpServer.createContext("/subtasks", new SubtaskHandler(taskManager, gson));
-        httpServer.createContext("/epics", new EpicHandler(taskManager, gson));
-        httpServer.createContext("/history", new HistoryHandler(taskManager, gson));
-        httpServer.createContext("/prioritized", new PrioritizedHandler(taskManager, gson));
+        httpServer.createContext("/tasks", withSession(new TaskHandler(taskManager, gson)));
+        httpServer.createContext("/subtasks", withSession(new SubtaskHandler(taskManager, gson)));
+        httpServer.createContext("/epics", withSession(new EpicHandler(taskManager, gson)));
+        httpServer.createContext("/history", withSession(new HistoryHandler(taskManager, gson)));
+        httpServer.createContext("/prioritized", withSession(new PrioritizedHandler(taskManager, gson)));
+        httpServer.setExecutor(executor);
         httpServer.start();
         System.out.println("HTTP-сервер запущен на " + port + " порту!");
     }
 
+    private HttpHandler withSession(HttpHandler handler) {
+        return sessionHistory == null ? handler : new SessionHttpHandler(handler, sessionHistory);
+    }
+
     public void stop() {
         httpServer.stop(1);
         System.out.println("HTTP-сервер остановлен на " + port + " порту!");
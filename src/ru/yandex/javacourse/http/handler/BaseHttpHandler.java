@@ -93,4 +93,22 @@ abstract class BaseHttpHandler implements HttpHandler {
 
         return Optional.of(idElement.getAsInt());
     }
+
+    /**
+     * Возвращает значение параметра из строки запроса
+     */
+    public Optional<String> getQueryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null || query.isEmpty()) {
+            return Optional.empty();
+        }
+
+        for (String param : query.split("&")) {
+            int separatorIndex = param.indexOf('=');
+            if (separatorIndex > 0 && param.substring(0, separatorIndex).equals(name)) {
+                return Optional.of(param.substring(separatorIndex + 1));
+            }
+        }
+        return Optional.empty();
+    }
 }
\ No newline at end of file
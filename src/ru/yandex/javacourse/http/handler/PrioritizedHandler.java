@@ -6,7 +6,8 @@ import ru.yandex.javacourse.http.HttpStatusCode;
 import ru.yandex.javacourse.model.Task;
 import ru.yandex.javacourse.service.TaskManager;
 
-import java.util.TreeSet;
+import java.util.Collection;
+import java.util.Optional;
 
 public class PrioritizedHandler extends BaseHttpHandler {
     public PrioritizedHandler(TaskManager taskManager, Gson gson) {
@@ -29,11 +30,25 @@ public class PrioritizedHandler extends BaseHttpHandler {
     }
 
     /**
-     * Возвращает приоритизированные задач, которые хранятся в менеджере
+     * Возвращает приоритизированные задач, которые хранятся в менеджере.
+     * Если в запросе переданы параметры limit и offset, возвращает только соответствующую страницу
      */
     public void getPrioritizedTasks(HttpExchange exchange) {
-        TreeSet<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-        String response = gson.toJson(prioritizedTasks);
-        sendText(exchange, response, HttpStatusCode.OK.getCode());
+        try {
+            Optional<String> limit = getQueryParam(exchange, "limit");
+            Optional<String> offset = getQueryParam(exchange, "offset");
+
+            Collection<Task> prioritizedTasks;
+            if (limit.isPresent() || offset.isPresent()) {
+                prioritizedTasks = taskManager.getPrioritizedTasks(Integer.parseInt(offset.orElse("0")),
+                        Integer.parseInt(limit.orElse(String.valueOf(Integer.MAX_VALUE))));
+            } else {
+                prioritizedTasks = taskManager.getPrioritizedTasksView();
+            }
+            String response = gson.toJson(prioritizedTasks);
+            sendText(exchange, response, HttpStatusCode.OK.getCode());
+        } catch (IllegalArgumentException exception) {
+            sendText(exchange, "Ошибка в работе метода", HttpStatusCode.INTERNAL_SERVER_ERROR.getCode());
+        }
     }
 }
@@ -0,0 +1,34 @@
+package ru.yandex.javacourse.http.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import ru.yandex.javacourse.service.SessionHistoryManager;
+
+import java.io.IOException;
+
+/**
+ * Обработчик, который на время запроса задаёт клиента истории по заголовку {@link #CLIENT_ID_HEADER}.
+ * Запросы без заголовка работают с общей историей
+ */
+public class SessionHttpHandler implements HttpHandler {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final HttpHandler delegate;
+    private final SessionHistoryManager sessionHistory;
+
+    public SessionHttpHandler(HttpHandler delegate, SessionHistoryManager sessionHistory) {
+        this.delegate = delegate;
+        this.sessionHistory = sessionHistory;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String clientId = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        String previousClientId = sessionHistory.setCurrentClient(clientId);
+        try {
+            delegate.handle(exchange);
+        } finally {
+            sessionHistory.setCurrentClient(previousClientId);
+        }
+    }
+}
@@ -35,8 +35,13 @@ public class Epic extends Task {
         subtasksIdList.add(subtaskId);
     }
 
-    public void deleteSubtaskId(Integer subtaskId) {
-        subtasksIdList.remove(subtaskId);
+    /**
+     * Удаляет ID подзадачи из эпика
+     *
+     * @return true, если подзадача была в эпике
+     */
+    public boolean deleteSubtaskId(Integer subtaskId) {
+        return subtasksIdList.remove(subtaskId);
     }
 
     public void deleteSubtasksIdList() {
@@ -53,6 +58,7 @@ public class Epic extends Task {
         }
         epicCopy.setDuration(this.getDuration());
         epicCopy.setStartTime(this.getStartTime());
+        epicCopy.setEndTime(this.getEndTime());
         return epicCopy;
     }
 
@@ -3,6 +3,15 @@ package ru.yandex.javacourse.model;
 public enum TaskType {
   TASK,
   EPIC,
-  SUBTASK
-}
+  SUBTASK;
 
+  /**
+   * Возвращает тип задачи по её классу
+   */
+  public static TaskType of(Task task) {
+    if (task instanceof Subtask) {
+      return SUBTASK;
+    }
+    return task instanceof Epic ? EPIC : TASK;
+  }
+}
@@ -0,0 +1,190 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронный фасад над менеджером задач.
+ * Каждый метод выполняет вызов менеджера на заданном исполнителе и сразу возвращает CompletableFuture,
+ * поэтому поток сервера не ждёт медленных операций, например сохранения файла.
+ * По умолчанию каждый вызов выполняется в своём виртуальном потоке.
+ * Число незавершённых операций ограничено: сверх лимита возвращается future, завершённый
+ * RejectedExecutionException, и вызывающий сам решает, повторить вызов или ответить ошибкой.
+ * Вызовы выполняются параллельно, поэтому менеджер должен быть потокобезопасным,
+ * например {@link Managers#getConcurrent()}
+ */
+public class AsyncTaskManager implements AutoCloseable {
+    public static final int DEFAULT_MAX_PENDING = 1000;
+
+    private final TaskManager taskManager;
+    private final Executor executor;
+    private final boolean isExecutorOwned;
+    private final int maxPending;
+    private final Semaphore pendingPermits;
+
+    public AsyncTaskManager(TaskManager taskManager) {
+        this(taskManager, Executors.newVirtualThreadPerTaskExecutor(), DEFAULT_MAX_PENDING, true);
+    }
+
+    public AsyncTaskManager(TaskManager taskManager, Executor executor, int maxPending) {
+        this(taskManager, executor, maxPending, false);
+    }
+
+    private AsyncTaskManager(TaskManager taskManager, Executor executor, int maxPending, boolean isExecutorOwned) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Лимит операций должен быть положительным");
+        }
+        this.taskManager = taskManager;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.isExecutorOwned = isExecutorOwned;
+        pendingPermits = new Semaphore(maxPending);
+    }
+
+    /**
+     * Возвращает число операций, которые приняты, но ещё не завершены
+     */
+    public int getPendingCount() {
+        return maxPending - pendingPermits.availablePermits();
+    }
+
+    /**
+     * Останавливает исполнитель по умолчанию. Переданный извне исполнитель не останавливается
+     */
+    @Override
+    public void close() {
+        if (isExecutorOwned) {
+            ((ExecutorService) executor).close();
+        }
+    }
+
+    public CompletableFuture<ArrayList<Task>> getAllTasks() {
+        return supply(taskManager::getAllTasks);
+    }
+
+    public CompletableFuture<Void> deleteAllTasks() {
+        return run(taskManager::deleteAllTasks);
+    }
+
+    public CompletableFuture<Task> getTaskById(int id) {
+        return supply(() -> taskManager.getTaskById(id));
+    }
+
+    public CompletableFuture<Task> addTask(Task task) {
+        return supply(() -> taskManager.addTask(task));
+    }
+
+    public CompletableFuture<Void> updateTask(Task task) {
+        return run(() -> taskManager.updateTask(task));
+    }
+
+    public CompletableFuture<Void> deleteTaskById(int id) {
+        return run(() -> taskManager.deleteTaskById(id));
+    }
+
+    public CompletableFuture<ArrayList<Epic>> getAllEpics() {
+        return supply(taskManager::getAllEpics);
+    }
+
+    public CompletableFuture<Void> deleteAllEpics() {
+        return run(taskManager::deleteAllEpics);
+    }
+
+    public CompletableFuture<Epic> getEpicById(int id) {
+        return supply(() -> taskManager.getEpicById(id));
+    }
+
+    public CompletableFuture<Epic> addEpic(Epic epic) {
+        return supply(() -> taskManager.addEpic(epic));
+    }
+
+    public CompletableFuture<Void> updateEpic(Epic epic) {
+        return run(() -> taskManager.updateEpic(epic));
+    }
+
+    public CompletableFuture<Void> deleteEpicById(int id) {
+        return run(() -> taskManager.deleteEpicById(id));
+    }
+
+    public CompletableFuture<ArrayList<Subtask>> getAllSubtasks() {
+        return supply(taskManager::getAllSubtasks);
+    }
+
+    public CompletableFuture<Void> deleteAllSubtasks() {
+        return run(taskManager::deleteAllSubtasks);
+    }
+
+    public CompletableFuture<Subtask> getSubtaskById(int id) {
+        return supply(() -> taskManager.getSubtaskById(id));
+    }
+
+    public CompletableFuture<Subtask> addSubtask(Subtask subtask) {
+        return supply(() -> taskManager.addSubtask(subtask));
+    }
+
+    public CompletableFuture<Void> updateSubtask(Subtask subtask) {
+        return run(() -> taskManager.updateSubtask(subtask));
+    }
+
+    public CompletableFuture<Void> deleteSubtaskById(int id) {
+        return run(() -> taskManager.deleteSubtaskById(id));
+    }
+
+    public CompletableFuture<ArrayList<Subtask>> getAllSubtasksByEpicId(int epicId) {
+        return supply(() -> taskManager.getAllSubtasksByEpicId(epicId));
+    }
+
+    public CompletableFuture<List<Task>> getHistory() {
+        return supply(taskManager::getHistory);
+    }
+
+    public CompletableFuture<TreeSet<Task>> getPrioritizedTasks() {
+        return supply(taskManager::getPrioritizedTasks);
+    }
+
+    public CompletableFuture<List<Task>> getPrioritizedTasks(int offset, int limit) {
+        return supply(() -> taskManager.getPrioritizedTasks(offset, limit));
+    }
+
+    public CompletableFuture<Boolean> hasCrossInTimeWithManagerTasks(Task task) {
+        return supply(() -> taskManager.hasCrossInTimeWithManagerTasks(task));
+    }
+
+    private CompletableFuture<Void> run(Runnable action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Запускает вызов менеджера на исполнителе, если не превышен лимит незавершённых операций.
+     * Разрешение возвращается после завершения вызова, в том числе с ошибкой
+     */
+    private <T> CompletableFuture<T> supply(Supplier<T> action) {
+        if (!pendingPermits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Превышен лимит незавершённых операций: " + maxPending));
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return action.get();
+                } finally {
+                    pendingPermits.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException exception) {
+            pendingPermits.release();
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.ManagerSaveException;
+
+import java.time.Duration;
+
+/**
+ * Хранилище, изменения которого можно записывать пакетами в фоновом потоке.
+ * Без фонового сохранения каждое изменение записывается сразу в потоке вызова.
+ * Фоновый поток и ожидающие его вызовы синхронизируются на мониторе менеджера,
+ * поэтому ожидание записи при FSYNC_PER_MUTATION не держит монитор
+ */
+abstract class BatchedBackend implements StorageBackend {
+    protected final Object monitor;
+    private Durability durability;
+    private Duration flushWindow;
+    private Thread flusher;
+    private boolean isFlusherRunning = false;
+    private long submittedCount = 0;
+    private long flushedCount = 0;
+    private long pendingSinceNanos = 0;
+    private long flushingSinceNanos = 0;
+    private volatile long lastFlushLagNanos = 0;
+    private ManagerSaveException flushFailure;
+
+    /**
+     * @param monitor монитор менеджера, под которым вызываются методы хранилища
+     */
+    BatchedBackend(Object monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * Записывает изменение без фонового сохранения. Вызывается под монитором менеджера
+     */
+    protected abstract void writeChange();
+
+    /**
+     * Готовит запись накопленных изменений одним пакетом. Вызывается под монитором менеджера
+     *
+     * @param isSynced true, если пакет нужно сбросить на диск
+     * @return запись пакета, которая выполняется вне монитора
+     */
+    protected abstract Runnable prepareBatch(boolean isSynced);
+
+    /**
+     * Сохраняет изменение: при фоновом сохранении ставит его в очередь фонового потока, иначе записывает сразу
+     */
+    protected final void changed() {
+        if (durability != null) {
+            enqueue();
+            return;
+        }
+        writeChange();
+    }
+
+    /**
+     * Включает фоновое сохранение.
+     * Изменения, пришедшие в течение окна после первого несохранённого изменения, записываются одним пакетом.
+     * Ошибка фоновой записи сохраняется, и все следующие изменения бросают ManagerSaveException
+     */
+    @Override
+    public void startBackgroundFlush(Duration flushWindow, Durability durability) {
+        if (flusher != null) {
+            throw new IllegalStateException("Фоновое сохранение уже запущено");
+        }
+        this.flushWindow = flushWindow;
+        this.durability = durability;
+        flushFailure = null;
+        isFlusherRunning = true;
+        flusher = new Thread(this::runFlusher, "task-manager-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Записывает все накопленные изменения и останавливает фоновый поток.
+     * Фоновый поток сам возвращает сохранение в поток вызова под монитором в момент завершения,
+     * поэтому изменение не может попасть в очередь, которую уже никто не запишет.
+     * Вызывается без монитора менеджера
+     */
+    @Override
+    public void stopBackgroundFlush() {
+        Thread stoppedFlusher;
+        synchronized (monitor) {
+            stoppedFlusher = flusher;
+            isFlusherRunning = false;
+            monitor.notifyAll();
+        }
+        if (stoppedFlusher == null) {
+            return;
+        }
+
+        try {
+            stoppedFlusher.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Duration getFlushLag() {
+        synchronized (monitor) {
+            long oldestNanos = flushingSinceNanos != 0 ? flushingSinceNanos : pendingSinceNanos;
+            if (oldestNanos == 0) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos(System.nanoTime() - oldestNanos);
+        }
+    }
+
+    @Override
+    public Duration getLastFlushLag() {
+        return Duration.ofNanos(lastFlushLagNanos);
+    }
+
+    /**
+     * Ставит изменение в очередь фонового потока. При FSYNC_PER_MUTATION ждёт, пока оно будет сброшено на диск
+     */
+    private void enqueue() {
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+        submittedCount++;
+        if (pendingSinceNanos == 0) {
+            pendingSinceNanos = System.nanoTime();
+        }
+        monitor.notifyAll();
+
+        if (durability == Durability.FSYNC_PER_MUTATION) {
+            long mutationNumber = submittedCount;
+            try {
+                while (flushedCount < mutationNumber && flusher != null) {
+                    monitor.wait();
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new ManagerSaveException("Ожидание записи изменения прервано");
+            }
+            if (flushFailure != null) {
+                throw flushFailure;
+            }
+        }
+    }
+
+    /**
+     * Цикл фонового потока: ждёт первое изменение, собирает изменения в течение окна
+     * и записывает их одним пакетом. После остановки записывает оставшиеся изменения и завершается
+     */
+    private void runFlusher() {
+        while (true) {
+            Runnable batch;
+            long batchEnd;
+            synchronized (monitor) {
+                try {
+                    while (submittedCount == flushedCount && isFlusherRunning) {
+                        monitor.wait();
+                    }
+                    long deadline = System.nanoTime() + flushWindow.toNanos();
+                    while (isFlusherRunning && System.nanoTime() < deadline) {
+                        long remainingMillis = Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+                        monitor.wait(remainingMillis);
+                    }
+                } catch (InterruptedException exception) {
+                    isFlusherRunning = false;
+                }
+                if (submittedCount == flushedCount) {
+                    flusher = null;
+                    durability = null;
+                    monitor.notifyAll();
+                    return;
+                }
+
+                batchEnd = submittedCount;
+                flushingSinceNanos = pendingSinceNanos;
+                pendingSinceNanos = 0;
+                batch = prepareBatch(durability != Durability.NONE);
+            }
+
+            ManagerSaveException failure = null;
+            try {
+                batch.run();
+            } catch (ManagerSaveException exception) {
+                failure = exception;
+            }
+
+            synchronized (monitor) {
+                lastFlushLagNanos = System.nanoTime() - flushingSinceNanos;
+                flushingSinceNanos = 0;
+                flushedCount = batchEnd;
+                if (failure != null) {
+                    flushFailure = failure;
+                }
+                monitor.notifyAll();
+            }
+        }
+    }
+}
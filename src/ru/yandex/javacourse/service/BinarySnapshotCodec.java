@@ -0,0 +1,219 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Двоичный формат файла состояния.
+ * Файл начинается с сигнатуры, версии формата и числа записей. Каждая запись - это тип и статус
+ * (порядковые номера перечислений), ID в varint, имя и описание как UTF-8 с длиной в varint,
+ * ID эпика у подзадачи, а также время начала в минутах от эпохи и длительность в минутах,
+ * если они заданы. Время хранится с точностью до минуты, как и в CSV
+ */
+final class BinarySnapshotCodec {
+    static final int VERSION = 1;
+    private static final byte[] MAGIC = {'J', 'K', 'B', 'S'};
+    private static final int HAS_START_TIME = 1;
+    private static final int HAS_DURATION = 2;
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    private byte[] buffer;
+    private int position;
+
+    private BinarySnapshotCodec(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Проверяет, начинается ли содержимое файла с сигнатуры двоичного формата
+     */
+    static boolean isBinary(byte[] data) {
+        return data.length >= MAGIC.length && Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Кодирует задачи, эпики и подзадачи в двоичный формат. Эпики записываются раньше подзадач
+     */
+    static byte[] encode(List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) {
+        int recordsCount = tasks.size() + epics.size() + subtasks.size();
+        BinarySnapshotCodec writer = new BinarySnapshotCodec(new byte[Math.max(64, recordsCount * 48)]);
+        writer.writeBytes(MAGIC);
+        writer.writeVarLong(VERSION);
+        writer.writeVarLong(recordsCount);
+        tasks.forEach(writer::writeRecord);
+        epics.forEach(writer::writeRecord);
+        subtasks.forEach(writer::writeRecord);
+        return Arrays.copyOf(writer.buffer, writer.position);
+    }
+
+    /**
+     * Декодирует записи из двоичного формата в порядке их записи
+     *
+     * @throws IOException если сигнатура или версия не подходят либо файл обрезан
+     */
+    static List<Task> decode(byte[] data) throws IOException {
+        if (!isBinary(data)) {
+            throw new IOException("Файл не в двоичном формате");
+        }
+
+        BinarySnapshotCodec reader = new BinarySnapshotCodec(data);
+        reader.position = MAGIC.length;
+        try {
+            long version = reader.readVarLong();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия двоичного формата: " + version);
+            }
+            int recordsCount = (int) reader.readVarLong();
+            List<Task> records = new ArrayList<>(recordsCount);
+            for (int i = 0; i < recordsCount; i++) {
+                records.add(reader.readRecord());
+            }
+            return records;
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException exception) {
+            throw new IOException("Файл в двоичном формате повреждён", exception);
+        }
+    }
+
+    private void writeRecord(Task task) {
+        TaskType taskType = TaskType.of(task);
+        ensureCapacity(2);
+        buffer[position++] = (byte) taskType.ordinal();
+        buffer[position++] = (byte) (task.getStatus() == null ? 0 : task.getStatus().ordinal() + 1);
+        writeVarLong(task.getId());
+        writeString(task.getName());
+        writeString(task.getDescription());
+        if (task instanceof Subtask subtask) {
+            writeVarLong(subtask.getEpicId());
+        }
+        if (taskType == TaskType.EPIC) {
+            return;
+        }
+
+        LocalDateTime startTime = task.getStartTime();
+        Duration duration = task.getDuration();
+        ensureCapacity(1);
+        buffer[position++] = (byte) ((startTime != null ? HAS_START_TIME : 0) | (duration != null ? HAS_DURATION : 0));
+        if (startTime != null) {
+            writeVarLong(zigZag(Math.floorDiv(startTime.toEpochSecond(ZoneOffset.UTC), 60)));
+        }
+        if (duration != null) {
+            writeVarLong(zigZag(duration.toMinutes()));
+        }
+    }
+
+    private Task readRecord() {
+        TaskType taskType = TASK_TYPES[buffer[position++]];
+        int statusCode = buffer[position++];
+        TaskStatus taskStatus = statusCode == 0 ? null : TASK_STATUSES[statusCode - 1];
+        int taskId = (int) readVarLong();
+        String taskName = readString();
+        String taskDescription = readString();
+
+        if (taskType == TaskType.EPIC) {
+            Epic epic = new Epic(taskName, taskDescription);
+            epic.setId(taskId);
+            return epic;
+        }
+
+        int epicId = taskType == TaskType.SUBTASK ? (int) readVarLong() : 0;
+        int flags = buffer[position++];
+        LocalDateTime taskStartTime = null;
+        Duration taskDuration = null;
+        if ((flags & HAS_START_TIME) != 0) {
+            taskStartTime = LocalDateTime.ofEpochSecond(unZigZag(readVarLong()) * 60, 0, ZoneOffset.UTC);
+        }
+        if ((flags & HAS_DURATION) != 0) {
+            taskDuration = Duration.ofMinutes(unZigZag(readVarLong()));
+        }
+
+        Task task;
+        if (taskType == TaskType.SUBTASK) {
+            task = new Subtask(taskName, taskDescription, taskStatus, epicId, taskDuration, taskStartTime);
+        } else {
+            task = new Task(taskName, taskDescription, taskStatus, taskDuration, taskStartTime);
+        }
+        task.setId(taskId);
+        return task;
+    }
+
+    /**
+     * Пишет строку как длину в байтах плюс один и байты UTF-8. Ноль означает null
+     */
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        writeBytes(bytes);
+    }
+
+    private String readString() {
+        int length = (int) readVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.length - position) {
+            throw new IllegalArgumentException("Строка выходит за конец файла");
+        }
+
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Пишет неотрицательное число по 7 бит в байте, начиная с младших
+     */
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte current = buffer[position++];
+            value |= (long) (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинное число varint");
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        if (position + additionalBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additionalBytes));
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
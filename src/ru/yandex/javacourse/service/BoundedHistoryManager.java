@@ -0,0 +1,88 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Менеджер истории ограниченного размера на массивах примитивов.
+ * Порядок просмотров хранит {@link HistoryIdList}, а задача лежит в массиве по номеру слота своего ID.
+ * Когда история заполнена, новый просмотр вытесняет самый старый.
+ * Просмотр сохраняет ссылку на переданную задачу без копирования и после заполнения истории не выделяет память.
+ * Менеджер задач передаёт хранимые объекты, которые при обновлении заменяются новыми,
+ * поэтому история видит задачу на момент просмотра. Исключение - эпик: его статус и даты
+ * пересчитываются на месте, и история показывает их текущие значения.
+ * Историю менеджер возвращает копиями задач, чтобы изменение результата не меняло хранимые задачи
+ */
+public class BoundedHistoryManager implements HistoryManager {
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final HistoryIdList historyIds;
+    private final Task[] tasks;
+
+    public BoundedHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity максимальное количество задач в истории
+     */
+    public BoundedHistoryManager(int capacity) {
+        historyIds = new HistoryIdList(capacity);
+        tasks = new Task[capacity];
+    }
+
+    public int getCapacity() {
+        return historyIds.capacity();
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> historyList = new ArrayList<>(historyIds.size());
+        for (int slot = historyIds.first(); slot != HistoryIdList.NO_SLOT; slot = historyIds.next(slot)) {
+            historyList.add(tasks[slot].getCopy());
+        }
+        return historyList;
+    }
+
+    /**
+     * Переносит задачу в конец истории. Если задачи в истории нет и история заполнена,
+     * самая старая задача вытесняется
+     */
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        tasks[historyIds.add(task.getId())] = task;
+    }
+
+    /**
+     * Удаляет задачу из истории и отпускает ссылку на неё
+     */
+    @Override
+    public void remove(int id) {
+        int slot = historyIds.remove(id);
+        if (slot != HistoryIdList.NO_SLOT) {
+            tasks[slot] = null;
+        }
+    }
+
+    /**
+     * Удаляет задачи заданного типа одним проходом по слотам истории
+     */
+    @Override
+    public void removeAll(TaskType taskType) {
+        int slot = historyIds.first();
+        while (slot != HistoryIdList.NO_SLOT) {
+            int nextSlot = historyIds.next(slot);
+            if (TaskType.of(tasks[slot]) == taskType) {
+                historyIds.remove(historyIds.idAt(slot));
+                tasks[slot] = null;
+            }
+            slot = nextSlot;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Потокобезопасный менеджер истории без блокировок на записи просмотра.
+ * Просмотры и удаления публикуются событиями в кольцевой буфер: поток занимает номер события
+ * через CAS, записывает событие в ячейку и отмечает ячейку номером события.
+ * События по порядку применяет к исходному менеджеру истории один потребитель за раз.
+ * Потребителем становится задача, поставленная на исполнитель после публикации,
+ * или поток, которому событие некуда записать, или поток, запросивший историю.
+ * Копия задачи снимается в потоке просмотра, пока менеджер задач держит блокировку задачи,
+ * потому что потребитель применяет событие позже и без этой блокировки.
+ * Неизменяемый снимок истории строится при запросе истории и переиспользуется, пока не пришли новые события.
+ * Если буфер заполнен и освободить его не удалось, просмотр отбрасывается,
+ * а удаление ждёт места, чтобы удалённая задача не осталась в истории
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+
+    private final HistoryManager historyManager;
+    private final Executor executor;
+    private final int mask;
+    private final Task[] eventTasks;
+    private final int[] eventIds;
+    private final TaskType[] eventTypes;
+    private final AtomicLongArray eventSequences;
+    private final AtomicLong claimedSequence = new AtomicLong();
+    private volatile long appliedSequence = 0;
+    private final AtomicBoolean isDraining = new AtomicBoolean();
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+    private final LongAdder droppedViewsCount = new LongAdder();
+    private volatile List<Task> publishedHistory = List.of();
+
+    public ConcurrentHistoryManager(HistoryManager historyManager) {
+        this(historyManager, DEFAULT_BUFFER_CAPACITY, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param historyManager исходный менеджер истории, к которому применяются события
+     * @param bufferCapacity размер кольцевого буфера, округляется вверх до степени двойки
+     * @param executor исполнитель, на котором события применяются в фоне
+     */
+    public ConcurrentHistoryManager(HistoryManager historyManager, int bufferCapacity, Executor executor) {
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Размер буфера событий должен быть положительным");
+        }
+        int capacity = bufferCapacity == 1 ? 1 : Integer.highestOneBit(bufferCapacity - 1) << 1;
+        this.historyManager = historyManager;
+        this.executor = executor;
+        mask = capacity - 1;
+        eventTasks = new Task[capacity];
+        eventIds = new int[capacity];
+        eventTypes = new TaskType[capacity];
+        eventSequences = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            eventSequences.set(slot, -1);
+        }
+    }
+
+    /**
+     * Возвращает снимок истории, в котором применены все события, опубликованные до вызова.
+     * Если снимок устарел, вызывающий поток сам становится потребителем и строит новый
+     */
+    @Override
+    public List<Task> getHistory() {
+        long targetSequence = claimedSequence.get();
+        while (true) {
+            if (appliedSequence >= targetSequence) {
+                List<Task> history = publishedHistory;
+                if (history != null) {
+                    return history;
+                }
+            }
+            if (isDraining.compareAndSet(false, true)) {
+                try {
+                    applyEvents();
+                    if (publishedHistory == null) {
+                        publishedHistory = List.copyOf(historyManager.getHistory());
+                    }
+                } finally {
+                    isDraining.set(false);
+                }
+                rescheduleIfPublished();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Публикует копию просмотренной задачи. Если буфер заполнен даже после попытки применить события,
+     * просмотр отбрасывается
+     */
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        Task taskCopy = task.getCopy();
+        if (!tryPublish(taskCopy, taskCopy.getId(), null)) {
+            drain();
+            if (!tryPublish(taskCopy, taskCopy.getId(), null)) {
+                droppedViewsCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Публикует удаление задачи из истории. Если буфер заполнен, помогает применять события, пока не появится место
+     */
+    @Override
+    public void remove(int id) {
+        while (!tryPublish(null, id, null)) {
+            drain();
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Публикует удаление всех задач типа одним событием. Если буфер заполнен, ждёт места, как удаление по ID
+     */
+    @Override
+    public void removeAll(TaskType taskType) {
+        while (!tryPublish(null, 0, taskType)) {
+            drain();
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void bind(IntFunction<Task> taskLookup) {
+        historyManager.bind(taskLookup);
+    }
+
+    /**
+     * Возвращает количество просмотров, отброшенных из-за заполненного буфера
+     */
+    public long getDroppedViewsCount() {
+        return droppedViewsCount.sum();
+    }
+
+    /**
+     * Занимает номер события, записывает событие в ячейку и отмечает её номером события
+     *
+     * @param task просмотренная задача или null для удаления
+     * @param taskType тип для удаления всех задач типа или null для события по ID
+     * @return false, если буфер заполнен
+     */
+    private boolean tryPublish(Task task, int id, TaskType taskType) {
+        long sequence;
+        do {
+            sequence = claimedSequence.get();
+            if (sequence - appliedSequence > mask) {
+                return false;
+            }
+        } while (!claimedSequence.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        eventTasks[slot] = task;
+        eventIds[slot] = id;
+        eventTypes[slot] = taskType;
+        eventSequences.set(slot, sequence);
+        scheduleDrain();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (!isDrainScheduled.get() && isDrainScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                isDrainScheduled.set(false);
+                drain();
+            });
+        }
+    }
+
+    /**
+     * Применяет опубликованные события, если никто другой их сейчас не применяет
+     */
+    private void drain() {
+        if (!isDraining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            applyEvents();
+        } finally {
+            isDraining.set(false);
+        }
+        rescheduleIfPublished();
+    }
+
+    /**
+     * Применяет по порядку все опубликованные события. Вызывается только потребителем.
+     * Снимок сбрасывается раньше, чем освобождаются ячейки, поэтому поток, увидевший номер
+     * применённого события, не получит снимок без этого события.
+     * Ячейка очищается только после применения события: если исходный менеджер бросил исключение,
+     * событие остаётся в буфере и применяется при следующем вызове, а применённые до него события учитываются
+     */
+    private void applyEvents() {
+        long sequence = appliedSequence;
+        long firstSequence = sequence;
+        try {
+            int slot = (int) (sequence & mask);
+            while (eventSequences.get(slot) == sequence) {
+                Task task = eventTasks[slot];
+                TaskType taskType = eventTypes[slot];
+                if (task != null) {
+                    historyManager.add(task);
+                } else if (taskType != null) {
+                    historyManager.removeAll(taskType);
+                } else {
+                    historyManager.remove(eventIds[slot]);
+                }
+                eventTasks[slot] = null;
+                eventTypes[slot] = null;
+                sequence++;
+                slot = (int) (sequence & mask);
+            }
+        } finally {
+            if (sequence != firstSequence) {
+                publishedHistory = null;
+                appliedSequence = sequence;
+            }
+        }
+    }
+
+    /**
+     * Ставит применение в очередь, если событие опубликовали после проверки потребителя, но до снятия флага
+     */
+    private void rescheduleIfPublished() {
+        long sequence = appliedSequence;
+        if (eventSequences.get((int) (sequence & mask)) == sequence) {
+            scheduleDrain();
+        }
+    }
+}
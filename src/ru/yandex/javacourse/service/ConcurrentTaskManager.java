@@ -0,0 +1,864 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.NotFoundException;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Менеджер задач для одновременной работы из нескольких потоков, например из обработчиков HttpTaskServer.
+ * Задачи хранятся в ConcurrentHashMap, ID выдаются атомарным счётчиком.
+ * Задача, эпик и подзадачи эпика защищены одной из полосатых блокировок, выбранной по ID задачи или эпика,
+ * поэтому независимые задачи и эпики изменяются параллельно.
+ * Проверка пересечений по времени и индексы по времени защищены отдельной блокировкой расписания,
+ * которую берут только операции с задачами, у которых задано время.
+ * Массовые удаления берут блокировку структуры на запись и выполняются монопольно.
+ * Порядок захвата блокировок: структура, полосы по возрастанию номера, расписание.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int LOCK_STRIPES = 64;
+    private static final Comparator<Task> PRIORITY_ORDER = Comparator.comparing(Task::getStartTime)
+            .thenComparingInt(Task::getId);
+
+    private final AtomicInteger idCount = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, EpicIndex> epicIndexes = new ConcurrentHashMap<>();
+    private final HistoryManager historyManager;
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final ConcurrentSkipListSet<Task> prioritizedTasks = new ConcurrentSkipListSet<>(PRIORITY_ORDER);
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    /**
+     * Создаёт менеджер с заданным менеджером истории просмотров.
+     * История оборачивается в {@link ConcurrentHistoryManager}, поэтому исходный менеджер истории
+     * не обязан быть потокобезопасным. {@link SessionHistoryManager} не оборачивается: он сам потокобезопасен
+     * и определяет клиента по потоку запроса, а обёртка применяла бы просмотры в другом потоке.
+     * Менеджер истории получает поиск задачи по ID, который не записывает просмотр
+     */
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.historyManager = historyManager instanceof SessionHistoryManager
+                || historyManager instanceof ConcurrentHistoryManager
+                ? historyManager : new ConcurrentHistoryManager(historyManager);
+        this.historyManager.bind(this::findTask);
+    }
+
+    /**
+     * Возвращает копию задачи, эпика или подзадачи по ID без записи в историю или null, если её нет.
+     * Не берёт блокировок: история может вызвать поиск, пока поток держит блокировку задачи
+     */
+    private Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task == null ? null : task.getCopy();
+    }
+
+    /**
+     * Возвращает ID для новой задачи.
+     * Атомарно увеличивает счётчик на 1.
+     */
+    private int generateId() {
+        return idCount.incrementAndGet();
+    }
+
+    /**
+     * Возвращает все задачи в виде списка объектов
+     */
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * Удаляет все задачи в менеджере и истории
+     */
+    @Override
+    public void deleteAllTasks() {
+        runExclusively(() -> {
+            historyManager.removeAll(TaskType.TASK);
+            scheduleLock.lock();
+            try {
+                tasks.values().forEach(this::removeFromSchedule);
+            } finally {
+                scheduleLock.unlock();
+            }
+            tasks.clear();
+        });
+    }
+
+    /**
+     * Возвращает копию задачи по её id.
+     * Добавляет её в историю просмотра задач.
+     */
+    @Override
+    public Task getTaskById(int id) {
+        return callLocked(id, () -> {
+            Task returnedTask = tasks.get(id);
+            if (returnedTask == null) {
+                throw new NotFoundException("Задача не найдена");
+            }
+            historyManager.add(returnedTask);
+            return returnedTask.getCopy();
+        });
+    }
+
+    /**
+     * Добавляет новую задачу.
+     * Проверка пересечений и сохранение задачи с временем выполняются атомарно под блокировкой расписания.
+     *
+     * @param task объект задачи, которую нужно добавить
+     * @return копия созданной задачи с присвоенным ID
+     */
+    @Override
+    public Task addTask(Task task) {
+        if (task == null) {
+            throw new NotFoundException("Задача не найдена");
+        }
+
+        return callShared(() -> {
+            Task createdTask = task.getCopy();
+            boolean isScheduleLocked = lockSchedule(createdTask, null);
+            try {
+                if (hasCrossInTime(task)) {
+                    throw new NotFoundException("Задача не добавлена");
+                }
+                createdTask.setId(generateId());
+                tasks.put(createdTask.getId(), createdTask);
+                addToSchedule(createdTask);
+            } finally {
+                unlockSchedule(isScheduleLocked);
+            }
+            return createdTask.getCopy();
+        });
+    }
+
+    /**
+     * Обновляет задачу под блокировкой её полосы.
+     *
+     * @param task объект задачи, которую нужно обновить
+     */
+    @Override
+    public void updateTask(Task task) {
+        if (task == null) {
+            throw new NotFoundException("Задача не найдена");
+        }
+
+        runLocked(task.getId(), () -> {
+            Task currentTask = tasks.get(task.getId());
+            Task updatedTask = task.getCopy();
+            boolean isScheduleLocked = lockSchedule(updatedTask, currentTask);
+            try {
+                if (hasCrossInTime(task)) {
+                    throw new NotFoundException("Задача не добавлена");
+                }
+                if (currentTask == null) {
+                    throw new NotFoundException("Задача не найден");
+                }
+                removeFromSchedule(currentTask);
+                tasks.put(updatedTask.getId(), updatedTask);
+                addToSchedule(updatedTask);
+            } finally {
+                unlockSchedule(isScheduleLocked);
+            }
+        });
+    }
+
+    /**
+     * Удаляет задачу по её id из менеджера и истории
+     */
+    @Override
+    public void deleteTaskById(int id) {
+        runLocked(id, () -> {
+            Task task = tasks.get(id);
+            if (task == null) {
+                throw new NotFoundException("Задача не найдена");
+            }
+            historyManager.remove(id);
+            boolean isScheduleLocked = lockSchedule(task, null);
+            try {
+                removeFromSchedule(task);
+            } finally {
+                unlockSchedule(isScheduleLocked);
+            }
+            tasks.remove(id);
+        });
+    }
+
+    /**
+     * Возвращает копии всех эпиков.
+     * Каждый эпик копируется под блокировкой своей полосы, чтобы не получить его в промежуточном состоянии
+     */
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        ArrayList<Epic> allEpics = new ArrayList<>(epics.size());
+        for (Integer epicId : epics.keySet()) {
+            Epic epicCopy = callLocked(epicId, () -> {
+                Epic epic = epics.get(epicId);
+                return epic == null ? null : epic.getCopy();
+            });
+            if (epicCopy != null) {
+                allEpics.add(epicCopy);
+            }
+        }
+        return allEpics;
+    }
+
+    /**
+     * Удаляет все эпики вместе с подзадачами из менеджера и истории
+     */
+    @Override
+    public void deleteAllEpics() {
+        runExclusively(() -> {
+            historyManager.removeAll(TaskType.SUBTASK);
+            historyManager.removeAll(TaskType.EPIC);
+            scheduleLock.lock();
+            try {
+                subtasks.values().forEach(this::removeFromSchedule);
+            } finally {
+                scheduleLock.unlock();
+            }
+            epics.clear();
+            subtasks.clear();
+            epicIndexes.clear();
+        });
+    }
+
+    /**
+     * Возвращает копию эпика по его id.
+     * Добавляет его в историю просмотра задач.
+     */
+    @Override
+    public Epic getEpicById(int id) {
+        return callLocked(id, () -> {
+            Epic returnedEpic = epics.get(id);
+            if (returnedEpic == null) {
+                throw new NotFoundException("Эпик не найден");
+            }
+            historyManager.add(returnedEpic);
+            return returnedEpic.getCopy();
+        });
+    }
+
+    /**
+     * Добавляет новый эпик.
+     * Эпик становится виден другим потокам только после создания его индекса.
+     *
+     * @param epic объект эпика, который нужно добавить
+     * @return копия созданного эпика с присвоенным ID
+     */
+    @Override
+    public Epic addEpic(Epic epic) {
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+
+        return callShared(() -> {
+            Epic createdEpic = epic.getCopy();
+            createdEpic.setId(generateId());
+            createdEpic.deleteSubtasksIdList();
+            EpicIndex epicIndex = new EpicIndex();
+            applyEpicIndex(createdEpic, epicIndex);
+            Epic returnedEpic = createdEpic.getCopy();
+            epicIndexes.put(createdEpic.getId(), epicIndex);
+            epics.put(createdEpic.getId(), createdEpic);
+            return returnedEpic;
+        });
+    }
+
+    /**
+     * Обновляет эпик под блокировкой его полосы.
+     * Список подзадач, статус и даты эпика сохраняются из менеджера.
+     *
+     * @param epic объект эпика, который нужно обновить
+     */
+    @Override
+    public void updateEpic(Epic epic) {
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+
+        runLocked(epic.getId(), () -> {
+            Epic currentEpic = epics.get(epic.getId());
+            if (currentEpic == null) {
+                throw new NotFoundException("Эпик не найден");
+            }
+            Epic updatedEpic = epic.getCopy();
+            updatedEpic.setSubtasksIdList(currentEpic.getSubtasksIdList());
+            applyEpicIndex(updatedEpic, epicIndexes.get(updatedEpic.getId()));
+            epics.put(updatedEpic.getId(), updatedEpic);
+        });
+    }
+
+    /**
+     * Удаляет эпик по его id вместе с его подзадачами из менеджера и истории
+     */
+    @Override
+    public void deleteEpicById(int id) {
+        runLocked(id, () -> {
+            Epic epic = epics.get(id);
+            if (epic == null) {
+                throw new NotFoundException("Эпик не найден");
+            }
+
+            historyManager.remove(id);
+            epics.remove(id);
+            epicIndexes.remove(id);
+
+            scheduleLock.lock();
+            try {
+                for (Integer subtaskId : epic.getSubtasksIdList()) {
+                    historyManager.remove(subtaskId);
+                    removeFromSchedule(subtasks.remove(subtaskId));
+                }
+            } finally {
+                scheduleLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Возвращает все подзадачи в виде списка объектов
+     */
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    /**
+     * Удаляет все подзадачи из менеджера, истории и эпиков
+     */
+    @Override
+    public void deleteAllSubtasks() {
+        runExclusively(() -> {
+            historyManager.removeAll(TaskType.SUBTASK);
+            scheduleLock.lock();
+            try {
+                subtasks.values().forEach(this::removeFromSchedule);
+            } finally {
+                scheduleLock.unlock();
+            }
+            subtasks.clear();
+            epics.values().forEach(epic -> {
+                EpicIndex epicIndex = epicIndexes.get(epic.getId());
+                epic.deleteSubtasksIdList();
+                epicIndex.clear();
+                applyEpicIndex(epic, epicIndex);
+            });
+        });
+    }
+
+    /**
+     * Возвращает копию подзадачи по её id.
+     * Добавляет её в историю просмотра задач.
+     */
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return callWithSubtaskLock(id, "Подзадача не найдена", subtask -> {
+            historyManager.add(subtask);
+            return subtask.getCopy();
+        });
+    }
+
+    /**
+     * Добавляет новую подзадачу под блокировкой полосы её эпика.
+     *
+     * @param subtask объект подзадачи, которую нужно добавить
+     * @return копия созданной подзадачи с присвоенным ID
+     */
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        if (subtask == null) {
+            throw new NotFoundException("Подзадача не найдена");
+        }
+
+        return callLocked(subtask.getEpicId(), () -> {
+            Subtask createdSubtask = subtask.getCopy();
+            Epic epic;
+            boolean isScheduleLocked = lockSchedule(createdSubtask, null);
+            try {
+                if (hasCrossInTime(subtask)) {
+                    throw new NotFoundException("Подзадача не добавлена");
+                }
+                epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    throw new NotFoundException("Эпик для подзадачи не найден");
+                }
+                if (subtask.getEpicId() == subtask.getId()) {
+                    throw new NotFoundException("Подзадача не добавлена");
+                }
+                createdSubtask.setId(generateId());
+                subtasks.put(createdSubtask.getId(), createdSubtask);
+                addToSchedule(createdSubtask);
+            } finally {
+                unlockSchedule(isScheduleLocked);
+            }
+
+            EpicIndex epicIndex = epicIndexes.get(epic.getId());
+            epic.addSubtaskId(createdSubtask.getId());
+            epicIndex.addSubtask(createdSubtask);
+            applyEpicIndex(epic, epicIndex);
+            return createdSubtask.getCopy();
+        });
+    }
+
+    /**
+     * Обновляет подзадачу под блокировками полос её текущего и нового эпиков.
+     * Если подзадача перенесена в другой эпик, переносит её ID между эпиками.
+     *
+     * @param subtask объект подзадачи, которую нужно обновить
+     */
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (subtask == null) {
+            throw new NotFoundException("Подзадача для обновления не найдена");
+        }
+
+        if (subtask.getEpicId() == subtask.getId()) {
+            throw new NotFoundException("Подзадача не обновлена");
+        }
+
+        while (true) {
+            Subtask observedSubtask = subtasks.get(subtask.getId());
+            int previousEpicId = observedSubtask == null ? subtask.getEpicId() : observedSubtask.getEpicId();
+            Lock readLock = structureLock.readLock();
+            readLock.lock();
+            ReentrantLock[] epicLocks = lockStripes(previousEpicId, subtask.getEpicId());
+            try {
+                Subtask currentSubtask = subtasks.get(subtask.getId());
+                if (currentSubtask != null && currentSubtask.getEpicId() != previousEpicId) {
+                    continue;
+                }
+                updateLockedSubtask(subtask, currentSubtask);
+                return;
+            } finally {
+                unlockStripes(epicLocks);
+                readLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Удаляет подзадачу по её id из эпика, менеджера и истории
+     */
+    @Override
+    public void deleteSubtaskById(int id) {
+        callWithSubtaskLock(id, "Подзадача не найдена", subtask -> {
+            Epic epic = epics.get(subtask.getEpicId());
+            EpicIndex epicIndex = epicIndexes.get(epic.getId());
+            if (epic.deleteSubtaskId(id)) {
+                epicIndex.removeSubtask(subtask);
+            }
+            applyEpicIndex(epic, epicIndex);
+
+            historyManager.remove(id);
+            boolean isScheduleLocked = lockSchedule(subtask, null);
+            try {
+                removeFromSchedule(subtask);
+            } finally {
+                unlockSchedule(isScheduleLocked);
+            }
+            subtasks.remove(id);
+            return null;
+        });
+    }
+
+    /**
+     * Возвращает список подзадач указанного эпика по ID из его списка подзадач
+     *
+     * @param epicId это ID эпика
+     * @return список объектов-подзадач
+     */
+    @Override
+    public ArrayList<Subtask> getAllSubtasksByEpicId(int epicId) {
+        return callLocked(epicId, () -> {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                return new ArrayList<>();
+            }
+
+            ArrayList<Integer> subtaskIds = epic.getSubtasksIdList();
+            ArrayList<Subtask> epicSubtasks = new ArrayList<>(subtaskIds.size());
+            for (Integer subtaskId : subtaskIds) {
+                epicSubtasks.add(subtasks.get(subtaskId));
+            }
+            return epicSubtasks;
+        });
+    }
+
+    /**
+     * Обновляет статус эпика по счётчикам статусов его подзадач
+     *
+     * @param epic объект эпика, статус которого нужно обновить.
+     */
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+        runLocked(epic.getId(), () -> epic.setStatus(getEpicIndex(epic).getStatus()));
+    }
+
+    /**
+     * Возвращает список просмотренных задач.
+     */
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    /**
+     * Пересчитывает все даты внутри эпика по агрегатам его индекса
+     */
+    @Override
+    public void updateEpicDates(Epic epic) {
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+        runLocked(epic.getId(), () -> {
+            EpicIndex epicIndex = getEpicIndex(epic);
+            epic.setStartTime(epicIndex.getStartTime());
+            epic.setEndTime(epicIndex.getEndTime());
+            epic.setDuration(epicIndex.getDuration());
+        });
+    }
+
+    /**
+     * Выводит список задач в порядке приоритета
+     */
+    @Override
+    public TreeSet<Task> getPrioritizedTasks() {
+        TreeSet<Task> prioritizedTasksCopy = new TreeSet<>(PRIORITY_ORDER);
+        prioritizedTasksCopy.addAll(new ArrayList<>(prioritizedTasks));
+        return prioritizedTasksCopy;
+    }
+
+    /**
+     * Возвращает доступное только для чтения представление задач в порядке приоритета.
+     * Представление можно обходить одновременно с изменениями в менеджере
+     */
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        return Collections.unmodifiableNavigableSet(prioritizedTasks);
+    }
+
+    /**
+     * Возвращает страницу задач в порядке приоритета
+     *
+     * @param offset количество задач, которые нужно пропустить
+     * @param limit максимальное количество задач на странице
+     * @return список задач страницы
+     */
+    @Override
+    public List<Task> getPrioritizedTasks(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Некорректные параметры страницы");
+        }
+        return prioritizedTasks.stream()
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Проверяет, пересекаются ли две задачи по времени
+     */
+    @Override
+    public boolean ifTasksCrossInTime(Task firstTask, Task secondTask) {
+        if (firstTask == null || secondTask == null || firstTask.equals(secondTask)) {
+            return false;
+        }
+
+        LocalDateTime firstTaskStartTime = firstTask.getStartTime();
+        LocalDateTime firstTaskEndTime = firstTask.getEndTime();
+
+        LocalDateTime secondTaskStartTime = secondTask.getStartTime();
+        LocalDateTime secondTaskEndTime = secondTask.getEndTime();
+
+        if (firstTaskStartTime == null || firstTaskEndTime == null || secondTaskStartTime == null
+                || secondTaskEndTime == null) {
+            return false;
+        }
+
+        return !firstTaskEndTime.isBefore(secondTaskStartTime) && !secondTaskEndTime.isBefore(firstTaskStartTime);
+    }
+
+    /**
+     * Проверяет, пересекается ли заданная задача с любой задачей из менеджера
+     *
+     * @param task задача для проверки
+     * @return true если есть пересечение по времени, false если пересечений нет или задача не имеет временных меток
+     */
+    @Override
+    public boolean hasCrossInTimeWithManagerTasks(Task task) {
+        if (task == null || task.getStartTime() == null || task.getEndTime() == null) {
+            return false;
+        }
+
+        scheduleLock.lock();
+        try {
+            return hasCrossInTime(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    /**
+     * Обновляет подзадачу, когда блокировки полос её эпиков уже захвачены
+     */
+    private void updateLockedSubtask(Subtask subtask, Subtask currentSubtask) {
+        Subtask updatedSubtask = subtask.getCopy();
+        Epic epic;
+        boolean isScheduleLocked = lockSchedule(updatedSubtask, currentSubtask);
+        try {
+            if (hasCrossInTime(subtask)) {
+                throw new NotFoundException("Подзадача не обновлена");
+            }
+            if (currentSubtask == null) {
+                throw new NotFoundException("Подзадача не обновлена");
+            }
+            epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new NotFoundException("Эпик для подзадачи не найден");
+            }
+            removeFromSchedule(currentSubtask);
+            subtasks.put(updatedSubtask.getId(), updatedSubtask);
+            addToSchedule(updatedSubtask);
+        } finally {
+            unlockSchedule(isScheduleLocked);
+        }
+
+        EpicIndex epicIndex = epicIndexes.get(epic.getId());
+        if (currentSubtask.getEpicId() != updatedSubtask.getEpicId()) {
+            Epic previousEpic = epics.get(currentSubtask.getEpicId());
+            EpicIndex previousEpicIndex = epicIndexes.get(previousEpic.getId());
+            if (previousEpic.deleteSubtaskId(updatedSubtask.getId())) {
+                previousEpicIndex.removeSubtask(currentSubtask);
+            }
+            applyEpicIndex(previousEpic, previousEpicIndex);
+
+            epic.addSubtaskId(updatedSubtask.getId());
+            epicIndex.addSubtask(updatedSubtask);
+        } else {
+            epicIndex.replaceSubtask(currentSubtask, updatedSubtask);
+        }
+        applyEpicIndex(epic, epicIndex);
+    }
+
+    /**
+     * Проставляет эпику статус и даты из его индекса
+     */
+    private void applyEpicIndex(Epic epic, EpicIndex epicIndex) {
+        epic.setStatus(epicIndex.getStatus());
+        epic.setStartTime(epicIndex.getStartTime());
+        epic.setEndTime(epicIndex.getEndTime());
+        epic.setDuration(epicIndex.getDuration());
+    }
+
+    /**
+     * Возвращает индекс эпика из менеджера.
+     * Для эпика, которого нет в менеджере, строит временный индекс по его списку подзадач
+     */
+    private EpicIndex getEpicIndex(Epic epic) {
+        EpicIndex epicIndex = epicIndexes.get(epic.getId());
+        if (epicIndex != null) {
+            return epicIndex;
+        }
+
+        EpicIndex calculatedIndex = new EpicIndex();
+        for (Integer subtaskId : epic.getSubtasksIdList()) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                calculatedIndex.addSubtask(subtask);
+            }
+        }
+        return calculatedIndex;
+    }
+
+    /**
+     * Проверяет пересечение по индексу. Вызывается под блокировкой расписания
+     */
+    private boolean hasCrossInTime(Task task) {
+        return timeIndex.findCross(task).isPresent();
+    }
+
+    private boolean isScheduled(Task task) {
+        return task != null && task.getStartTime() != null;
+    }
+
+    /**
+     * Добавляет задачу в индексы по времени. Вызывается под блокировкой расписания
+     */
+    private void addToSchedule(Task task) {
+        if (isScheduled(task)) {
+            timeIndex.add(task);
+            prioritizedTasks.add(task);
+        }
+    }
+
+    /**
+     * Удаляет задачу из индексов по времени. Вызывается под блокировкой расписания
+     */
+    private void removeFromSchedule(Task task) {
+        if (isScheduled(task)) {
+            timeIndex.remove(task);
+            prioritizedTasks.remove(task);
+        }
+    }
+
+    /**
+     * Захватывает блокировку расписания, если новая или текущая версия задачи имеет время
+     *
+     * @return true, если блокировка была захвачена
+     */
+    private boolean lockSchedule(Task task, Task currentTask) {
+        if (isScheduled(task) || isScheduled(currentTask)) {
+            scheduleLock.lock();
+            return true;
+        }
+        return false;
+    }
+
+    private void unlockSchedule(boolean isScheduleLocked) {
+        if (isScheduleLocked) {
+            scheduleLock.unlock();
+        }
+    }
+
+    private ReentrantLock getStripe(int id) {
+        return stripes[Math.floorMod(id, LOCK_STRIPES)];
+    }
+
+    /**
+     * Захватывает блокировки полос двух эпиков в порядке возрастания номера полосы
+     */
+    private ReentrantLock[] lockStripes(int firstId, int secondId) {
+        int firstStripe = Math.floorMod(firstId, LOCK_STRIPES);
+        int secondStripe = Math.floorMod(secondId, LOCK_STRIPES);
+        ReentrantLock[] locks;
+        if (firstStripe == secondStripe) {
+            locks = new ReentrantLock[]{stripes[firstStripe]};
+        } else {
+            locks = new ReentrantLock[]{stripes[Math.min(firstStripe, secondStripe)],
+                    stripes[Math.max(firstStripe, secondStripe)]};
+        }
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        return locks;
+    }
+
+    private void unlockStripes(ReentrantLock[] locks) {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    /**
+     * Выполняет действие под блокировкой структуры на чтение и блокировкой полосы заданного ID
+     */
+    private <T> T callLocked(int id, Supplier<T> action) {
+        Lock readLock = structureLock.readLock();
+        readLock.lock();
+        ReentrantLock stripe = getStripe(id);
+        stripe.lock();
+        try {
+            return action.get();
+        } finally {
+            stripe.unlock();
+            readLock.unlock();
+        }
+    }
+
+    private void runLocked(int id, Runnable action) {
+        callLocked(id, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполняет действие под блокировкой структуры на чтение без блокировки полосы.
+     * Используется при создании новых объектов, которые ещё не видны другим потокам
+     */
+    private <T> T callShared(Supplier<T> action) {
+        Lock readLock = structureLock.readLock();
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Выполняет действие монопольно, под блокировкой структуры на запись
+     */
+    private void runExclusively(Runnable action) {
+        Lock writeLock = structureLock.writeLock();
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Выполняет действие над подзадачей под блокировкой полосы её эпика.
+     * Если подзадачу перенесли в другой эпик до захвата блокировки, повторяет попытку
+     */
+    private <T> T callWithSubtaskLock(int id, String notFoundMessage, Function<Subtask, T> action) {
+        while (true) {
+            Subtask observedSubtask = subtasks.get(id);
+            if (observedSubtask == null) {
+                throw new NotFoundException(notFoundMessage);
+            }
+
+            int epicId = observedSubtask.getEpicId();
+            Lock readLock = structureLock.readLock();
+            readLock.lock();
+            ReentrantLock stripe = getStripe(epicId);
+            stripe.lock();
+            try {
+                Subtask subtask = subtasks.get(id);
+                if (subtask == null) {
+                    throw new NotFoundException(notFoundMessage);
+                }
+                if (subtask.getEpicId() == epicId) {
+                    return action.apply(subtask);
+                }
+            } finally {
+                stripe.unlock();
+                readLock.unlock();
+            }
+        }
+    }
+}
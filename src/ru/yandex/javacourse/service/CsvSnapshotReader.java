@@ -0,0 +1,154 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Параллельное чтение файла состояния в формате CSV.
+ * Файл делится на куски по границам строк, каждый кусок читается позиционным чтением канала
+ * и разбирается отдельной задачей пула со своим {@link CsvTaskCodec}. Байты куска декодируются
+ * в один буфер символов, и записи разбираются прямо из него, без строки на каждую строку файла.
+ * Результаты объединяются в порядке кусков, поэтому порядок записей совпадает с порядком строк файла
+ */
+final class CsvSnapshotReader {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_CHUNK_SIZE = 1 << 28;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+    private CsvSnapshotReader() {
+    }
+
+    /**
+     * Читает записи файла, пропуская строку заголовка и пустые строки
+     */
+    static List<Task> read(Path path, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long dataStart = findLineStart(channel, 0);
+            long dataSize = fileSize - dataStart;
+            int chunksCount = (int) Math.max(Math.max(1, Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD,
+                    dataSize / MIN_CHUNK_SIZE)), (dataSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+
+            long[] boundaries = new long[chunksCount + 1];
+            boundaries[0] = dataStart;
+            boundaries[chunksCount] = fileSize;
+            long chunkSize = dataSize / chunksCount;
+            for (int i = 1; i < chunksCount; i++) {
+                long nominalStart = Math.max(boundaries[i - 1], dataStart + chunkSize * i);
+                boundaries[i] = findLineStart(channel, nominalStart);
+            }
+
+            if (chunksCount == 1) {
+                return parseChunk(channel, dataStart, fileSize);
+            }
+
+            List<ForkJoinTask<List<Task>>> chunks = new ArrayList<>(chunksCount);
+            for (int i = 0; i < chunksCount; i++) {
+                long start = boundaries[i];
+                long end = boundaries[i + 1];
+                chunks.add(pool.submit(() -> parseChunk(channel, start, end)));
+            }
+
+            List<Task> records = new ArrayList<>();
+            for (ForkJoinTask<List<Task>> chunk : chunks) {
+                records.addAll(await(chunk));
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Ждёт результат куска и пробрасывает его исключение без обёртки
+     */
+    private static List<Task> await(ForkJoinTask<List<Task>> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Чтение файла прервано", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException("Ошибка при чтении файла", exception.getCause());
+        }
+    }
+
+    /**
+     * Возвращает позицию начала строки, следующей за переводом строки на позиции from или после неё.
+     * Если перевода строки нет, возвращает конец файла
+     */
+    private static long findLineStart(FileChannel channel, long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int readBytes = channel.read(buffer, position);
+            if (readBytes <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < readBytes; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += readBytes;
+        }
+    }
+
+    /**
+     * Читает байты куска и разбирает его строки.
+     * Кусок начинается и заканчивается на границе строки, поэтому символы UTF-8 не разрываются
+     */
+    private static List<Task> parseChunk(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+
+        CharBuffer text = StandardCharsets.UTF_8.decode(buffer.flip());
+        CsvTaskCodec codec = new CsvTaskCodec();
+        List<Task> records = new ArrayList<>();
+        int textLength = text.length();
+        int lineStart = 0;
+        while (lineStart < textLength) {
+            int lineEnd = lineStart;
+            while (lineEnd < textLength && text.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && text.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (!isBlank(text, lineStart, contentEnd)) {
+                records.add(codec.decode(text, lineStart, contentEnd));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return records;
+    }
+
+    private static boolean isBlank(CharBuffer text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
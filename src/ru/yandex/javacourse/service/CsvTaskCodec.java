@@ -0,0 +1,336 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Кодирование задач в строки CSV файла состояния и обратно.
+ * Поле с запятой, кавычкой, обратной косой чертой или переводом строки берётся в кавычки:
+ * кавычка внутри удваивается, а перевод строки и обратная косая черта экранируются обратной косой чертой,
+ * поэтому каждая запись занимает ровно одну строку файла. Пустое поле без кавычек означает null,
+ * пустая строка записывается как "".
+ * Кодирование дописывает запись в переданный StringBuilder без промежуточных объектов,
+ * разбор идёт по символам без split и исключений и создаёт только строки и объекты самой задачи.
+ * Экземпляр хранит буфер для разбора и не потокобезопасен
+ */
+final class CsvTaskCodec {
+    static final String HEADER = "id,type,name,status,description,epic,startTime,duration(min)";
+    private static final String NO_EPIC = "без эпика";
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    private final StringBuilder field = new StringBuilder();
+    private CharSequence chars;
+    private int start;
+    private int position;
+    private int end;
+
+    /**
+     * Дописывает задачу одной строкой CSV без перевода строки
+     */
+    static void encode(Task task, StringBuilder out) {
+        TaskType taskType = TaskType.of(task);
+        out.append(task.getId()).append(',').append(taskType.name()).append(',');
+        appendText(task.getName(), out);
+        out.append(',');
+        if (task.getStatus() != null) {
+            out.append(task.getStatus().name());
+        }
+        out.append(',');
+        appendText(task.getDescription(), out);
+        out.append(',');
+        if (task instanceof Subtask subtask) {
+            out.append(subtask.getEpicId());
+        } else {
+            out.append(NO_EPIC);
+        }
+        out.append(',');
+        LocalDateTime startTime = task.getStartTime();
+        if (startTime != null) {
+            appendTwoDigits(startTime.getDayOfMonth(), out);
+            out.append('.');
+            appendTwoDigits(startTime.getMonthValue(), out);
+            out.append('.');
+            appendYear(startTime.getYear(), out);
+            out.append(' ');
+            appendTwoDigits(startTime.getHour(), out);
+            out.append(':');
+            appendTwoDigits(startTime.getMinute(), out);
+        }
+        out.append(',');
+        if (task.getDuration() != null) {
+            out.append(task.getDuration().toMinutes());
+        }
+    }
+
+    Task decode(CharSequence line) {
+        return decode(line, 0, line.length());
+    }
+
+    /**
+     * Разбирает запись из символов [start, end) без перевода строки.
+     * Запись должна содержать все восемь полей, поэтому недописанная запись считается повреждённой
+     *
+     * @throws IllegalArgumentException если запись повреждена
+     */
+    Task decode(CharSequence source, int start, int end) {
+        chars = source;
+        this.start = start;
+        position = start;
+        this.end = end;
+        try {
+            int taskId = (int) readNumber();
+            finishField();
+            int typeIndex = readKeyword(TASK_TYPES);
+            if (typeIndex < 0) {
+                throw malformed();
+            }
+            TaskType taskType = TASK_TYPES[typeIndex];
+            String taskName = readText();
+            int statusIndex = readKeyword(TASK_STATUSES);
+            TaskStatus taskStatus = statusIndex < 0 ? null : TASK_STATUSES[statusIndex];
+            String taskDescription = readText();
+
+            if (taskType == TaskType.EPIC) {
+                Epic epic = new Epic(taskName, taskDescription);
+                epic.setId(taskId);
+                return epic;
+            }
+
+            int epicId = 0;
+            if (taskType == TaskType.SUBTASK) {
+                epicId = (int) readNumber();
+                finishField();
+            } else {
+                skipField();
+            }
+            LocalDateTime taskStartTime = readDateTime();
+            Duration taskDuration = position < end ? Duration.ofMinutes(readNumber()) : null;
+            if (position != end) {
+                throw malformed();
+            }
+
+            Task task;
+            if (taskType == TaskType.SUBTASK) {
+                task = new Subtask(taskName, taskDescription, taskStatus, epicId, taskDuration, taskStartTime);
+            } else {
+                task = new Task(taskName, taskDescription, taskStatus, taskDuration, taskStartTime);
+            }
+            task.setId(taskId);
+            return task;
+        } finally {
+            chars = null;
+        }
+    }
+
+    private static void appendText(String value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && !needsQuoting(value)) {
+            out.append(value);
+            return;
+        }
+
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char current = value.charAt(i);
+            switch (current) {
+                case '"' -> out.append("\"\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(current);
+            }
+        }
+        out.append('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char current = value.charAt(i);
+            if (current == ',' || current == '"' || current == '\\' || current == '\n' || current == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendTwoDigits(int value, StringBuilder out) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static void appendYear(int year, StringBuilder out) {
+        if (year >= 0 && year < 1000) {
+            out.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        out.append(year);
+    }
+
+    private boolean isFieldEmpty() {
+        return position >= end || chars.charAt(position) == ',';
+    }
+
+    /**
+     * Переходит через запятую после поля. Запятая обязательна для всех полей, кроме последнего
+     */
+    private void finishField() {
+        if (position >= end || chars.charAt(position) != ',') {
+            throw malformed();
+        }
+        position++;
+    }
+
+    private void skipField() {
+        while (position < end && chars.charAt(position) != ',') {
+            position++;
+        }
+        finishField();
+    }
+
+    private long readNumber() {
+        boolean isNegative = position < end && chars.charAt(position) == '-';
+        if (isNegative) {
+            position++;
+        }
+
+        int digitsStart = position;
+        long value = 0;
+        while (position < end && chars.charAt(position) >= '0' && chars.charAt(position) <= '9') {
+            value = value * 10 + (chars.charAt(position) - '0');
+            position++;
+        }
+        if (position == digitsStart || position - digitsStart > 18) {
+            throw malformed();
+        }
+        return isNegative ? -value : value;
+    }
+
+    /**
+     * Возвращает номер константы перечисления, совпадающей с полем, или -1 для пустого поля
+     */
+    private int readKeyword(Enum<?>[] constants) {
+        int fieldStart = position;
+        while (position < end && chars.charAt(position) != ',') {
+            position++;
+        }
+        int fieldLength = position - fieldStart;
+        finishField();
+        if (fieldLength == 0) {
+            return -1;
+        }
+
+        for (Enum<?> constant : constants) {
+            String name = constant.name();
+            if (name.length() == fieldLength && matches(fieldStart, name)) {
+                return constant.ordinal();
+            }
+        }
+        throw malformed();
+    }
+
+    private boolean matches(int from, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (chars.charAt(from + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readText() {
+        if (isFieldEmpty()) {
+            finishField();
+            return null;
+        }
+
+        field.setLength(0);
+        if (chars.charAt(position) != '"') {
+            int fieldStart = position;
+            while (position < end && chars.charAt(position) != ',') {
+                position++;
+            }
+            field.append(chars, fieldStart, position);
+            finishField();
+            return field.toString();
+        }
+
+        position++;
+        while (true) {
+            if (position >= end) {
+                throw malformed();
+            }
+            char current = chars.charAt(position++);
+            if (current == '"') {
+                if (position < end && chars.charAt(position) == '"') {
+                    field.append('"');
+                    position++;
+                } else {
+                    break;
+                }
+            } else if (current == '\\') {
+                if (position >= end) {
+                    throw malformed();
+                }
+                char escaped = chars.charAt(position++);
+                field.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else {
+                field.append(current);
+            }
+        }
+        finishField();
+        return field.toString();
+    }
+
+    /**
+     * Разбирает время в виде dd.MM.yyyy HH:mm
+     */
+    private LocalDateTime readDateTime() {
+        if (isFieldEmpty()) {
+            finishField();
+            return null;
+        }
+
+        int day = readDigits(2);
+        expect('.');
+        int month = readDigits(2);
+        expect('.');
+        int year = readDigits(9);
+        expect(' ');
+        int hour = readDigits(2);
+        expect(':');
+        int minute = readDigits(2);
+        finishField();
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    /**
+     * Читает от одной до maxDigits цифр
+     */
+    private int readDigits(int maxDigits) {
+        int digitsStart = position;
+        int value = 0;
+        while (position < end && position - digitsStart < maxDigits
+                && chars.charAt(position) >= '0' && chars.charAt(position) <= '9') {
+            value = value * 10 + (chars.charAt(position) - '0');
+            position++;
+        }
+        if (position == digitsStart) {
+            throw malformed();
+        }
+        return value;
+    }
+
+    private void expect(char separator) {
+        if (position >= end || chars.charAt(position) != separator) {
+            throw malformed();
+        }
+        position++;
+    }
+
+    private IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Повреждённая запись CSV: " + chars.subSequence(start, end));
+    }
+}
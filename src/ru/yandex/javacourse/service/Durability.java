@@ -0,0 +1,19 @@
+package ru.yandex.javacourse.service;
+
+/**
+ * Уровень надёжности фонового сохранения {@link FileBackedTaskManager}
+ */
+public enum Durability {
+    /**
+     * Изменения пишутся в файл фоновым потоком без принудительного сброса на диск
+     */
+    NONE,
+    /**
+     * Фоновый поток сбрасывает на диск каждый записанный пакет изменений
+     */
+    FSYNC_PER_BATCH,
+    /**
+     * Вызов возвращается только после того, как пакет с его изменением записан и сброшен на диск
+     */
+    FSYNC_PER_MUTATION
+}
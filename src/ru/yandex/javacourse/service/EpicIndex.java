@@ -0,0 +1,142 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+
+/**
+ * Индекс эпика внутри менеджера задач.
+ * ID подзадач индекс не хранит: их список уже есть в самом эпике, и менеджер обходит его,
+ * поэтому выборка подзадач эпика занимает O(количества подзадач) без второй копии ID.
+ * Ведёт счётчики подзадач по статусам, чтобы статус эпика вычислялся за O(1).
+ * Ведёт упорядоченные мультимножества времени начала и окончания подзадач и сумму их продолжительностей,
+ * чтобы даты эпика пересчитывались за O(log k) при изменении одной подзадачи
+ */
+class EpicIndex {
+    private int subtasksCount = 0;
+    private int newCount = 0;
+    private int inProgressCount = 0;
+    private int doneCount = 0;
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private Duration durationSum = Duration.ZERO;
+
+    /**
+     * Добавляет подзадачу в индекс эпика
+     */
+    public void addSubtask(Subtask subtask) {
+        subtasksCount++;
+        countStatus(subtask.getStatus(), 1);
+        countDates(subtask, 1);
+    }
+
+    /**
+     * Удаляет подзадачу из индекса эпика. Вызывается только для подзадачи, которая есть в эпике:
+     * менеджер проверяет это по списку ID подзадач эпика
+     */
+    public void removeSubtask(Subtask subtask) {
+        subtasksCount--;
+        countStatus(subtask.getStatus(), -1);
+        countDates(subtask, -1);
+    }
+
+    /**
+     * Заменяет в индексе эпика текущую версию подзадачи на обновлённую
+     */
+    public void replaceSubtask(Subtask currentSubtask, Subtask updatedSubtask) {
+        countStatus(currentSubtask.getStatus(), -1);
+        countStatus(updatedSubtask.getStatus(), 1);
+        countDates(currentSubtask, -1);
+        countDates(updatedSubtask, 1);
+    }
+
+    public void clear() {
+        subtasksCount = 0;
+        newCount = 0;
+        inProgressCount = 0;
+        doneCount = 0;
+        startTimes.clear();
+        endTimes.clear();
+        durationSum = Duration.ZERO;
+    }
+
+    /**
+     * Вычисляет статус эпика по счётчикам статусов его подзадач.
+     * Подзадачи без статуса учитываются как незавершённые
+     */
+    public TaskStatus getStatus() {
+        if (subtasksCount == 0 || subtasksCount == newCount) {
+            return TaskStatus.NEW;
+        } else if (subtasksCount == doneCount) {
+            return TaskStatus.DONE;
+        } else {
+            return TaskStatus.IN_PROGRESS;
+        }
+    }
+
+    public int getNewCount() {
+        return newCount;
+    }
+
+    public int getInProgressCount() {
+        return inProgressCount;
+    }
+
+    public int getDoneCount() {
+        return doneCount;
+    }
+
+    /**
+     * Возвращает время начала эпика: самое раннее время начала его подзадач
+     */
+    public LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    /**
+     * Возвращает время окончания эпика: самое позднее время окончания его подзадач
+     */
+    public LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    /**
+     * Возвращает продолжительность эпика: сумму продолжительностей его подзадач.
+     * Если у эпика нет времени начала или окончания, продолжительность не определена
+     */
+    public Duration getDuration() {
+        if (startTimes.isEmpty() || endTimes.isEmpty()) {
+            return null;
+        }
+        return durationSum;
+    }
+
+    private void countDates(Subtask subtask, int delta) {
+        countTime(startTimes, subtask.getStartTime(), delta);
+        countTime(endTimes, subtask.getEndTime(), delta);
+        if (subtask.getDuration() != null) {
+            durationSum = durationSum.plus(subtask.getDuration().multipliedBy(delta));
+        }
+    }
+
+    private void countTime(TreeMap<LocalDateTime, Integer> times, LocalDateTime time, int delta) {
+        if (time == null) {
+            return;
+        }
+        times.merge(time, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+
+    private void countStatus(TaskStatus status, int delta) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case NEW -> newCount += delta;
+            case IN_PROGRESS -> inProgressCount += delta;
+            case DONE -> doneCount += delta;
+        }
+    }
+}
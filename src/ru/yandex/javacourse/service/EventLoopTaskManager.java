@@ -0,0 +1,309 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Менеджер задач с одним потоком-писателем.
+ * Все изменения, а также получение по ID, которое пишет в историю, ставятся в ограниченную очередь
+ * и выполняются потоком-писателем пакетами. Если очередь заполнена, вызывающий поток ждёт.
+ * Пакет применяется к {@link MvccTaskManager} как одна версия: снимок для читателей публикуется
+ * один раз в конце пакета, а эпик, изменённый несколькими операциями пакета, копируется один раз.
+ * Вызов возвращается только после публикации снимка, поэтому поток видит свои изменения.
+ * Чтение списков идёт из опубликованного снимка без блокировок
+ */
+public class EventLoopTaskManager implements TaskManager, AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long OFFER_RETRY_MILLIS = 10;
+
+    private final MvccTaskManager store = new MvccTaskManager();
+    private final BlockingQueue<Mutation<?>> mutations;
+    private final Thread writer;
+    private volatile boolean isRunning = true;
+
+    private record Mutation<T>(Supplier<T> action, CompletableFuture<T> result) {
+    }
+
+    public EventLoopTaskManager() {
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public EventLoopTaskManager(int queueCapacity) {
+        mutations = new ArrayBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::runWriter, "task-manager-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Возвращает последний опубликованный снимок всех задач
+     */
+    public TaskBoardSnapshot getSnapshot() {
+        return store.getSnapshot();
+    }
+
+    /**
+     * Останавливает поток-писатель после выполнения уже поставленных в очередь изменений
+     */
+    @Override
+    public void close() {
+        isRunning = false;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return store.getAllTasks();
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        submit(store::deleteAllTasks);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return submit(() -> store.getTaskById(id));
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        return submit(() -> store.addTask(task));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        submit(() -> store.updateTask(task));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        submit(() -> store.deleteTaskById(id));
+    }
+
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        return store.getAllEpics();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        submit(store::deleteAllEpics);
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return submit(() -> store.getEpicById(id));
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return submit(() -> store.addEpic(epic));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        submit(() -> store.updateEpic(epic));
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        submit(() -> store.deleteEpicById(id));
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return store.getAllSubtasks();
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        submit(store::deleteAllSubtasks);
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return submit(() -> store.getSubtaskById(id));
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        return submit(() -> store.addSubtask(subtask));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        submit(() -> store.updateSubtask(subtask));
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        submit(() -> store.deleteSubtaskById(id));
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasksByEpicId(int epicId) {
+        return store.getAllSubtasksByEpicId(epicId);
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        submit(() -> store.updateEpicStatus(epic));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return store.getHistory();
+    }
+
+    @Override
+    public void updateEpicDates(Epic epic) {
+        submit(() -> store.updateEpicDates(epic));
+    }
+
+    @Override
+    public TreeSet<Task> getPrioritizedTasks() {
+        return store.getPrioritizedTasks();
+    }
+
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        return store.getPrioritizedTasksView();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(int offset, int limit) {
+        return store.getPrioritizedTasks(offset, limit);
+    }
+
+    @Override
+    public boolean ifTasksCrossInTime(Task firstTask, Task secondTask) {
+        return store.ifTasksCrossInTime(firstTask, secondTask);
+    }
+
+    @Override
+    public boolean hasCrossInTimeWithManagerTasks(Task task) {
+        return submit(() -> store.hasCrossInTimeWithManagerTasks(task));
+    }
+
+    private void submit(Runnable action) {
+        submit(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Ставит изменение в очередь и ждёт его результата.
+     * Вызов из самого потока-писателя выполняется сразу, иначе он ждал бы сам себя.
+     * Исключение изменения пробрасывается вызывающему потоку без обёртки.
+     * Если менеджер остановили, пока вызов ждал места в очереди или ставил изменение,
+     * вызов сам забирает изменение из очереди и завершается ошибкой. Если изменение уже забрал писатель,
+     * он выполнит его или завершит ошибкой, поэтому ожидание результата не зависает
+     */
+    private <T> T submit(Supplier<T> action) {
+        if (Thread.currentThread() == writer) {
+            return action.get();
+        }
+        if (!isRunning) {
+            throw new IllegalStateException("Менеджер задач остановлен");
+        }
+
+        Mutation<T> mutation = new Mutation<>(action, new CompletableFuture<>());
+        try {
+            while (!mutations.offer(mutation, OFFER_RETRY_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!isRunning) {
+                    throw new IllegalStateException("Менеджер задач остановлен");
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание очереди изменений прервано", exception);
+        }
+        if (!isRunning && mutations.remove(mutation)) {
+            throw new IllegalStateException("Менеджер задач остановлен");
+        }
+
+        try {
+            return mutation.result().join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Цикл потока-писателя: забирает из очереди всё, что накопилось, но не больше MAX_BATCH_SIZE,
+     * применяет пакет как одну версию и только после публикации завершает ожидающие вызовы
+     */
+    private void runWriter() {
+        List<Mutation<?>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (isRunning || !mutations.isEmpty()) {
+            try {
+                if (mutations.isEmpty()) {
+                    batch.add(mutations.take());
+                }
+            } catch (InterruptedException exception) {
+                continue;
+            }
+            mutations.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+
+            Object[] results = new Object[batch.size()];
+            Throwable[] failures = new Throwable[batch.size()];
+            store.runBatch(() -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    try {
+                        results[i] = batch.get(i).action().get();
+                    } catch (RuntimeException | Error exception) {
+                        failures[i] = exception;
+                    }
+                }
+            });
+
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), results[i], failures[i]);
+            }
+            batch.clear();
+        }
+        failRemaining();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void complete(Mutation<T> mutation, Object result, Throwable failure) {
+        if (failure != null) {
+            mutation.result().completeExceptionally(failure);
+        } else {
+            mutation.result().complete((T) result);
+        }
+    }
+
+    /**
+     * Завершает с ошибкой изменения, которые успели попасть в очередь после остановки
+     */
+    private void failRemaining() {
+        List<Mutation<?>> remaining = new ArrayList<>();
+        mutations.drainTo(remaining);
+        remaining.forEach(mutation -> mutation.result()
+                .completeExceptionally(new IllegalStateException("Менеджер задач остановлен")));
+    }
+}
@@ -4,15 +4,30 @@ import ru.yandex.javacourse.exceptions.ManagerSaveException;
 import ru.yandex.javacourse.model.*;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Optional;
-import java.util.TreeSet;
-
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Менеджер задач, который сохраняет изменения на диск.
+ * Способ хранения задаёт {@link StorageBackend}: снимок файла в формате CSV или BINARY, сегменты,
+ * отображённые в память слоты или журнал изменений поверх снимков. Менеджер применяет изменение в памяти
+ * и передаёт его хранилищу
+ */
 public class FileBackedTaskManager extends InMemoryTaskManager {
+    public static final String JOURNAL_SUFFIX = ".journal";
+    public static final String COMPACTING_SUFFIX = ".compacting";
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    public static final String SEGMENT_SUFFIX = ".seg.";
+    public static final int SEGMENT_SIZE = 4096;
+
     private final File file;
+    private final StorageBackend.Board board = new ManagerBoard();
+    private StorageBackend backend;
+    private TaskTextStore textStore;
+    private long[] textOffsets = new long[0];
 
     public static void main(String[] args) throws IOException {
         File file = new File("src/tasks.csv");
@@ -31,6 +46,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         Subtask subtask = fileBackedTaskManager.addSubtask(new Subtask("Подзадача",
                 "Описание подзадачи", TaskStatus.NEW, epic.getId(), duration30, nextHour));
 
+        fileBackedTaskManager.save();
         FileBackedTaskManager newFileBackedTaskManager = loadFromFile(file);
         Task newTask = newFileBackedTaskManager.addTask(new Task("Новая задача",
                 "Описание новой задачи", TaskStatus.IN_PROGRESS, duration30, nextDay));
@@ -46,257 +62,527 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     public FileBackedTaskManager(File file) {
+        this(file, false);
+    }
+
+    /**
+     * Создаёт менеджер, который сохраняет изменения в файл.
+     * В режиме журнала каждое изменение дописывается в файл журнала одной записью,
+     * а полное сохранение выполняется только при сжатии журнала
+     *
+     * @param file файл с полным состоянием менеджера
+     * @param isJournaled true, если изменения нужно дописывать в журнал
+     */
+    public FileBackedTaskManager(File file, boolean isJournaled) {
         this.file = file;
+        SnapshotBackend snapshot = new FileSnapshotBackend(file, SnapshotFormat.CSV, board, this);
+        this.backend = isJournaled ? new JournalBackend(snapshot, this, 0) : snapshot;
     }
 
     /**
-     * Сохраняет состояния менеджера в файл.
-     * Каждая задача становится отдельной строчкой
+     * Создаёт менеджер, который сохраняет состояние в файл в заданном формате.
+     * В формате MAPPED файл сразу размечается заново как пустое хранилище слотов
      */
-    public void save() throws ManagerSaveException {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
-            bw.write("id,type,name,status,description,epic,startTime,duration(min)");
-            bw.newLine();
-
-            ArrayList<Task> tasks = getAllTasks();
-            for (Task task : tasks) {
-                String taskString = toString(task);
-                bw.write(taskString);
-                bw.newLine();
-            }
+    public FileBackedTaskManager(File file, SnapshotFormat snapshotFormat) {
+        this.file = file;
+        this.backend = createBackend(file, snapshotFormat);
+    }
 
-            ArrayList<Epic> epics = getAllEpics();
-            for (Epic epic : epics) {
-                String epicString = toString(epic);
-                bw.write(epicString);
-                bw.newLine();
-            }
+    /**
+     * Создаёт пустое хранилище заданного формата для файла, отбрасывая прежнее содержимое
+     */
+    private StorageBackend createBackend(File target, SnapshotFormat format) {
+        return switch (format) {
+            case CSV, BINARY -> new FileSnapshotBackend(target, format, board, this);
+            case SEGMENTED -> SegmentedSnapshotBackend.create(target, board, this);
+            case MAPPED -> openRecordStore(target, true);
+        };
+    }
 
-            ArrayList<Subtask> subtasks = getAllSubtasks();
-            for (Subtask subtask : subtasks) {
-                String subtaskString = toString(subtask);
-                bw.write(subtaskString);
-                bw.newLine();
-            }
+    public SnapshotFormat getSnapshotFormat() {
+        return backend.getFormat();
+    }
+
+    /**
+     * Включает режим ленивого текста: имена и описания задач переносятся в файл текста рядом с файлом состояния,
+     * а в памяти остаются ID, статусы, связи с эпиками, даты и смещение текста в файле.
+     * Текст читается при выдаче задачи позиционным чтением, последние прочитанные записи хранятся в кэше.
+     * Файл состояния и журнал по-прежнему содержат полный текст.
+     * Перед переносом дожидается записи текущего состояния, чтобы уже поставленные записи не потеряли текст
+     *
+     * @param cacheCapacity максимальное количество записей текста в кэше
+     */
+    public synchronized void enableLazyText(int cacheCapacity) {
+        if (textStore != null) {
+            throw new IllegalStateException("Режим ленивого текста уже включён");
+        }
+        try {
+            textStore = TaskTextStore.open(new File(file.getPath() + TaskTextStore.TEXT_SUFFIX), cacheCapacity);
         } catch (IOException exception) {
-            throw new ManagerSaveException("Ошибка во время работы метода автосохранения");
+            throw new ManagerSaveException("Ошибка при открытии файла текста");
+        }
+        TaskTextStore openedTextStore = textStore;
+        textStore = null;
+        StorageBackend.await(backend.saveInBackground());
+        textStore = openedTextStore;
+        tasks.values().forEach(this::offloadText);
+        epics.values().forEach(this::offloadText);
+        subtasks.values().forEach(this::offloadText);
+    }
+
+    /**
+     * Переносит имя и описание хранимой задачи в файл текста и запоминает смещение записи
+     */
+    private void offloadText(Task task) {
+        int id = task.getId();
+        if (id >= textOffsets.length) {
+            textOffsets = Arrays.copyOf(textOffsets, Math.max(id + 1, textOffsets.length * 2));
+        }
+        textOffsets[id] = textStore.append(task.getName(), task.getDescription());
+        task.setName(null);
+        task.setDescription(null);
+    }
+
+    /**
+     * Возвращает копию задачи с текстом из файла текста. Без режима ленивого текста возвращает задачу как есть
+     */
+    private <T extends Task> T withText(T task) {
+        if (textStore == null || task == null) {
+            return task;
         }
+        @SuppressWarnings("unchecked")
+        T copy = (T) task.getCopy();
+        return fillText(copy);
+    }
 
+    private <T extends Task> T fillText(T task) {
+        if (textStore == null || task == null) {
+            return task;
+        }
+        TaskTextStore.TaskText text = textStore.read(textOffsets[task.getId()]);
+        task.setName(text.name());
+        task.setDescription(text.description());
+        return task;
+    }
+
+    private <T extends Task> ArrayList<T> withTexts(Collection<T> tasks) {
+        if (textStore == null) {
+            return new ArrayList<>(tasks);
+        }
+        ArrayList<T> tasksWithText = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            tasksWithText.add(withText(task));
+        }
+        return tasksWithText;
+    }
+
+    /**
+     * Задаёт количество записей в журнале, после которого журнал сжимается в файл состояния
+     */
+    public synchronized void setCompactionThreshold(int compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Порог сжатия журнала должен быть положительным");
+        }
+        backend.setCompactionThreshold(compactionThreshold);
+    }
+
+    /**
+     * Сохраняет состояния менеджера в файл и ждёт окончания записи.
+     * Каждая задача становится отдельной строчкой.
+     * Состояние пишется во временный файл, который затем заменяет основной,
+     * поэтому сбой во время сохранения не портит предыдущее состояние.
+     * Под монитором менеджера фиксируется только вид задач, а записи ждёт только поток вызова.
+     * Изменения без журнала и без фонового сохранения ставят запись в очередь и не ждут её,
+     * поэтому перед чтением файла другим менеджером или завершением программы нужно вызвать этот метод
+     */
+    public void save() throws ManagerSaveException {
+        CompletableFuture<Void> write;
+        synchronized (this) {
+            write = backend.saveInBackground();
+        }
+        StorageBackend.await(write);
+    }
+
+    /**
+     * Сохраняет состояние менеджера в файл в фоновом потоке и сразу возвращает управление.
+     * Под монитором менеджера фиксируется только неизменяемый вид задач, а кодирование и запись
+     * выполняются без монитора, поэтому изменения задач не ждут окончания сохранения.
+     * Записи выполняются по одной в порядке вызовов
+     *
+     * @return future, который завершается после записи файла или с ManagerSaveException
+     */
+    public synchronized CompletableFuture<Void> saveInBackground() {
+        return backend.saveInBackground();
+    }
+
+    /**
+     * Сжимает журнал: сохраняет текущее состояние в файл целиком и удаляет журнал.
+     * Если идёт фоновое сжатие, сначала дожидается его. Без журнала только сохраняет состояние
+     */
+    public synchronized void compact() throws ManagerSaveException {
+        backend.compact();
+    }
+
+    /**
+     * Ждёт окончания фонового сжатия журнала, если оно идёт, и пробрасывает его ошибку
+     */
+    public void awaitCompaction() throws ManagerSaveException {
+        backend.awaitCompaction();
     }
 
     /**
      * Вызывает родительский метод удаления всех задач
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      */
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        backend.clear(TaskType.TASK);
     }
 
     /**
      * Вызывает родительский метод добавления задачи
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      *
      * @param task объект задачи, которую нужно добавить (может быть null)
      * @return копия созданной задачи с присвоенным ID или null, если передан null
      */
     @Override
-    public Task addTask(Task task) {
+    public synchronized Task addTask(Task task) {
         Task addedTask = super.addTask(task);
-        save();
+        persistPut(tasks.get(addedTask.getId()));
         return addedTask;
     }
 
     /**
      * Вызывает родительский метод обновления задачи
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      *
      * @param task объект задачи, которую нужно обновить (может быть null)
      */
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        persistPut(tasks.get(task.getId()));
     }
 
     /**
      * Вызывает родительский метод удаления задачи по id
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      */
     @Override
-    public void deleteTaskById(int id) {
+    public synchronized void deleteTaskById(int id) {
         super.deleteTaskById(id);
-        save();
+        backend.delete(id);
     }
 
     /**
      * Вызывает родительский метод удаления всех эпиков вместе с подзадачами
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      */
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        backend.clear(TaskType.EPIC);
     }
 
     /**
      * Вызывает родительский метод добавления эпика
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      *
      * @param epic объект эпика, который нужно добавить (может быть null)
      * @return копия созданного эпика с присвоенным ID или null, если передан null
      */
     @Override
-    public Epic addEpic(Epic epic) {
+    public synchronized Epic addEpic(Epic epic) {
         Epic addedEpic = super.addEpic(epic);
-        save();
+        persistPut(epics.get(addedEpic.getId()));
         return addedEpic;
     }
 
     /**
      * Вызывает родительский метод обновления эпика
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      *
      * @param epic объект эпика, который нужно обновить (может быть null)
      */
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        persistPut(epics.get(epic.getId()));
     }
 
     /**
      * Вызывает родительский метод удаления эпика по id
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      */
     @Override
-    public void deleteEpicById(int id) {
+    public synchronized void deleteEpicById(int id) {
+        Epic epic = epics.get(id);
+        List<Integer> subtaskIds = epic == null ? List.of() : new ArrayList<>(epic.getSubtasksIdList());
         super.deleteEpicById(id);
-        save();
+        backend.deleteEpic(id, subtaskIds);
     }
 
     /**
      * Вызывает родительский метод удаления всех подзадач
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      */
     @Override
-    public void deleteAllSubtasks() {
+    public synchronized void deleteAllSubtasks() {
         super.deleteAllSubtasks();
-        save();
+        backend.clear(TaskType.SUBTASK);
     }
 
     /**
      * Вызывает родительский метод добавления подзадачи
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      *
      * @param subtask объект подзадачи, которую нужно добавить (может быть null)
      * @return копия созданной подзадачи с присвоенным ID или null, если передан null
      */
     @Override
-    public Subtask addSubtask(Subtask subtask) {
+    public synchronized Subtask addSubtask(Subtask subtask) {
         Subtask addedSubtask = super.addSubtask(subtask);
-        save();
+        persistPut(subtasks.get(addedSubtask.getId()));
         return addedSubtask;
     }
 
     /**
      * Вызывает родительский метод обновления подзадачи
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      *
      * @param subtask объект подзадачи, которую нужно обновить (может быть null)
      */
     @Override
-    public void updateSubtask(Subtask subtask) {
+    public synchronized void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        persistPut(subtasks.get(subtask.getId()));
     }
 
     /**
      * Вызывает родительский метод удаления подзадачи по id
-     * Сохраняет состояние в файл
+     * Передаёт изменение хранилищу
      */
     @Override
-    public void deleteSubtaskById(int id) {
+    public synchronized void deleteSubtaskById(int id) {
         super.deleteSubtaskById(id);
-        save();
+        backend.delete(id);
     }
 
     /**
-     * Преобразует входную задачу в строку в зависимости от типа задачи
-     * Сохраняет состояние в файл
+     * Возвращает все задачи. В режиме ленивого текста возвращает копии с текстом из файла текста
      */
-    public String toString(Task task) {
-        if (task == null) {
-            return "";
-        }
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return withTexts(super.getAllTasks());
+    }
 
-        TaskType taskType;
-        String epicId = "без эпика";
-        if (task instanceof Subtask subtask) {
-            taskType = TaskType.SUBTASK;
-            epicId = Integer.toString(subtask.getEpicId());
-        } else if (task instanceof Epic) {
-            taskType = TaskType.EPIC;
-        } else {
-            taskType = TaskType.TASK;
+    @Override
+    public Task getTaskById(int id) {
+        return fillText(super.getTaskById(id));
+    }
+
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        return withTexts(super.getAllEpics());
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return fillText(super.getEpicById(id));
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return withTexts(super.getAllSubtasks());
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return fillText(super.getSubtaskById(id));
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasksByEpicId(int epicId) {
+        return withTexts(super.getAllSubtasksByEpicId(epicId));
+    }
+
+    /**
+     * Возвращает историю просмотров. В режиме ленивого текста текст задач читается по текущему смещению
+     */
+    @Override
+    public List<Task> getHistory() {
+        return withTexts(super.getHistory());
+    }
+
+    @Override
+    public TreeSet<Task> getPrioritizedTasks() {
+        TreeSet<Task> prioritizedTasks = super.getPrioritizedTasks();
+        if (textStore == null) {
+            return prioritizedTasks;
         }
+        TreeSet<Task> tasksWithText = new TreeSet<>(prioritizedTasks.comparator());
+        tasksWithText.addAll(withTexts(prioritizedTasks));
+        return tasksWithText;
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-        String taskStartTimeString = "";
-        Optional<LocalDateTime> taskStartTime = Optional.ofNullable(task.getStartTime());
-        if (taskStartTime.isPresent()) {
-            taskStartTimeString = taskStartTime.get().format(formatter);
+    /**
+     * Возвращает представление задач в порядке приоритета.
+     * В режиме ленивого текста возвращает копию с текстом, которая не отражает последующие изменения
+     */
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        if (textStore == null) {
+            return super.getPrioritizedTasksView();
         }
+        return Collections.unmodifiableNavigableSet(getPrioritizedTasks());
+    }
 
-        String taskDurationString = "";
-        Optional<Duration> taskDuration = Optional.ofNullable(task.getDuration());
-        if (taskDuration.isPresent()) {
-            taskDurationString = String.valueOf(taskDuration.get().toMinutes());
+    @Override
+    public List<Task> getPrioritizedTasks(int offset, int limit) {
+        return withTexts(super.getPrioritizedTasks(offset, limit));
+    }
+
+    /**
+     * Включает фоновое сохранение.
+     * Изменения, пришедшие в течение окна после первого несохранённого изменения, записываются одним пакетом
+     * в фоновом потоке: в режиме журнала одной дозаписью, иначе одной перезаписью файла.
+     * Ошибка фоновой записи сохраняется, и все следующие изменения бросают ManagerSaveException
+     *
+     * @param flushWindow окно, в течение которого изменения собираются в один пакет
+     * @param durability уровень надёжности записи
+     */
+    public synchronized void startBackgroundFlush(Duration flushWindow, Durability durability) {
+        backend.startBackgroundFlush(flushWindow, durability);
+    }
+
+    /**
+     * Записывает все накопленные изменения, останавливает фоновый поток
+     * и возвращает менеджер к сохранению в потоке вызова
+     */
+    public void stopBackgroundFlush() {
+        backend.stopBackgroundFlush();
+    }
+
+    /**
+     * Возвращает задержку сохранения: сколько ждёт самое старое ещё не записанное изменение.
+     * Если все изменения записаны, возвращает ноль
+     */
+    public Duration getFlushLag() {
+        return backend.getFlushLag();
+    }
+
+    /**
+     * Возвращает задержку последнего записанного пакета: от первого изменения пакета до конца его записи
+     */
+    public Duration getLastFlushLag() {
+        return backend.getLastFlushLag();
+    }
+
+    /**
+     * Передаёт хранилищу добавленную или изменённую задачу.
+     * В режиме ленивого текста сначала переносит текст хранимой задачи в файл текста,
+     * а хранилищу передаёт копию с текстом
+     */
+    private void persistPut(Task storedTask) {
+        Task task = storedTask;
+        if (textStore != null) {
+            task = storedTask.getCopy();
+            offloadText(storedTask);
         }
+        backend.put(task);
+    }
+
+    /**
+     * Применяет к менеджеру журналы, оставшиеся рядом с файлом
+     *
+     * @return количество применённых записей
+     */
+    private int replayJournal() throws IOException {
+        return JournalBackend.replay(file, new JournalBackend.Replay() {
+            @Override
+            public void put(Task task) {
+                replayPut(task);
+            }
+
+            @Override
+            public void delete(int id) {
+                replayDelete(id);
+            }
 
-        return String.format("%s,%s,%s,%s,%s,%s,%s,%s",
-                task.getId(), taskType, task.getName(), task.getStatus(), task.getDescription(), epicId,
-                taskStartTimeString, taskDurationString);
+            @Override
+            public void clear(TaskType taskType) {
+                switch (taskType) {
+                    case TASK -> FileBackedTaskManager.super.deleteAllTasks();
+                    case EPIC -> FileBackedTaskManager.super.deleteAllEpics();
+                    case SUBTASK -> FileBackedTaskManager.super.deleteAllSubtasks();
+                }
+            }
+        });
     }
 
     /**
-     * Преобразует строку в конкретный тип задачи в зависимости от типа
+     * Добавляет или заменяет задачу из записи журнала.
+     * Эпик обновляется с сохранением списка подзадач, подзадача привязывается к своему эпику
      */
-    public Task fromString(String value) {
-        String[] splitValues = value.split(",");
-        int taskId = Integer.parseInt(splitValues[0]);
-        TaskType taskType = TaskType.valueOf(splitValues[1]);
-        String taskName = splitValues[2];
-        TaskStatus taskStatus = TaskStatus.valueOf(splitValues[3]);
-        String taskDescription = splitValues[4];
-        LocalDateTime taskStartTime = null;
-        Duration taskDuration = null;
-
-        if (splitValues.length > 6 && !splitValues[6].isEmpty()) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-            taskStartTime = LocalDateTime.parse(splitValues[6], formatter);
+    private void replayPut(Task task) {
+        idCount = Integer.max(idCount, task.getId());
+        if (task instanceof Epic epic) {
+            if (epics.containsKey(epic.getId())) {
+                super.updateEpic(epic);
+            } else {
+                restore(epic);
+                updateEpicStatus(epic);
+                updateEpicDates(epic);
+            }
+            return;
         }
-        if (splitValues.length > 7 && !splitValues[7].isEmpty()) {
-            taskDuration = Duration.ofMinutes(Long.parseLong(splitValues[7]));
+
+        discard(task.getId());
+        if (task instanceof Subtask subtask) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new IllegalStateException("Эпик подзадачи " + subtask.getId() + " не найден");
+            }
+            restore(subtask);
+            epic.addSubtaskId(subtask.getId());
+            updateEpicStatus(epic);
+            updateEpicDates(epic);
+        } else {
+            restore(task);
         }
+    }
 
-        if (taskType.equals(TaskType.SUBTASK)) {
-            int epicId = Integer.parseInt(splitValues[5]);
-            Subtask subTask = new Subtask(taskName, taskDescription, taskStatus, epicId, taskDuration, taskStartTime);
-            subTask.setId(taskId);
-            return subTask;
-        } else if (taskType.equals(TaskType.EPIC)) {
-            Epic epic = new Epic(taskName, taskDescription);
-            epic.setId(taskId);
-            return epic;
+    private void replayDelete(int id) {
+        if (epics.containsKey(id)) {
+            super.deleteEpicById(id);
         } else {
-            Task task = new Task(taskName, taskDescription, taskStatus, taskDuration, taskStartTime);
-            task.setId(taskId);
-            return task;
+            discard(id);
         }
     }
 
+    /**
+     * Преобразует входную задачу в строку в зависимости от типа задачи
+     * Сохраняет состояние в файл
+     */
+    public String toString(Task task) {
+        if (task == null) {
+            return "";
+        }
+
+        StringBuilder line = new StringBuilder();
+        CsvTaskCodec.encode(task, line);
+        return line.toString();
+    }
+
+    /**
+     * Преобразует строку в конкретный тип задачи в зависимости от типа
+     */
+    public Task fromString(String value) {
+        return new CsvTaskCodec().decode(value);
+    }
+
     /**
      * Заполняет менеджер задач информацией из файла
      *
@@ -304,42 +590,184 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
      * @return созданный новый менеджер, который заполнен
      */
     public static FileBackedTaskManager loadFromFile(File file) throws IOException {
-        FileBackedTaskManager fileBackedTaskManager = Managers.getDefaultFileBacked(file);
-        int lastId = 0;
+        return loadFromFile(file, JournalBackend.exists(file));
+    }
+
+    /**
+     * Заполняет менеджер задач информацией из файла и применяет к ней журнал изменений, если он есть.
+     * Если журнал есть, а менеджер создаётся без режима журнала, журнал сразу сжимается в файл
+     *
+     * @param file файл, из которого надо получить все задачи, подзадачи и эпики
+     * @param isJournaled true, если менеджер должен дописывать изменения в журнал
+     * @return созданный новый менеджер, который заполнен
+     */
+    public static FileBackedTaskManager loadFromFile(File file, boolean isJournaled) throws IOException {
+        return loadFromFile(file, isJournaled, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Заполняет менеджер задач информацией из файла и применяет к ней журнал изменений, если он есть.
+     * Формат определяется по началу файла, и менеджер получает хранилище этого формата.
+     * Файл в формате CSV делится на куски по границам строк, которые разбираются параллельно на заданном пуле
+     *
+     * @param file файл, из которого надо получить все задачи, подзадачи и эпики
+     * @param isJournaled true, если менеджер должен дописывать изменения в журнал
+     * @param pool пул, на котором разбираются куски файла
+     * @return созданный новый менеджер, который заполнен
+     */
+    public static FileBackedTaskManager loadFromFile(File file, boolean isJournaled, ForkJoinPool pool)
+            throws IOException {
+        FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(file);
         if (!file.exists() || !file.isFile()) {
             throw new IOException("Указанный файл не существует");
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.readLine();
-            while (br.ready()) {
-                String fileString = br.readLine();
-                if (!fileString.isBlank()) {
-                    Task task = fileBackedTaskManager.fromString(fileString);
-                    lastId = Integer.max(lastId, task.getId());
-                    if (task instanceof Subtask subtask) {
-                        fileBackedTaskManager.subtasks.put(subtask.getId(), subtask);
-                    } else if (task instanceof Epic epic) {
-                        fileBackedTaskManager.epics.put(epic.getId(), epic);
-                    } else {
-                        fileBackedTaskManager.tasks.put(task.getId(), task);
-                    }
+        List<Task> records;
+        byte[] signature = readSignature(file);
+        if (SegmentedSnapshotBackend.isSegmented(signature)) {
+            Map<Integer, Long> generations = SegmentedSnapshotBackend.readManifest(file);
+            records = SegmentedSnapshotBackend.readSegments(file, generations, pool);
+            fileBackedTaskManager.backend = SegmentedSnapshotBackend.open(file, generations,
+                    fileBackedTaskManager.board, fileBackedTaskManager);
+        } else if (MappedRecordStore.isMapped(signature)) {
+            MappedRecordStore recordStore = MappedRecordStore.open(file, false);
+            records = recordStore.readAll();
+            fileBackedTaskManager.backend = recordStore;
+        } else if (BinarySnapshotCodec.isBinary(signature)) {
+            records = BinarySnapshotCodec.decode(Files.readAllBytes(file.toPath()));
+            fileBackedTaskManager.backend = new FileSnapshotBackend(file, SnapshotFormat.BINARY,
+                    fileBackedTaskManager.board, fileBackedTaskManager);
+        } else {
+            records = CsvSnapshotReader.read(file.toPath(), pool);
+        }
+        fileBackedTaskManager.restoreSnapshot(records);
+        fileBackedTaskManager.idCount = records.stream().mapToInt(Task::getId).max().orElse(0);
+        int replayedRecordsCount = fileBackedTaskManager.replayJournal();
+        if (isJournaled && fileBackedTaskManager.backend instanceof SnapshotBackend snapshot) {
+            fileBackedTaskManager.backend = new JournalBackend(snapshot, fileBackedTaskManager, replayedRecordsCount);
+        } else if (JournalBackend.exists(file)) {
+            fileBackedTaskManager.compact();
+            JournalBackend.deleteJournals(file);
+        }
+        return fileBackedTaskManager;
+    }
+
+    /**
+     * Переписывает файл состояния в заданном формате.
+     * Журнал исходного файла, если он есть, применяется к результату и не удаляется.
+     * Перенос хранилища слотов в новый файл того же формата освобождает место старых строк в куче
+     *
+     * @param source исходный файл в любом формате
+     * @param target файл, в который нужно записать состояние
+     * @param targetFormat формат результата
+     */
+    public static void convert(File source, File target, SnapshotFormat targetFormat) throws IOException {
+        FileBackedTaskManager fileBackedTaskManager = loadFromFile(source, true);
+        try {
+            StorageBackend targetBackend = fileBackedTaskManager.createBackend(target, targetFormat);
+            try {
+                if (targetBackend instanceof SnapshotBackend snapshot) {
+                    snapshot.markAllChanged();
+                    StorageBackend.await(snapshot.submitSnapshot(true));
+                    return;
                 }
+                fileBackedTaskManager.tasks.values().forEach(targetBackend::put);
+                fileBackedTaskManager.epics.values().forEach(targetBackend::put);
+                fileBackedTaskManager.subtasks.values().forEach(targetBackend::put);
+                targetBackend.compact();
+            } finally {
+                targetBackend.close();
             }
+        } finally {
+            fileBackedTaskManager.backend.close();
+        }
+    }
+
+    /**
+     * Заполняет пустой менеджер записями файла состояния без сохранения и проверок пересечений.
+     * Подзадачи привязываются к эпикам в порядке записей, затем статус и даты каждого эпика
+     * берутся из его индекса за один проход
+     *
+     * @throws IOException если эпик подзадачи отсутствует в файле
+     */
+    private void restoreSnapshot(List<Task> records) throws IOException {
+        for (Task task : records) {
+            restore(task);
+        }
+
+        for (Task task : records) {
+            if (task instanceof Subtask subtask) {
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    throw new IOException("Эпик подзадачи " + subtask.getId() + " не найден в файле");
+                }
+                epic.addSubtaskId(subtask.getId());
+            }
+        }
+
+        for (Epic epic : epics.values()) {
+            updateEpicStatus(epic);
+            updateEpicDates(epic);
+        }
+    }
+
+    private static MappedRecordStore openRecordStore(File file, boolean isReset) {
+        try {
+            return MappedRecordStore.open(file, isReset);
         } catch (IOException exception) {
-            System.out.println("Возникла проблема при восстановлении менеджера из файла");
+            throw new ManagerSaveException("Ошибка при открытии хранилища слотов");
         }
+    }
 
-        for (Subtask subtask : fileBackedTaskManager.getAllSubtasks()) {
-            Epic epic = fileBackedTaskManager.epics.get(subtask.getEpicId());
-            epic.addSubtaskId(subtask.getId());
+    private static byte[] readSignature(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return in.readNBytes(4);
+        }
+    }
+
+    /**
+     * Доступ хранилища к задачам менеджера. Задачи и подзадачи при изменении заменяются новыми объектами,
+     * поэтому берутся по ссылке, а эпики меняются на месте и копируются
+     */
+    private final class ManagerBoard implements StorageBackend.Board {
+
+        @Override
+        public FrozenBoard freeze() {
+            List<Epic> frozenEpics = new ArrayList<>(epics.size());
+            for (Epic epic : epics.values()) {
+                frozenEpics.add(epic.getCopy());
+            }
+            return new FrozenBoard(new ArrayList<>(tasks.values()), frozenEpics, new ArrayList<>(subtasks.values()),
+                    freezeText());
+        }
+
+        @Override
+        public List<Task> freezeRange(int firstId, int endId) {
+            List<Task> rangeTasks = new ArrayList<>();
+            for (int id = firstId; id < endId; id++) {
+                Task task = tasks.get(id);
+                if (task == null && epics.containsKey(id)) {
+                    task = epics.get(id).getCopy();
+                }
+                if (task == null) {
+                    task = subtasks.get(id);
+                }
+                if (task != null) {
+                    rangeTasks.add(task);
+                }
+            }
+            return rangeTasks;
         }
 
-        for (Epic epic : fileBackedTaskManager.getAllEpics()) {
-            fileBackedTaskManager.updateEpic(epic);
+        @Override
+        public FrozenBoard.Text freezeText() {
+            return textStore == null ? new FrozenBoard.Text(null, null)
+                    : new FrozenBoard.Text(textStore, textOffsets.clone());
         }
 
-        fileBackedTaskManager.idCount = lastId;
-        return fileBackedTaskManager;
+        @Override
+        public int getMaxId() {
+            return idCount;
+        }
     }
 }
@@ -0,0 +1,34 @@
+package ru.yandex.javacourse.service;
+
+import java.io.File;
+
+/**
+ * Хранилище, которое переписывает файл состояния целиком в формате CSV или BINARY
+ */
+final class FileSnapshotBackend extends SnapshotBackend {
+    private final SnapshotFormat format;
+
+    FileSnapshotBackend(File file, SnapshotFormat format, Board board, Object monitor) {
+        super(file, board, monitor);
+        this.format = format;
+    }
+
+    @Override
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    SnapshotWrite prepareSnapshot() {
+        FrozenBoard frozenBoard = board.freeze();
+        return isSynced -> writeSnapshot(file, frozenBoard.encode(format), isSynced);
+    }
+
+    @Override
+    void markChanged(int id) {
+    }
+
+    @Override
+    void markAllChanged() {
+    }
+}
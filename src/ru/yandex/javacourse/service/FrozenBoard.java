@@ -0,0 +1,78 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Неизменяемый вид всех задач менеджера на момент сохранения.
+ * Фиксируется под монитором менеджера, а кодируется позже вне его
+ */
+record FrozenBoard(List<Task> tasks, List<Epic> epics, List<Subtask> subtasks, Text text) {
+
+    /**
+     * Возвращает состояние в заданном формате файла
+     */
+    byte[] encode(SnapshotFormat format) {
+        if (format == SnapshotFormat.BINARY) {
+            return BinarySnapshotCodec.encode(text.resolveAll(tasks), text.resolveAll(epics),
+                    text.resolveAll(subtasks));
+        }
+
+        StringBuilder csv = new StringBuilder();
+        csv.append(CsvTaskCodec.HEADER).append(System.lineSeparator());
+        appendCsv(tasks, text, csv);
+        appendCsv(epics, text, csv);
+        appendCsv(subtasks, text, csv);
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Возвращает задачи в формате CSV с заголовком
+     */
+    static byte[] encodeCsv(List<Task> tasks, Text text) {
+        StringBuilder csv = new StringBuilder();
+        csv.append(CsvTaskCodec.HEADER).append(System.lineSeparator());
+        appendCsv(tasks, text, csv);
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendCsv(List<? extends Task> tasks, Text text, StringBuilder csv) {
+        for (Task task : tasks) {
+            CsvTaskCodec.encode(text.resolve(task), csv);
+            csv.append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Смещения текста задач на момент сохранения. Без режима ленивого текста задачи уже содержат текст
+     */
+    record Text(TaskTextStore store, long[] offsets) {
+        <T extends Task> T resolve(T task) {
+            if (store == null) {
+                return task;
+            }
+            @SuppressWarnings("unchecked")
+            T copy = (T) task.getCopy();
+            TaskTextStore.TaskText text = store.readUncached(offsets[task.getId()]);
+            copy.setName(text.name());
+            copy.setDescription(text.description());
+            return copy;
+        }
+
+        <T extends Task> List<T> resolveAll(List<T> tasks) {
+            if (store == null) {
+                return tasks;
+            }
+            List<T> resolvedTasks = new ArrayList<>(tasks.size());
+            for (T task : tasks) {
+                resolvedTasks.add(resolve(task));
+            }
+            return resolvedTasks;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package ru.yandex.javacourse.service;
+
+/**
+ * Ограниченный список ID в порядке просмотров на массивах примитивов.
+ * ID лежат в слотах фиксированного числа: порядок задаётся индексами prev и next,
+ * свободные слоты связаны в список через next. ID находит свой слот в хеш-таблице
+ * с открытой адресацией на массивах int, поэтому ни запись, ни узел не упаковываются в объекты.
+ * Когда список заполнен, добавление нового ID вытесняет самый старый.
+ * Слот не меняется, пока ID остаётся в списке, поэтому по номеру слота можно хранить связанные данные
+ */
+final class HistoryIdList {
+    static final int NO_SLOT = -1;
+    private static final int EMPTY = 0;
+
+    private final int capacity;
+    private final int[] ids;
+    private final int[] prev;
+    private final int[] next;
+    private final int[] tableIds;
+    private final int[] tableSlots;
+    private final int tableMask;
+    private int head = NO_SLOT;
+    private int tail = NO_SLOT;
+    private int freeHead;
+    private int size = 0;
+
+    HistoryIdList(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным");
+        }
+        this.capacity = capacity;
+        ids = new int[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            next[slot] = slot + 1 < capacity ? slot + 1 : NO_SLOT;
+        }
+        freeHead = 0;
+
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        tableIds = new int[tableSize];
+        tableSlots = new int[tableSize];
+        tableMask = tableSize - 1;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает слот самого старого ID или NO_SLOT, если список пуст
+     */
+    int first() {
+        return head;
+    }
+
+    /**
+     * Возвращает слот следующего по времени просмотра ID или NO_SLOT для последнего
+     */
+    int next(int slot) {
+        return next[slot];
+    }
+
+    int idAt(int slot) {
+        return ids[slot];
+    }
+
+    boolean contains(int id) {
+        return findSlot(id) != NO_SLOT;
+    }
+
+    /**
+     * Переносит ID в конец списка. Если ID в списке нет и список заполнен, самый старый ID вытесняется,
+     * а его слот достаётся новому
+     *
+     * @return слот ID
+     */
+    int add(int id) {
+        int slot = findSlot(id);
+        if (slot != NO_SLOT) {
+            unlink(slot);
+        } else {
+            if (size == capacity) {
+                remove(ids[head]);
+            }
+            slot = freeHead;
+            freeHead = next[slot];
+            ids[slot] = id;
+            putToTable(id, slot);
+            size++;
+        }
+        linkLast(slot);
+        return slot;
+    }
+
+    /**
+     * Удаляет ID из списка
+     *
+     * @return освободившийся слот или NO_SLOT, если ID в списке нет
+     */
+    int remove(int id) {
+        int slot = removeFromTable(id);
+        if (slot == NO_SLOT) {
+            return NO_SLOT;
+        }
+        unlink(slot);
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+        return slot;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NO_SLOT;
+        if (tail == NO_SLOT) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int prevSlot = prev[slot];
+        int nextSlot = next[slot];
+        if (prevSlot == NO_SLOT) {
+            head = nextSlot;
+        } else {
+            next[prevSlot] = nextSlot;
+        }
+        if (nextSlot == NO_SLOT) {
+            tail = prevSlot;
+        } else {
+            prev[nextSlot] = prevSlot;
+        }
+    }
+
+    /**
+     * Ячейка таблицы хранит слот, увеличенный на 1, чтобы ноль означал пустую ячейку
+     */
+    private int findSlot(int id) {
+        for (int index = home(id); tableSlots[index] != EMPTY; index = (index + 1) & tableMask) {
+            if (tableIds[index] == id) {
+                return tableSlots[index] - 1;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    private void putToTable(int id, int slot) {
+        int index = home(id);
+        while (tableSlots[index] != EMPTY) {
+            index = (index + 1) & tableMask;
+        }
+        tableIds[index] = id;
+        tableSlots[index] = slot + 1;
+    }
+
+    /**
+     * Удаляет ID из таблицы со сдвигом следующих ячеек цепочки назад, чтобы не оставлять пометок удаления
+     *
+     * @return слот удалённого ID или NO_SLOT, если ID в таблице нет
+     */
+    private int removeFromTable(int id) {
+        int index = home(id);
+        while (tableSlots[index] != EMPTY && tableIds[index] != id) {
+            index = (index + 1) & tableMask;
+        }
+        if (tableSlots[index] == EMPTY) {
+            return NO_SLOT;
+        }
+
+        int slot = tableSlots[index] - 1;
+        int hole = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & tableMask;
+            if (tableSlots[current] == EMPTY) {
+                break;
+            }
+            int currentHome = home(tableIds[current]);
+            boolean isReachableWithoutHole = hole <= current
+                    ? hole < currentHome && currentHome <= current
+                    : hole < currentHome || currentHome <= current;
+            if (!isReachableWithoutHole) {
+                tableIds[hole] = tableIds[current];
+                tableSlots[hole] = tableSlots[current];
+                hole = current;
+            }
+        }
+        tableSlots[hole] = EMPTY;
+        return slot;
+    }
+
+    private int home(int id) {
+        int hash = id * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & tableMask;
+    }
+}
@@ -1,7 +1,10 @@
 package ru.yandex.javacourse.service;
 
 import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
 import java.util.List;
+import java.util.function.IntFunction;
 
 public interface HistoryManager {
 
@@ -10,4 +13,26 @@ public interface HistoryManager {
     void add(Task task);
 
     void remove(int id);
+
+    /**
+     * Удаляет из истории все задачи заданного типа за один проход по истории.
+     * Менеджер задач вызывает метод при удалении всех задач типа вместо удаления каждой задачи по ID,
+     * поэтому стоимость зависит от размера истории, а не от числа задач в менеджере
+     */
+    default void removeAll(TaskType taskType) {
+        for (Task task : getHistory()) {
+            if (TaskType.of(task) == taskType) {
+                remove(task.getId());
+            }
+        }
+    }
+
+    /**
+     * Передаёт менеджеру истории способ найти текущую версию задачи по ID.
+     * Менеджер задач вызывает метод при создании. Истории, которые хранят копии задач, его не используют
+     *
+     * @param taskLookup возвращает копию задачи по ID или null, если задачи нет
+     */
+    default void bind(IntFunction<Task> taskLookup) {
+    }
 }
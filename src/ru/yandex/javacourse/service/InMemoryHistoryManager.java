@@ -1,6 +1,7 @@
 package ru.yandex.javacourse.service;
 
 import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
 
 import java.util.List;
 import java.util.Map;
@@ -42,6 +43,21 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
     }
 
+    /**
+     * Удаляет задачи заданного типа одним проходом по списку без поиска узлов по ID
+     */
+    @Override
+    public void removeAll(TaskType taskType) {
+        Node<Task> current = head;
+        while (current != null) {
+            Node<Task> next = current.next;
+            if (TaskType.of(current.data) == taskType) {
+                removeNode(current);
+            }
+            current = next;
+        }
+    }
+
     private void linkLast(Task task) {
         if (task == null) {
             return;
@@ -12,7 +12,39 @@ public class InMemoryTaskManager implements TaskManager {
     protected final HashMap<Integer, Task> tasks = new HashMap<>();
     protected final HashMap<Integer, Epic> epics = new HashMap<>();
     protected final HashMap<Integer, Subtask> subtasks = new HashMap<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final HashMap<Integer, EpicIndex> epicIndexes = new HashMap<>();
+    private boolean consistencyCheckEnabled = false;
+    private final HistoryManager historyManager;
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime)
+            .thenComparingInt(Task::getId));
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    /**
+     * Создаёт менеджер с заданным менеджером истории просмотров.
+     * Менеджер истории получает поиск задачи по ID, который не записывает просмотр
+     */
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        historyManager.bind(this::findTask);
+    }
+
+    /**
+     * Возвращает копию задачи, эпика или подзадачи по ID без записи в историю или null, если её нет
+     */
+    private Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task == null ? null : task.getCopy();
+    }
 
     /**
      * Возвращает ID для новой задачи.
@@ -36,7 +68,8 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void deleteAllTasks() {
-        tasks.keySet().forEach(historyManager::remove);
+        historyManager.removeAll(TaskType.TASK);
+        tasks.values().forEach(this::removeFromSchedule);
         tasks.clear();
     }
 
@@ -75,6 +108,7 @@ public class InMemoryTaskManager implements TaskManager {
         Task createdTask = task.getCopy();
         createdTask.setId(generateId());
         tasks.put(createdTask.getId(), createdTask);
+        addToSchedule(createdTask);
         return createdTask.getCopy();
     }
 
@@ -98,7 +132,9 @@ public class InMemoryTaskManager implements TaskManager {
         boolean isTaskExists = tasks.containsKey(task.getId());
         if (isTaskExists) {
             Task updatedTask = task.getCopy();
+            removeFromSchedule(tasks.get(updatedTask.getId()));
             tasks.put(updatedTask.getId(), updatedTask);
+            addToSchedule(updatedTask);
         } else {
             throw new NotFoundException("Задача не найден");
         }
@@ -114,6 +150,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("Задача не найдена");
         }
         historyManager.remove(id);
+        removeFromSchedule(task);
         tasks.remove(id);
     }
 
@@ -130,10 +167,12 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void deleteAllEpics() {
-        subtasks.keySet().forEach(historyManager::remove);
-        epics.keySet().forEach(historyManager::remove);
+        historyManager.removeAll(TaskType.SUBTASK);
+        subtasks.values().forEach(this::removeFromSchedule);
+        historyManager.removeAll(TaskType.EPIC);
         epics.clear();
         subtasks.clear();
+        epicIndexes.clear();
     }
 
     /**
@@ -166,6 +205,7 @@ public class InMemoryTaskManager implements TaskManager {
         createdEpic.setId(generateId());
         createdEpic.deleteSubtasksIdList();
         epics.put(createdEpic.getId(), createdEpic);
+        epicIndexes.put(createdEpic.getId(), new EpicIndex());
         updateEpicStatus(createdEpic);
         updateEpicDates(createdEpic);
         return createdEpic.getCopy();
@@ -198,7 +238,8 @@ public class InMemoryTaskManager implements TaskManager {
 
     /**
      * Удаляет эпик по его id из менеджера и истории.
-     * Вместе с ним удаляет подзадачи из менеджера и истории, которые относились к этому эпику
+     * Вместе с ним удаляет подзадачи из менеджера и истории, которые относились к этому эпику.
+     * Подзадачи эпика берутся из его списка ID подзадач, поэтому удаление занимает O(количества подзадач эпика)
      */
     @Override
     public void deleteEpicById(int id) {
@@ -209,15 +250,12 @@ public class InMemoryTaskManager implements TaskManager {
 
         historyManager.remove(id);
         epics.remove(id);
-        ArrayList<Integer> subtasksToRemove = subtasks.values().stream()
-                .filter(subtask -> subtask.getEpicId() == id)
-                .map(Subtask::getId)
-                .collect(Collectors.toCollection(ArrayList::new));
+        epicIndexes.remove(id);
 
-        subtasksToRemove.forEach(subtaskId -> {
+        for (Integer subtaskId : epic.getSubtasksIdList()) {
             historyManager.remove(subtaskId);
-            subtasks.remove(subtaskId);
-        });
+            removeFromSchedule(subtasks.remove(subtaskId));
+        }
     }
 
     /**
@@ -235,11 +273,13 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void deleteAllSubtasks() {
-        subtasks.keySet().forEach(historyManager::remove);
+        historyManager.removeAll(TaskType.SUBTASK);
+        subtasks.values().forEach(this::removeFromSchedule);
         subtasks.clear();
         epics.keySet().forEach(epicId -> {
             Epic epic = epics.get(epicId);
             epic.deleteSubtasksIdList();
+            epicIndexes.get(epicId).clear();
             updateEpicStatus(epic);
             updateEpicDates(epic);
         });
@@ -290,8 +330,10 @@ public class InMemoryTaskManager implements TaskManager {
         Subtask createdSubtask = subtask.getCopy();
         createdSubtask.setId(generateId());
         subtasks.put(createdSubtask.getId(), createdSubtask);
+        addToSchedule(createdSubtask);
 
         epic.addSubtaskId(createdSubtask.getId());
+        epicIndexes.get(epic.getId()).addSubtask(createdSubtask);
         updateEpicStatus(epic);
         updateEpicDates(epic);
         return createdSubtask.getCopy();
@@ -300,6 +342,7 @@ public class InMemoryTaskManager implements TaskManager {
     /**
      * Обновляет подзадачу.
      * Создаёт копию переданной подзадачи и обновляет по её ID уже существующую версию в хранилище.
+     * Если подзадача перенесена в другой эпик, переносит её ID между эпиками.
      * Обновляет статус эпика.
      *
      * @param subtask объект задачи, которую нужно обновить (может быть null)
@@ -321,9 +364,30 @@ public class InMemoryTaskManager implements TaskManager {
 
         boolean isSubtaskExists = subtasks.containsKey(subtask.getId());
         if (isSubtaskExists) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new NotFoundException("Эпик для подзадачи не найден");
+            }
+
+            Subtask currentSubtask = subtasks.get(subtask.getId());
             Subtask updatedSubtask = subtask.getCopy();
+            removeFromSchedule(currentSubtask);
             subtasks.put(updatedSubtask.getId(), updatedSubtask);
-            Epic epic = epics.get(updatedSubtask.getEpicId());
+            addToSchedule(updatedSubtask);
+
+            if (currentSubtask.getEpicId() != updatedSubtask.getEpicId()) {
+                Epic previousEpic = epics.get(currentSubtask.getEpicId());
+                if (previousEpic.deleteSubtaskId(updatedSubtask.getId())) {
+                    epicIndexes.get(previousEpic.getId()).removeSubtask(currentSubtask);
+                }
+                updateEpicStatus(previousEpic);
+                updateEpicDates(previousEpic);
+
+                epic.addSubtaskId(updatedSubtask.getId());
+                epicIndexes.get(epic.getId()).addSubtask(updatedSubtask);
+            } else {
+                epicIndexes.get(epic.getId()).replaceSubtask(currentSubtask, updatedSubtask);
+            }
             updateEpicStatus(epic);
             updateEpicDates(epic);
         } else {
@@ -343,31 +407,44 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("Подзадача не найдена");
         }
         Epic epic = epics.get(subtask.getEpicId());
-        epic.deleteSubtaskId(id);
+        if (epic.deleteSubtaskId(id)) {
+            epicIndexes.get(epic.getId()).removeSubtask(subtask);
+        }
         updateEpicStatus(epic);
         updateEpicDates(epic);
 
         historyManager.remove(id);
+        removeFromSchedule(subtask);
         subtasks.remove(id);
     }
 
     /**
      * Возвращает список подзадач указанного эпика.
-     * Создаёт и наполняет список объектов-подзадач из хранилища по ID эпика.
+     * Создаёт и наполняет список объектов-подзадач из хранилища по ID подзадач эпика.
      *
      * @param epicId это ID эпика
      * @return список объектов-подзадач
      */
     @Override
     public ArrayList<Subtask> getAllSubtasksByEpicId(int epicId) {
-        return subtasks.values().stream()
-                .filter(subtask -> subtask.getEpicId() == epicId)
-                .collect(Collectors.toCollection(ArrayList::new));
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return new ArrayList<>();
+        }
+
+        ArrayList<Integer> subtaskIds = epic.getSubtasksIdList();
+        ArrayList<Subtask> epicSubtasks = new ArrayList<>(subtaskIds.size());
+        for (Integer subtaskId : subtaskIds) {
+            epicSubtasks.add(subtasks.get(subtaskId));
+        }
+        return epicSubtasks;
     }
 
     /**
      * Обновляет статус эпика.
-     * Получает список его подзадач и проверяет их статус. По их статусам проставляет актуальный статус эпика.
+     * Для эпика из менеджера берёт статус из счётчиков статусов его подзадач за O(1).
+     * Для остальных эпиков получает список подзадач и проверяет их статус.
+     * В режиме проверки согласованности сверяет статус по счётчикам с полным пересчётом.
      *
      * @param epic объект эпика, статус которого нужно обновить.
      */
@@ -376,6 +453,37 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NotFoundException("Эпик не найден");
         }
+
+        EpicIndex epicIndex = epicIndexes.get(epic.getId());
+        if (epicIndex == null) {
+            epic.setStatus(calculateEpicStatus(epic));
+            return;
+        }
+
+        TaskStatus epicStatus = epicIndex.getStatus();
+        if (consistencyCheckEnabled) {
+            TaskStatus calculatedStatus = calculateEpicStatus(epic);
+            if (epicStatus != calculatedStatus) {
+                throw new IllegalStateException("Статус эпика " + epic.getId() + " по счётчикам " + epicStatus
+                        + " не совпадает с пересчитанным статусом " + calculatedStatus);
+            }
+        }
+        epic.setStatus(epicStatus);
+    }
+
+    /**
+     * Включает или выключает режим проверки согласованности.
+     * В этом режиме каждое инкрементальное обновление эпика сверяется с полным пересчётом
+     * по его подзадачам. Используется в тестах
+     */
+    public void setConsistencyCheckEnabled(boolean consistencyCheckEnabled) {
+        this.consistencyCheckEnabled = consistencyCheckEnabled;
+    }
+
+    /**
+     * Вычисляет статус эпика полным обходом его подзадач
+     */
+    private TaskStatus calculateEpicStatus(Epic epic) {
         ArrayList<Integer> epicSubtasksId = epic.getSubtasksIdList();
         int subtasksCount = epicSubtasksId.size();
         int newCount = 0;
@@ -392,11 +500,11 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         if (subtasksCount == 0 || (subtasksCount == newCount)) {
-            epic.setStatus(TaskStatus.NEW);
+            return TaskStatus.NEW;
         } else if (subtasksCount == doneCount) {
-            epic.setStatus(TaskStatus.DONE);
+            return TaskStatus.DONE;
         } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+            return TaskStatus.IN_PROGRESS;
         }
     }
 
@@ -410,7 +518,10 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     /**
-     * Пересчитывает все даты внутри эпика
+     * Пересчитывает все даты внутри эпика.
+     * Для эпика из менеджера берёт даты из агрегатов его индекса за O(1).
+     * Для остальных эпиков вычисляет даты полным обходом подзадач.
+     * В режиме проверки согласованности сверяет агрегаты с полным пересчётом
      */
     @Override
     public void updateEpicDates(Epic epic) {
@@ -418,6 +529,31 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("Эпик не найден");
         }
 
+        EpicIndex epicIndex = epicIndexes.get(epic.getId());
+        if (epicIndex == null) {
+            calculateEpicDates(epic);
+            return;
+        }
+
+        if (consistencyCheckEnabled) {
+            Epic calculatedEpic = epic.getCopy();
+            calculateEpicDates(calculatedEpic);
+            if (!Objects.equals(epicIndex.getStartTime(), calculatedEpic.getStartTime())
+                    || !Objects.equals(epicIndex.getEndTime(), calculatedEpic.getEndTime())
+                    || !Objects.equals(epicIndex.getDuration(), calculatedEpic.getDuration())) {
+                throw new IllegalStateException("Даты эпика " + epic.getId()
+                        + " по агрегатам не совпадают с пересчитанными датами");
+            }
+        }
+        epic.setStartTime(epicIndex.getStartTime());
+        epic.setEndTime(epicIndex.getEndTime());
+        epic.setDuration(epicIndex.getDuration());
+    }
+
+    /**
+     * Вычисляет даты эпика полным обходом его подзадач
+     */
+    private void calculateEpicDates(Epic epic) {
         Optional<LocalDateTime> epicStartTime = epic.getSubtasksIdList().stream()
                 .map(subtasks::get)
                 .filter(Objects::nonNull)
@@ -449,17 +585,40 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     /**
-     * Выводит список задач в порядке приоритета
+     * Выводит список задач в порядке приоритета.
+     * Копирует поддерживаемый менеджером упорядоченный набор за O(n) без повторной сортировки
      */
     @Override
     public TreeSet<Task> getPrioritizedTasks() {
-        List<Task> allTasks = new ArrayList<>();
-        allTasks.addAll(getAllTasks());
-        allTasks.addAll(getAllSubtasks());
+        return new TreeSet<>(prioritizedTasks);
+    }
 
-        return allTasks.stream()
-                .filter(task -> task.getStartTime() != null)
-                .collect(Collectors.toCollection(() -> new TreeSet<>(Comparator.comparing(Task::getStartTime))));
+    /**
+     * Возвращает доступное только для чтения представление задач в порядке приоритета.
+     * Представление не копирует задачи и отражает последующие изменения в менеджере
+     */
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        return Collections.unmodifiableNavigableSet(prioritizedTasks);
+    }
+
+    /**
+     * Возвращает страницу задач в порядке приоритета.
+     * Обходит только первые offset + limit задач упорядоченного набора
+     *
+     * @param offset количество задач, которые нужно пропустить
+     * @param limit максимальное количество задач на странице
+     * @return список задач страницы
+     */
+    @Override
+    public List<Task> getPrioritizedTasks(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Некорректные параметры страницы");
+        }
+        return prioritizedTasks.stream()
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
     /**
@@ -491,7 +650,8 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     /**
-     * Проверяет, пересекается ли заданная задача с любой задаче из менеджера
+     * Проверяет, пересекается ли заданная задача с любой задаче из менеджера.
+     * Поиск выполняется по индексу временных интервалов за O(log n), без копирования задач менеджера
      *
      * @param task задача для проверки
      * @return true если есть пересечение по времени, false если пересечений нет или задача не имеет временных меток
@@ -502,10 +662,77 @@ public class InMemoryTaskManager implements TaskManager {
             return false;
         }
 
-        Optional<Task> overlapTask = getPrioritizedTasks().stream()
-                .filter(currentTask -> ifTasksCrossInTime(task, currentTask))
-                .findFirst();
-
+        Optional<Task> overlapTask = timeIndex.findCross(task);
         return overlapTask.isPresent();
     }
+
+    /**
+     * Добавляет задачу в индексы, упорядоченные по времени:
+     * - в индекс временных интервалов
+     * - в набор задач в порядке приоритета
+     */
+    private void addToSchedule(Task task) {
+        timeIndex.add(task);
+        if (task.getStartTime() != null) {
+            prioritizedTasks.add(task);
+        }
+    }
+
+    /**
+     * Удаляет задачу из индексов, упорядоченных по времени
+     */
+    private void removeFromSchedule(Task task) {
+        timeIndex.remove(task);
+        if (task.getStartTime() != null) {
+            prioritizedTasks.remove(task);
+        }
+    }
+
+    /**
+     * Помещает восстановленную задачу, эпик или подзадачу в хранилище без проверок и генерации ID.
+     * Поддерживает в актуальном состоянии индексы менеджера.
+     * Используется при загрузке менеджера из файла
+     */
+    protected void restore(Task task) {
+        if (task instanceof Subtask subtask) {
+            subtasks.put(subtask.getId(), subtask);
+            epicIndexes.computeIfAbsent(subtask.getEpicId(), epicId -> new EpicIndex()).addSubtask(subtask);
+            addToSchedule(subtask);
+        } else if (task instanceof Epic epic) {
+            epics.put(epic.getId(), epic);
+            epicIndexes.computeIfAbsent(epic.getId(), epicId -> new EpicIndex());
+        } else {
+            tasks.put(task.getId(), task);
+            addToSchedule(task);
+        }
+    }
+
+    /**
+     * Удаляет задачу или подзадачу из хранилища без проверок.
+     * Подзадача удаляется и из своего эпика, статус и даты эпика пересчитываются.
+     * Используется при восстановлении менеджера из журнала изменений
+     */
+    protected void discard(int id) {
+        Task task = tasks.remove(id);
+        if (task != null) {
+            historyManager.remove(id);
+            removeFromSchedule(task);
+            return;
+        }
+
+        Subtask subtask = subtasks.remove(id);
+        if (subtask == null) {
+            return;
+        }
+        historyManager.remove(id);
+        removeFromSchedule(subtask);
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            if (epic.deleteSubtaskId(id)) {
+                epicIndexes.get(epic.getId()).removeSubtask(subtask);
+            }
+            updateEpicStatus(epic);
+            updateEpicDates(epic);
+        }
+    }
 }
@@ -0,0 +1,354 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.ManagerSaveException;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static ru.yandex.javacourse.service.FileBackedTaskManager.COMPACTING_SUFFIX;
+import static ru.yandex.javacourse.service.FileBackedTaskManager.DEFAULT_COMPACTION_THRESHOLD;
+import static ru.yandex.javacourse.service.FileBackedTaskManager.JOURNAL_SUFFIX;
+
+/**
+ * Хранилище, которое дописывает каждое изменение в журнал одной записью.
+ * Полное состояние записывается хранилищем снимков только при сжатии журнала
+ */
+final class JournalBackend extends BatchedBackend {
+    private static final String PUT_RECORD = "PUT";
+    private static final String DELETE_RECORD = "DELETE";
+    private static final String CLEAR_RECORD = "CLEAR";
+
+    private final SnapshotBackend snapshot;
+    private final File journalFile;
+    private final File compactingJournalFile;
+    private final ArrayList<String> pendingRecords = new ArrayList<>();
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private int journalRecordsCount;
+    private CompletableFuture<Void> compaction;
+
+    /**
+     * @param snapshot хранилище снимков, в которое сжимается журнал
+     * @param journalRecordsCount количество записей, уже лежащих в журнале
+     */
+    JournalBackend(SnapshotBackend snapshot, Object monitor, int journalRecordsCount) {
+        super(monitor);
+        this.snapshot = snapshot;
+        this.journalFile = journalFile(snapshot.file);
+        this.compactingJournalFile = compactingJournalFile(snapshot.file);
+        this.journalRecordsCount = journalRecordsCount;
+    }
+
+    private static File journalFile(File file) {
+        return new File(file.getPath() + JOURNAL_SUFFIX);
+    }
+
+    private static File compactingJournalFile(File file) {
+        return new File(file.getPath() + JOURNAL_SUFFIX + COMPACTING_SUFFIX);
+    }
+
+    /**
+     * Проверяет, остался ли рядом с файлом журнал или журнал прерванного сжатия
+     */
+    static boolean exists(File file) {
+        return journalFile(file).exists() || compactingJournalFile(file).exists();
+    }
+
+    @Override
+    public SnapshotFormat getFormat() {
+        return snapshot.getFormat();
+    }
+
+    @Override
+    public void put(Task task) {
+        snapshot.markChanged(task.getId());
+        StringBuilder record = new StringBuilder(PUT_RECORD).append(',');
+        CsvTaskCodec.encode(task, record);
+        pendingRecords.add(record.toString());
+        changed();
+    }
+
+    @Override
+    public void delete(int id) {
+        snapshot.markChanged(id);
+        pendingRecords.add(DELETE_RECORD + "," + id);
+        changed();
+    }
+
+    /**
+     * Дописывает одну запись об удалении эпика: при применении журнала подзадачи удаляются вместе с эпиком
+     */
+    @Override
+    public void deleteEpic(int epicId, List<Integer> subtaskIds) {
+        subtaskIds.forEach(snapshot::markChanged);
+        snapshot.markChanged(epicId);
+        pendingRecords.add(DELETE_RECORD + "," + epicId);
+        changed();
+    }
+
+    @Override
+    public void clear(TaskType taskType) {
+        snapshot.markAllChanged();
+        pendingRecords.add(CLEAR_RECORD + "," + taskType);
+        changed();
+    }
+
+    @Override
+    public CompletableFuture<Void> saveInBackground() {
+        return snapshot.saveInBackground();
+    }
+
+    @Override
+    public void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Дописывает изменение в журнал и при достижении порога начинает фоновое сжатие.
+     * Если файла состояния ещё нет, сначала записывает его, чтобы журналу было к чему применяться
+     */
+    @Override
+    protected void writeChange() {
+        if (!snapshot.file.exists()) {
+            snapshot.compact();
+        }
+        appendToJournal(pendingRecords, false);
+        journalRecordsCount += pendingRecords.size();
+        pendingRecords.clear();
+        if (journalRecordsCount >= compactionThreshold) {
+            compactInBackground();
+        }
+    }
+
+    /**
+     * Готовит дозапись накопленных записей одной операцией.
+     * При достижении порога после дозаписи состояние записывается в файл и журнал удаляется
+     */
+    @Override
+    protected Runnable prepareBatch(boolean isSynced) {
+        List<String> records = new ArrayList<>(pendingRecords);
+        pendingRecords.clear();
+        CompletableFuture<Void> initialSnapshot = snapshot.file.exists() ? null : snapshot.submitSnapshot(isSynced);
+        return () -> {
+            if (initialSnapshot != null) {
+                StorageBackend.await(initialSnapshot);
+            }
+            appendToJournal(records, isSynced);
+            CompletableFuture<Void> compactedSnapshot = null;
+            synchronized (monitor) {
+                journalRecordsCount += records.size();
+                if (journalRecordsCount >= compactionThreshold) {
+                    compactedSnapshot = snapshot.submitSnapshot(isSynced);
+                    journalRecordsCount = 0;
+                }
+            }
+            if (compactedSnapshot != null) {
+                StorageBackend.await(compactedSnapshot);
+                deleteJournal(journalFile);
+                deleteJournal(compactingJournalFile);
+            }
+        };
+    }
+
+    /**
+     * Дописывает записи в журнал одной операцией записи
+     *
+     * @param isSynced true, если журнал нужно сбросить на диск после записи
+     */
+    private void appendToJournal(List<String> records, boolean isSynced) {
+        StringBuilder text = new StringBuilder();
+        for (String record : records) {
+            text.append(record).append(System.lineSeparator());
+        }
+
+        try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (isSynced) {
+                channel.force(false);
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка во время записи в журнал");
+        }
+    }
+
+    /**
+     * Сохраняет текущее состояние в файл целиком и удаляет журнал.
+     * Если идёт фоновое сжатие, сначала дожидается его
+     */
+    @Override
+    public void compact() {
+        if (compaction != null) {
+            compaction.exceptionally(exception -> null).join();
+            compaction = null;
+        }
+        snapshot.compact();
+        deleteJournal(journalFile);
+        deleteJournal(compactingJournalFile);
+        journalRecordsCount = 0;
+    }
+
+    /**
+     * Начинает сжатие журнала в фоновом потоке записи.
+     * Журнал переименовывается, новые изменения пишутся в новый журнал, а состояние на момент
+     * переименования записывается в файл без монитора менеджера. После записи переименованный журнал удаляется.
+     * При сбое до удаления при загрузке применяются оба журнала по порядку.
+     * Пока идёт предыдущее сжатие, новое не начинается; если предыдущее завершилось ошибкой, журнал сжимается сразу.
+     * Если остался переименованный журнал от прерванного сжатия, например после сбоя, журнал тоже сжимается сразу:
+     * переименование заменило бы этот журнал раньше, чем его изменения попадут в файл
+     */
+    private void compactInBackground() {
+        if (compaction != null && !compaction.isDone()) {
+            return;
+        }
+        if ((compaction != null && compaction.isCompletedExceptionally()) || compactingJournalFile.exists()) {
+            compact();
+            return;
+        }
+
+        try {
+            Files.move(journalFile.toPath(), compactingJournalFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка во время сжатия журнала");
+        }
+        journalRecordsCount = 0;
+        SnapshotBackend.SnapshotWrite compactedSnapshot = snapshot.prepareSnapshot();
+        compaction = snapshot.submitWrite(() -> {
+            compactedSnapshot.write(false);
+            deleteJournal(compactingJournalFile);
+        });
+    }
+
+    /**
+     * Ждёт окончания фонового сжатия журнала, если оно идёт, и пробрасывает его ошибку.
+     * Вызывается без монитора менеджера
+     */
+    @Override
+    public void awaitCompaction() {
+        CompletableFuture<Void> currentCompaction;
+        synchronized (monitor) {
+            currentCompaction = compaction;
+        }
+        if (currentCompaction != null) {
+            StorageBackend.await(currentCompaction);
+        }
+    }
+
+    /**
+     * Удаляет журнал и журнал прерванного сжатия рядом с файлом
+     */
+    static void deleteJournals(File file) {
+        deleteJournal(journalFile(file));
+        deleteJournal(compactingJournalFile(file));
+    }
+
+    private static void deleteJournal(File journal) {
+        try {
+            Files.deleteIfExists(journal.toPath());
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка во время сжатия журнала");
+        }
+    }
+
+    /**
+     * Применяет записи журналов рядом с файлом по порядку.
+     * Недописанная последняя запись, оставшаяся после сбоя, пропускается и обрезается,
+     * чтобы следующая дозапись не склеилась с ней. Повреждённая запись в середине журнала
+     * означает потерю данных, поэтому загрузка прерывается с IOException, а журнал не удаляется.
+     * Журнал, сжатие которого прервал сбой, применяется раньше текущего
+     *
+     * @return количество применённых записей
+     */
+    static int replay(File file, Replay replay) throws IOException {
+        return replay(compactingJournalFile(file), replay, new CsvTaskCodec())
+                + replay(journalFile(file), replay, new CsvTaskCodec());
+    }
+
+    private static int replay(File journal, Replay replay, CsvTaskCodec codec) throws IOException {
+        if (!journal.exists()) {
+            return 0;
+        }
+
+        List<String> records = Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8);
+        int lastRecordIndex = records.size() - 1;
+        while (lastRecordIndex >= 0 && records.get(lastRecordIndex).isBlank()) {
+            lastRecordIndex--;
+        }
+
+        int recordsCount = 0;
+        for (int i = 0; i <= lastRecordIndex; i++) {
+            String record = records.get(i);
+            if (record.isBlank()) {
+                continue;
+            }
+            try {
+                applyRecord(record, replay, codec);
+            } catch (RuntimeException exception) {
+                if (i < lastRecordIndex) {
+                    throw new IOException("Повреждена запись журнала " + journal.getName() + " в строке " + (i + 1),
+                            exception);
+                }
+                truncateLastRecord(journal);
+                break;
+            }
+            recordsCount++;
+        }
+        return recordsCount;
+    }
+
+    private static void applyRecord(String record, Replay replay, CsvTaskCodec codec) {
+        int separatorIndex = record.indexOf(',');
+        String recordType = record.substring(0, separatorIndex);
+        String payload = record.substring(separatorIndex + 1);
+
+        switch (recordType) {
+            case PUT_RECORD -> replay.put(codec.decode(payload));
+            case DELETE_RECORD -> replay.delete(Integer.parseInt(payload));
+            case CLEAR_RECORD -> replay.clear(TaskType.valueOf(payload));
+            default -> throw new IllegalArgumentException("Неизвестный тип записи журнала: " + recordType);
+        }
+    }
+
+    /**
+     * Обрезает журнал по концу предпоследней строки, удаляя недописанную последнюю запись
+     */
+    private static void truncateLastRecord(File journal) throws IOException {
+        byte[] content = Files.readAllBytes(journal.toPath());
+        int end = content.length;
+        while (end > 0 && (content[end - 1] == '\n' || content[end - 1] == '\r')) {
+            end--;
+        }
+        int recordStart = end;
+        while (recordStart > 0 && content[recordStart - 1] != '\n') {
+            recordStart--;
+        }
+        try (FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(recordStart);
+        }
+    }
+
+    /**
+     * Применение записей журнала к менеджеру. Записи применяются без проверок пересечений, так как они уже
+     * прошли проверку при записи, и повторное применение уже учтённых в файле записей даёт то же состояние
+     */
+    interface Replay {
+        void put(Task task);
+
+        void delete(int id);
+
+        void clear(TaskType taskType);
+    }
+}
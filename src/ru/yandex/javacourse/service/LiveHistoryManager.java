@@ -0,0 +1,79 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Менеджер истории, который хранит только ID просмотренных задач.
+ * Просмотр записывает несколько int в {@link HistoryIdList} и не копирует задачу.
+ * Задачи находятся по ID в менеджере задач только при вызове {@link #getHistory()},
+ * поэтому история возвращает их текущие версии, а её память не зависит от размера задач.
+ * Когда история заполнена, новый просмотр вытесняет самый старый.
+ * Рядом с ID по номеру слота хранится тип задачи, чтобы удалять задачи типа без поиска в менеджере задач
+ */
+public class LiveHistoryManager implements HistoryManager {
+    private final HistoryIdList historyIds;
+    private final TaskType[] taskTypes;
+    private IntFunction<Task> taskLookup = id -> null;
+
+    public LiveHistoryManager() {
+        this(BoundedHistoryManager.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity максимальное количество задач в истории
+     */
+    public LiveHistoryManager(int capacity) {
+        historyIds = new HistoryIdList(capacity);
+        taskTypes = new TaskType[capacity];
+    }
+
+    /**
+     * Возвращает текущие версии просмотренных задач. Задачи, которых уже нет в менеджере, пропускаются
+     */
+    @Override
+    public List<Task> getHistory() {
+        List<Task> historyList = new ArrayList<>(historyIds.size());
+        for (int slot = historyIds.first(); slot != HistoryIdList.NO_SLOT; slot = historyIds.next(slot)) {
+            Task task = taskLookup.apply(historyIds.idAt(slot));
+            if (task != null) {
+                historyList.add(task);
+            }
+        }
+        return historyList;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        taskTypes[historyIds.add(task.getId())] = TaskType.of(task);
+    }
+
+    @Override
+    public void remove(int id) {
+        historyIds.remove(id);
+    }
+
+    @Override
+    public void removeAll(TaskType taskType) {
+        int slot = historyIds.first();
+        while (slot != HistoryIdList.NO_SLOT) {
+            int nextSlot = historyIds.next(slot);
+            if (taskTypes[slot] == taskType) {
+                historyIds.remove(historyIds.idAt(slot));
+            }
+            slot = nextSlot;
+        }
+    }
+
+    @Override
+    public void bind(IntFunction<Task> taskLookup) {
+        this.taskLookup = taskLookup;
+    }
+}
@@ -8,11 +8,59 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    public static TaskManager getReadOptimized() {
+        return new StampedLockTaskManager();
+    }
+
+    public static MvccTaskManager getMvcc() {
+        return new MvccTaskManager();
+    }
+
+    public static EventLoopTaskManager getEventLoop() {
+        return new EventLoopTaskManager();
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    public static HistoryManager getBoundedHistory(int capacity) {
+        return new BoundedHistoryManager(capacity);
+    }
+
+    public static HistoryManager getLiveHistory(int capacity) {
+        return new LiveHistoryManager(capacity);
+    }
+
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager(getDefaultHistory());
+    }
+
+    public static SessionHistoryManager getSessionHistory() {
+        return new SessionHistoryManager();
+    }
+
     public static FileBackedTaskManager getDefaultFileBacked(File file) {
         return new FileBackedTaskManager(file);
     }
+
+    public static FileBackedTaskManager getJournaledFileBacked(File file) {
+        return new FileBackedTaskManager(file, true);
+    }
+
+    public static FileBackedTaskManager getBinaryFileBacked(File file) {
+        return new FileBackedTaskManager(file, SnapshotFormat.BINARY);
+    }
+
+    public static FileBackedTaskManager getMappedFileBacked(File file) {
+        return new FileBackedTaskManager(file, SnapshotFormat.MAPPED);
+    }
+
+    public static FileBackedTaskManager getSegmentedFileBacked(File file) {
+        return new FileBackedTaskManager(file, SnapshotFormat.SEGMENTED);
+    }
 }
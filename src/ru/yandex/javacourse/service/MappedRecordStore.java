@@ -0,0 +1,364 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.ManagerSaveException;
+import ru.yandex.javacourse.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Хранилище задач в файлах, отображённых в память.
+ * Файл слотов состоит из заголовка и слотов фиксированного размера, слот задачи находится по её ID.
+ * Имена и описания лежат в отдельном файле кучи, слот хранит их смещение и длину.
+ * Изменение задачи переписывает только её слот, а новые строки дописываются в конец кучи.
+ * Если строка не изменилась, слот продолжает ссылаться на прежние байты.
+ * Запись на диск выполняет система через кэш страниц, {@link #force()} сбрасывает её принудительно.
+ * Место старых строк в куче не переиспользуется: чтобы его вернуть, файл переписывается заново
+ */
+final class MappedRecordStore implements StorageBackend {
+    static final String HEAP_SUFFIX = ".heap";
+    private static final int MAGIC = 0x4A4B4D53;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 48;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int INITIAL_HEAP_SIZE = 1 << 16;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int STATUS_OFFSET = 1;
+    private static final int FLAGS_OFFSET = 2;
+    private static final int EPIC_ID_OFFSET = 4;
+    private static final int START_TIME_OFFSET = 8;
+    private static final int DURATION_OFFSET = 16;
+    private static final int NAME_OFFSET = 24;
+    private static final int NAME_LENGTH_OFFSET = 32;
+    private static final int DESCRIPTION_OFFSET = 36;
+    private static final int DESCRIPTION_LENGTH_OFFSET = 44;
+
+    private static final byte EMPTY_SLOT = 0;
+    private static final int HAS_START_TIME = 1;
+    private static final int HAS_DURATION = 2;
+    private static final int NULL_LENGTH = -1;
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    private final FileChannel slotsChannel;
+    private final FileChannel heapChannel;
+    private MappedByteBuffer slots;
+    private MappedByteBuffer heap;
+    private int slotsCapacity;
+
+    private MappedRecordStore(FileChannel slotsChannel, FileChannel heapChannel) {
+        this.slotsChannel = slotsChannel;
+        this.heapChannel = heapChannel;
+    }
+
+    /**
+     * Проверяет, начинается ли файл с сигнатуры файла слотов
+     */
+    static boolean isMapped(byte[] header) {
+        return header.length >= 4 && ByteBuffer.wrap(header).getInt() == MAGIC;
+    }
+
+    /**
+     * Открывает хранилище. Пустой или отсутствующий файл слотов размечается заново вместе с кучей
+     *
+     * @param isReset true, если прежнее содержимое файлов нужно отбросить
+     */
+    static MappedRecordStore open(File file, boolean isReset) throws IOException {
+        FileChannel slotsChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        FileChannel heapChannel = FileChannel.open(new File(file.getPath() + HEAP_SUFFIX).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedRecordStore store = new MappedRecordStore(slotsChannel, heapChannel);
+        try {
+            if (isReset) {
+                slotsChannel.truncate(0);
+            }
+            boolean isNew = slotsChannel.size() == 0;
+            if (isNew) {
+                heapChannel.truncate(0);
+            }
+            store.mapSlots(isNew ? HEADER_SIZE + (long) INITIAL_SLOTS * SLOT_SIZE : slotsChannel.size());
+            store.mapHeap(Math.max(INITIAL_HEAP_SIZE, heapChannel.size()));
+            if (isNew) {
+                store.slots.putInt(0, MAGIC);
+                store.slots.putInt(4, VERSION);
+                store.slots.putInt(8, SLOT_SIZE);
+                store.heap.putLong(0, Long.BYTES);
+            } else if (store.slots.getInt(0) != MAGIC || store.slots.getInt(4) != VERSION
+                    || store.slots.getInt(8) != SLOT_SIZE) {
+                throw new IOException("Файл не является хранилищем слотов поддерживаемой версии");
+            }
+            return store;
+        } catch (IOException | RuntimeException exception) {
+            store.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Читает все задачи в порядке возрастания ID прямо из отображённой памяти
+     */
+    List<Task> readAll() {
+        List<Task> records = new ArrayList<>();
+        for (int id = 0; id < slotsCapacity; id++) {
+            int slot = slotPosition(id);
+            if (slots.get(slot + TYPE_OFFSET) != EMPTY_SLOT) {
+                records.add(readSlot(id, slot));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Записывает задачу в её слот
+     */
+    @Override
+    public void put(Task task) {
+        int id = task.getId();
+        if (id < 0) {
+            throw new IllegalArgumentException("ID задачи не может быть отрицательным");
+        }
+        ensureSlot(id);
+
+        int slot = slotPosition(id);
+        boolean isOccupied = slots.get(slot + TYPE_OFFSET) != EMPTY_SLOT;
+        writeString(slot + NAME_OFFSET, slot + NAME_LENGTH_OFFSET, task.getName(), isOccupied);
+        writeString(slot + DESCRIPTION_OFFSET, slot + DESCRIPTION_LENGTH_OFFSET, task.getDescription(), isOccupied);
+
+        TaskType taskType = TaskType.of(task);
+        LocalDateTime startTime = taskType == TaskType.EPIC ? null : task.getStartTime();
+        Duration duration = taskType == TaskType.EPIC ? null : task.getDuration();
+        slots.put(slot + STATUS_OFFSET, (byte) (task.getStatus() == null ? 0 : task.getStatus().ordinal() + 1));
+        slots.put(slot + FLAGS_OFFSET, (byte) ((startTime != null ? HAS_START_TIME : 0)
+                | (duration != null ? HAS_DURATION : 0)));
+        slots.putInt(slot + EPIC_ID_OFFSET, task instanceof Subtask subtask ? subtask.getEpicId() : 0);
+        slots.putLong(slot + START_TIME_OFFSET,
+                startTime == null ? 0 : Math.floorDiv(startTime.toEpochSecond(ZoneOffset.UTC), 60));
+        slots.putLong(slot + DURATION_OFFSET, duration == null ? 0 : duration.toMinutes());
+        slots.put(slot + TYPE_OFFSET, (byte) (taskType.ordinal() + 1));
+    }
+
+    /**
+     * Освобождает слот задачи
+     */
+    @Override
+    public void delete(int id) {
+        if (id < 0 || id >= slotsCapacity) {
+            return;
+        }
+        slots.put(slotPosition(id) + TYPE_OFFSET, EMPTY_SLOT);
+    }
+
+    /**
+     * Освобождает слоты подзадач эпика и затем слот самого эпика. Подзадачи передаёт менеджер,
+     * поэтому удаление переписывает только затронутые слоты, а не обходит всё хранилище.
+     * Эпик освобождается последним: если процесс прервётся посередине, в файле останется эпик
+     * без части подзадач, а не подзадачи без эпика, и файл по-прежнему загрузится
+     *
+     * @param subtaskIds ID подзадач эпика
+     */
+    @Override
+    public void deleteEpic(int epicId, List<Integer> subtaskIds) {
+        subtaskIds.forEach(this::delete);
+        delete(epicId);
+    }
+
+    /**
+     * Освобождает слоты всех задач заданного типа. Вместе с эпиками освобождаются все подзадачи,
+     * причём сначала подзадачи, а эпики вторым проходом, как в {@link #deleteEpic(int, List)}
+     */
+    @Override
+    public void clear(TaskType taskType) {
+        if (taskType == TaskType.EPIC) {
+            clearSlots(TaskType.SUBTASK);
+        }
+        clearSlots(taskType);
+    }
+
+    private void clearSlots(TaskType taskType) {
+        for (int id = 0; id < slotsCapacity; id++) {
+            int slot = slotPosition(id);
+            if (slots.get(slot + TYPE_OFFSET) == taskType.ordinal() + 1) {
+                slots.put(slot + TYPE_OFFSET, EMPTY_SLOT);
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает изменённые страницы обоих файлов на диск
+     */
+    void force() {
+        slots.force();
+        heap.force();
+    }
+
+    @Override
+    public SnapshotFormat getFormat() {
+        return SnapshotFormat.MAPPED;
+    }
+
+    /**
+     * Каждое изменение уже лежит в отображённых файлах, поэтому сохранение только сбрасывает их на диск
+     */
+    @Override
+    public CompletableFuture<Void> saveInBackground() {
+        force();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void compact() {
+        force();
+    }
+
+    @Override
+    public void startBackgroundFlush(Duration flushWindow, Durability durability) {
+        throw new IllegalStateException("В формате MAPPED изменения пишутся прямо в отображённые файлы");
+    }
+
+    @Override
+    public void close() {
+        try {
+            slotsChannel.close();
+            heapChannel.close();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка при закрытии хранилища слотов");
+        }
+    }
+
+    private Task readSlot(int id, int slot) {
+        TaskType taskType = TASK_TYPES[slots.get(slot + TYPE_OFFSET) - 1];
+        int statusCode = slots.get(slot + STATUS_OFFSET);
+        TaskStatus taskStatus = statusCode == 0 ? null : TASK_STATUSES[statusCode - 1];
+        String taskName = readString(slot + NAME_OFFSET, slot + NAME_LENGTH_OFFSET);
+        String taskDescription = readString(slot + DESCRIPTION_OFFSET, slot + DESCRIPTION_LENGTH_OFFSET);
+
+        if (taskType == TaskType.EPIC) {
+            Epic epic = new Epic(taskName, taskDescription);
+            epic.setId(id);
+            return epic;
+        }
+
+        int flags = slots.get(slot + FLAGS_OFFSET);
+        LocalDateTime taskStartTime = (flags & HAS_START_TIME) == 0 ? null
+                : LocalDateTime.ofEpochSecond(slots.getLong(slot + START_TIME_OFFSET) * 60, 0, ZoneOffset.UTC);
+        Duration taskDuration = (flags & HAS_DURATION) == 0 ? null
+                : Duration.ofMinutes(slots.getLong(slot + DURATION_OFFSET));
+
+        Task task;
+        if (taskType == TaskType.SUBTASK) {
+            task = new Subtask(taskName, taskDescription, taskStatus, slots.getInt(slot + EPIC_ID_OFFSET),
+                    taskDuration, taskStartTime);
+        } else {
+            task = new Task(taskName, taskDescription, taskStatus, taskDuration, taskStartTime);
+        }
+        task.setId(id);
+        return task;
+    }
+
+    private String readString(int offsetPosition, int lengthPosition) {
+        int length = slots.getInt(lengthPosition);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        heap.get(Math.toIntExact(slots.getLong(offsetPosition)), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Пишет ссылку на строку в слот. Совпадающая с прежней строка не дописывается в кучу повторно
+     */
+    private void writeString(int offsetPosition, int lengthPosition, String value, boolean isOccupied) {
+        if (value == null) {
+            slots.putInt(lengthPosition, NULL_LENGTH);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (isOccupied && slots.getInt(lengthPosition) == bytes.length
+                && isHeapEqual(slots.getLong(offsetPosition), bytes)) {
+            return;
+        }
+
+        long heapOffset = heap.getLong(0);
+        ensureHeap(heapOffset + bytes.length);
+        heap.put(Math.toIntExact(heapOffset), bytes);
+        heap.putLong(0, heapOffset + bytes.length);
+        slots.putLong(offsetPosition, heapOffset);
+        slots.putInt(lengthPosition, bytes.length);
+    }
+
+    private boolean isHeapEqual(long heapOffset, byte[] bytes) {
+        int offset = Math.toIntExact(heapOffset);
+        for (int i = 0; i < bytes.length; i++) {
+            if (heap.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slotPosition(int id) {
+        return HEADER_SIZE + id * SLOT_SIZE;
+    }
+
+    private void ensureSlot(int id) {
+        if (id < slotsCapacity) {
+            return;
+        }
+
+        long requiredSlots = Math.max((long) slotsCapacity * 2, id + 1L);
+        remap(() -> mapSlots(HEADER_SIZE + requiredSlots * SLOT_SIZE));
+    }
+
+    private void ensureHeap(long requiredSize) {
+        if (requiredSize <= heap.capacity()) {
+            return;
+        }
+
+        remap(() -> mapHeap(Math.max((long) heap.capacity() * 2, requiredSize)));
+    }
+
+    private void mapSlots(long size) throws IOException {
+        slots = slotsChannel.map(FileChannel.MapMode.READ_WRITE, 0, checkMappingSize(size));
+        slotsCapacity = (int) ((size - HEADER_SIZE) / SLOT_SIZE);
+    }
+
+    private void mapHeap(long size) throws IOException {
+        heap = heapChannel.map(FileChannel.MapMode.READ_WRITE, 0, checkMappingSize(size));
+    }
+
+    private static long checkMappingSize(long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new ManagerSaveException("Хранилище слотов превысило допустимый размер отображения");
+        }
+        return size;
+    }
+
+    private void remap(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка при расширении хранилища слотов");
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
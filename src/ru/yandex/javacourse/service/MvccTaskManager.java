@@ -0,0 +1,649 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.NotFoundException;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Менеджер задач с многоверсионным хранением (MVCC).
+ * Задачи, эпики и подзадачи лежат в неизменяемых отображениях {@link PersistentIntMap},
+ * собранных в снимок {@link TaskBoardSnapshot} и опубликованных через одно volatile-поле.
+ * Читатель берёт снимок всей доски за O(1) без блокировок и видит согласованное состояние на момент его публикации.
+ * Писатели выполняются по одному под монитором менеджера: они строят новую версию, разделяющую
+ * неизменённые узлы с предыдущей, и публикуют её одной записью.
+ * Сохранённые объекты задач никогда не изменяются, изменённый эпик заменяется копией.
+ * Порядок приоритета хранится в снимке неизменяемым деревом {@link PersistentSortedSet} и обновляется
+ * той же записью за O(log n), поэтому чтение приоритетов после записи не сортирует доску заново.
+ * Получение задачи по ID пишет в историю, поэтому тоже выполняется под монитором
+ */
+public class MvccTaskManager implements TaskManager {
+    private final HistoryManager historyManager = new SynchronizedHistoryManager(Managers.getDefaultHistory());
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final HashMap<Integer, EpicIndex> epicIndexes = new HashMap<>();
+    private int idCount = 0;
+    private final Set<Epic> unpublishedEpics = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile TaskBoardSnapshot snapshot = TaskBoardSnapshot.EMPTY;
+    private TaskBoardSnapshot pendingSnapshot;
+    private boolean isBatchRunning = false;
+
+    /**
+     * Возвращает текущий снимок всех задач без блокировок и копирования
+     */
+    public TaskBoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Выполняет несколько изменений как одну версию.
+     * Промежуточные версии видны только писателю и публикуются одной записью в конце пакета.
+     * Эпик, скопированный внутри пакета, ещё не виден читателям, поэтому следующие изменения того же эпика
+     * в пакете меняют эту копию на месте, а не копируют её снова
+     */
+    synchronized void runBatch(Runnable batch) {
+        if (isBatchRunning) {
+            batch.run();
+            return;
+        }
+
+        isBatchRunning = true;
+        try {
+            batch.run();
+        } finally {
+            isBatchRunning = false;
+            unpublishedEpics.clear();
+            if (pendingSnapshot != null) {
+                snapshot = pendingSnapshot;
+                pendingSnapshot = null;
+            }
+        }
+    }
+
+    /**
+     * Возвращает ID для новой задачи.
+     * Вызывается под монитором менеджера.
+     */
+    private int generateId() {
+        idCount += 1;
+        return idCount;
+    }
+
+    /**
+     * Возвращает все задачи текущего снимка в виде списка объектов
+     */
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return toList(snapshot.getTasks(), snapshot.getTasksCount());
+    }
+
+    /**
+     * Удаляет все задачи в менеджере и истории
+     */
+    @Override
+    public synchronized void deleteAllTasks() {
+        TaskBoardSnapshot current = workingSnapshot();
+        historyManager.removeAll(TaskType.TASK);
+        PersistentSortedSet<Task> newPrioritizedTasks = current.prioritizedTasks();
+        for (Task task : current.getTasks()) {
+            newPrioritizedTasks = unschedule(newPrioritizedTasks, task);
+        }
+        publish(current.next(PersistentIntMap.empty(), current.epics(), current.subtasks(), newPrioritizedTasks));
+    }
+
+    /**
+     * Возвращает копию задачи по её id.
+     * Добавляет её в историю просмотра задач.
+     */
+    @Override
+    public synchronized Task getTaskById(int id) {
+        Task returnedTask = workingSnapshot().tasks().get(id);
+        if (returnedTask == null) {
+            throw new NotFoundException("Задача не найдена");
+        }
+        historyManager.add(returnedTask);
+        return returnedTask.getCopy();
+    }
+
+    /**
+     * Добавляет новую задачу и публикует версию с ней.
+     *
+     * @param task объект задачи, которую нужно добавить
+     * @return копия созданной задачи с присвоенным ID
+     */
+    @Override
+    public synchronized Task addTask(Task task) {
+        if (task == null) {
+            throw new NotFoundException("Задача не найдена");
+        }
+
+        if (hasCrossInTime(task)) {
+            throw new NotFoundException("Задача не добавлена");
+        }
+
+        TaskBoardSnapshot current = workingSnapshot();
+        Task createdTask = task.getCopy();
+        createdTask.setId(generateId());
+        publish(current.next(current.tasks().put(createdTask.getId(), createdTask), current.epics(),
+                current.subtasks(), schedule(current.prioritizedTasks(), createdTask)));
+        return createdTask.getCopy();
+    }
+
+    /**
+     * Заменяет задачу копией переданной и публикует новую версию.
+     *
+     * @param task объект задачи, которую нужно обновить
+     */
+    @Override
+    public synchronized void updateTask(Task task) {
+        if (task == null) {
+            throw new NotFoundException("Задача не найдена");
+        }
+
+        if (hasCrossInTime(task)) {
+            throw new NotFoundException("Задача не добавлена");
+        }
+
+        TaskBoardSnapshot current = workingSnapshot();
+        Task currentTask = current.tasks().get(task.getId());
+        if (currentTask == null) {
+            throw new NotFoundException("Задача не найден");
+        }
+        Task updatedTask = task.getCopy();
+        PersistentSortedSet<Task> newPrioritizedTasks = schedule(unschedule(current.prioritizedTasks(), currentTask),
+                updatedTask);
+        publish(current.next(current.tasks().put(updatedTask.getId(), updatedTask), current.epics(),
+                current.subtasks(), newPrioritizedTasks));
+    }
+
+    /**
+     * Удаляет задачу по её id из менеджера и истории
+     */
+    @Override
+    public synchronized void deleteTaskById(int id) {
+        TaskBoardSnapshot current = workingSnapshot();
+        Task task = current.tasks().get(id);
+        if (task == null) {
+            throw new NotFoundException("Задача не найдена");
+        }
+        historyManager.remove(id);
+        publish(current.next(current.tasks().remove(id), current.epics(), current.subtasks(),
+                unschedule(current.prioritizedTasks(), task)));
+    }
+
+    /**
+     * Возвращает все эпики текущего снимка в виде списка объектов
+     */
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        return toList(snapshot.getEpics(), snapshot.getEpicsCount());
+    }
+
+    /**
+     * Удаляет все эпики вместе с подзадачами из менеджера и истории
+     */
+    @Override
+    public synchronized void deleteAllEpics() {
+        TaskBoardSnapshot current = workingSnapshot();
+        historyManager.removeAll(TaskType.SUBTASK);
+        historyManager.removeAll(TaskType.EPIC);
+        PersistentSortedSet<Task> newPrioritizedTasks = current.prioritizedTasks();
+        for (Subtask subtask : current.getSubtasks()) {
+            newPrioritizedTasks = unschedule(newPrioritizedTasks, subtask);
+        }
+        epicIndexes.clear();
+        publish(current.next(current.tasks(), PersistentIntMap.empty(), PersistentIntMap.empty(),
+                newPrioritizedTasks));
+    }
+
+    /**
+     * Возвращает копию эпика по его id.
+     * Добавляет его в историю просмотра задач.
+     */
+    @Override
+    public synchronized Epic getEpicById(int id) {
+        Epic returnedEpic = workingSnapshot().epics().get(id);
+        if (returnedEpic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+        historyManager.add(returnedEpic);
+        return returnedEpic.getCopy();
+    }
+
+    /**
+     * Добавляет новый эпик и публикует версию с ним.
+     *
+     * @param epic объект эпика, который нужно добавить
+     * @return копия созданного эпика с присвоенным ID
+     */
+    @Override
+    public synchronized Epic addEpic(Epic epic) {
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+
+        TaskBoardSnapshot current = workingSnapshot();
+        Epic createdEpic = epic.getCopy();
+        createdEpic.setId(generateId());
+        createdEpic.deleteSubtasksIdList();
+        EpicIndex epicIndex = new EpicIndex();
+        applyEpicIndex(createdEpic, epicIndex);
+        epicIndexes.put(createdEpic.getId(), epicIndex);
+        publish(current.next(current.tasks(), current.epics().put(createdEpic.getId(), createdEpic),
+                current.subtasks(), current.prioritizedTasks()));
+        return createdEpic.getCopy();
+    }
+
+    /**
+     * Заменяет эпик копией переданного и публикует новую версию.
+     * Список подзадач, статус и даты эпика сохраняются из менеджера.
+     *
+     * @param epic объект эпика, который нужно обновить
+     */
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+
+        TaskBoardSnapshot current = workingSnapshot();
+        Epic currentEpic = current.epics().get(epic.getId());
+        if (currentEpic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+        Epic updatedEpic = epic.getCopy();
+        updatedEpic.setSubtasksIdList(currentEpic.getSubtasksIdList());
+        applyEpicIndex(updatedEpic, epicIndexes.get(updatedEpic.getId()));
+        publish(current.next(current.tasks(), current.epics().put(updatedEpic.getId(), updatedEpic),
+                current.subtasks(), current.prioritizedTasks()));
+    }
+
+    /**
+     * Удаляет эпик по его id вместе с его подзадачами из менеджера и истории
+     */
+    @Override
+    public synchronized void deleteEpicById(int id) {
+        TaskBoardSnapshot current = workingSnapshot();
+        Epic epic = current.epics().get(id);
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+
+        historyManager.remove(id);
+        epicIndexes.remove(id);
+        PersistentIntMap<Subtask> newSubtasks = current.subtasks();
+        PersistentSortedSet<Task> newPrioritizedTasks = current.prioritizedTasks();
+        for (Integer subtaskId : epic.getSubtasksIdList()) {
+            historyManager.remove(subtaskId);
+            newPrioritizedTasks = unschedule(newPrioritizedTasks, newSubtasks.get(subtaskId));
+            newSubtasks = newSubtasks.remove(subtaskId);
+        }
+        publish(current.next(current.tasks(), current.epics().remove(id), newSubtasks, newPrioritizedTasks));
+    }
+
+    /**
+     * Возвращает все подзадачи текущего снимка в виде списка объектов
+     */
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return toList(snapshot.getSubtasks(), snapshot.getSubtasksCount());
+    }
+
+    /**
+     * Удаляет все подзадачи из менеджера, истории и эпиков
+     */
+    @Override
+    public synchronized void deleteAllSubtasks() {
+        TaskBoardSnapshot current = workingSnapshot();
+        historyManager.removeAll(TaskType.SUBTASK);
+        PersistentSortedSet<Task> newPrioritizedTasks = current.prioritizedTasks();
+        for (Subtask subtask : current.getSubtasks()) {
+            newPrioritizedTasks = unschedule(newPrioritizedTasks, subtask);
+        }
+
+        PersistentIntMap<Epic> newEpics = current.epics();
+        for (Epic epic : current.getEpics()) {
+            EpicIndex epicIndex = epicIndexes.get(epic.getId());
+            epicIndex.clear();
+            newEpics = newEpics.put(epic.getId(), copyEpic(epic, epicIndex, ArrayList::clear));
+        }
+        publish(current.next(current.tasks(), newEpics, PersistentIntMap.empty(), newPrioritizedTasks));
+    }
+
+    /**
+     * Возвращает копию подзадачи по её id.
+     * Добавляет её в историю просмотра задач.
+     */
+    @Override
+    public synchronized Subtask getSubtaskById(int id) {
+        Subtask returnedSubtask = workingSnapshot().subtasks().get(id);
+        if (returnedSubtask == null) {
+            throw new NotFoundException("Подзадача не найдена");
+        }
+        historyManager.add(returnedSubtask);
+        return returnedSubtask.getCopy();
+    }
+
+    /**
+     * Добавляет новую подзадачу и публикует версию с ней и обновлённым эпиком.
+     *
+     * @param subtask объект подзадачи, которую нужно добавить
+     * @return копия созданной подзадачи с присвоенным ID
+     */
+    @Override
+    public synchronized Subtask addSubtask(Subtask subtask) {
+        if (subtask == null) {
+            throw new NotFoundException("Подзадача не найдена");
+        }
+
+        if (hasCrossInTime(subtask)) {
+            throw new NotFoundException("Подзадача не добавлена");
+        }
+
+        TaskBoardSnapshot current = workingSnapshot();
+        Epic epic = current.epics().get(subtask.getEpicId());
+        if (epic == null) {
+            throw new NotFoundException("Эпик для подзадачи не найден");
+        }
+
+        if (subtask.getEpicId() == subtask.getId()) {
+            throw new NotFoundException("Подзадача не добавлена");
+        }
+        Subtask createdSubtask = subtask.getCopy();
+        createdSubtask.setId(generateId());
+
+        EpicIndex epicIndex = epicIndexes.get(epic.getId());
+        epicIndex.addSubtask(createdSubtask);
+        Epic updatedEpic = copyEpic(epic, epicIndex, ids -> ids.add(createdSubtask.getId()));
+        publish(current.next(current.tasks(), current.epics().put(updatedEpic.getId(), updatedEpic),
+                current.subtasks().put(createdSubtask.getId(), createdSubtask),
+                schedule(current.prioritizedTasks(), createdSubtask)));
+        return createdSubtask.getCopy();
+    }
+
+    /**
+     * Заменяет подзадачу копией переданной и публикует версию с обновлёнными эпиками.
+     * Если подзадача перенесена в другой эпик, переносит её ID между эпиками.
+     *
+     * @param subtask объект подзадачи, которую нужно обновить
+     */
+    @Override
+    public synchronized void updateSubtask(Subtask subtask) {
+        if (subtask == null) {
+            throw new NotFoundException("Подзадача для обновления не найдена");
+        }
+
+        if (subtask.getEpicId() == subtask.getId()) {
+            throw new NotFoundException("Подзадача не обновлена");
+        }
+
+        if (hasCrossInTime(subtask)) {
+            throw new NotFoundException("Подзадача не обновлена");
+        }
+
+        TaskBoardSnapshot current = workingSnapshot();
+        Subtask currentSubtask = current.subtasks().get(subtask.getId());
+        if (currentSubtask == null) {
+            throw new NotFoundException("Подзадача не обновлена");
+        }
+        Epic epic = current.epics().get(subtask.getEpicId());
+        if (epic == null) {
+            throw new NotFoundException("Эпик для подзадачи не найден");
+        }
+
+        Subtask updatedSubtask = subtask.getCopy();
+        PersistentSortedSet<Task> newPrioritizedTasks = schedule(unschedule(current.prioritizedTasks(),
+                currentSubtask), updatedSubtask);
+
+        PersistentIntMap<Epic> newEpics = current.epics();
+        EpicIndex epicIndex = epicIndexes.get(epic.getId());
+        if (currentSubtask.getEpicId() != updatedSubtask.getEpicId()) {
+            Epic previousEpic = current.epics().get(currentSubtask.getEpicId());
+            EpicIndex previousEpicIndex = epicIndexes.get(previousEpic.getId());
+            previousEpicIndex.removeSubtask(currentSubtask);
+            newEpics = newEpics.put(previousEpic.getId(), copyEpic(previousEpic, previousEpicIndex,
+                    ids -> ids.remove(Integer.valueOf(updatedSubtask.getId()))));
+
+            epicIndex.addSubtask(updatedSubtask);
+            newEpics = newEpics.put(epic.getId(), copyEpic(epic, epicIndex,
+                    ids -> ids.add(updatedSubtask.getId())));
+        } else {
+            epicIndex.replaceSubtask(currentSubtask, updatedSubtask);
+            newEpics = newEpics.put(epic.getId(), copyEpic(epic, epicIndex, ids -> { }));
+        }
+        publish(current.next(current.tasks(), newEpics,
+                current.subtasks().put(updatedSubtask.getId(), updatedSubtask), newPrioritizedTasks));
+    }
+
+    /**
+     * Удаляет подзадачу по её id из эпика, менеджера и истории
+     */
+    @Override
+    public synchronized void deleteSubtaskById(int id) {
+        TaskBoardSnapshot current = workingSnapshot();
+        Subtask subtask = current.subtasks().get(id);
+        if (subtask == null) {
+            throw new NotFoundException("Подзадача не найдена");
+        }
+        Epic epic = current.epics().get(subtask.getEpicId());
+        EpicIndex epicIndex = epicIndexes.get(epic.getId());
+        epicIndex.removeSubtask(subtask);
+        Epic updatedEpic = copyEpic(epic, epicIndex, ids -> ids.remove(Integer.valueOf(id)));
+
+        historyManager.remove(id);
+        publish(current.next(current.tasks(), current.epics().put(updatedEpic.getId(), updatedEpic),
+                current.subtasks().remove(id), unschedule(current.prioritizedTasks(), subtask)));
+    }
+
+    /**
+     * Возвращает список подзадач указанного эпика из текущего снимка
+     *
+     * @param epicId это ID эпика
+     * @return список объектов-подзадач
+     */
+    @Override
+    public ArrayList<Subtask> getAllSubtasksByEpicId(int epicId) {
+        return new ArrayList<>(snapshot.getSubtasksByEpicId(epicId));
+    }
+
+    /**
+     * Обновляет статус переданного эпика по подзадачам менеджера
+     *
+     * @param epic объект эпика, статус которого нужно обновить.
+     */
+    @Override
+    public synchronized void updateEpicStatus(Epic epic) {
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+        epic.setStatus(getEpicIndex(epic).getStatus());
+    }
+
+    /**
+     * Возвращает список просмотренных задач.
+     */
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    /**
+     * Пересчитывает все даты переданного эпика по подзадачам менеджера
+     */
+    @Override
+    public synchronized void updateEpicDates(Epic epic) {
+        if (epic == null) {
+            throw new NotFoundException("Эпик не найден");
+        }
+        EpicIndex epicIndex = getEpicIndex(epic);
+        epic.setStartTime(epicIndex.getStartTime());
+        epic.setEndTime(epicIndex.getEndTime());
+        epic.setDuration(epicIndex.getDuration());
+    }
+
+    /**
+     * Выводит список задач текущего снимка в порядке приоритета
+     */
+    @Override
+    public TreeSet<Task> getPrioritizedTasks() {
+        return new TreeSet<>(snapshot.getPrioritizedTasks());
+    }
+
+    /**
+     * Возвращает неизменяемый список приоритетов текущего снимка.
+     * Список не меняется при последующих изменениях менеджера
+     */
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        return snapshot.getPrioritizedTasks();
+    }
+
+    /**
+     * Возвращает страницу задач текущего снимка в порядке приоритета
+     *
+     * @param offset количество задач, которые нужно пропустить
+     * @param limit максимальное количество задач на странице
+     * @return список задач страницы
+     */
+    @Override
+    public List<Task> getPrioritizedTasks(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Некорректные параметры страницы");
+        }
+        return snapshot.getPrioritizedTasks().stream()
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Проверяет, пересекаются ли две задачи по времени
+     */
+    @Override
+    public boolean ifTasksCrossInTime(Task firstTask, Task secondTask) {
+        if (firstTask == null || secondTask == null || firstTask.equals(secondTask)) {
+            return false;
+        }
+
+        LocalDateTime firstTaskStartTime = firstTask.getStartTime();
+        LocalDateTime firstTaskEndTime = firstTask.getEndTime();
+
+        LocalDateTime secondTaskStartTime = secondTask.getStartTime();
+        LocalDateTime secondTaskEndTime = secondTask.getEndTime();
+
+        if (firstTaskStartTime == null || firstTaskEndTime == null || secondTaskStartTime == null
+                || secondTaskEndTime == null) {
+            return false;
+        }
+
+        return !firstTaskEndTime.isBefore(secondTaskStartTime) && !secondTaskEndTime.isBefore(firstTaskStartTime);
+    }
+
+    /**
+     * Проверяет, пересекается ли заданная задача с любой задачей из менеджера
+     *
+     * @param task задача для проверки
+     * @return true если есть пересечение по времени, false если пересечений нет или задача не имеет временных меток
+     */
+    @Override
+    public synchronized boolean hasCrossInTimeWithManagerTasks(Task task) {
+        return hasCrossInTime(task);
+    }
+
+    private boolean hasCrossInTime(Task task) {
+        return timeIndex.findCross(task).isPresent();
+    }
+
+    /**
+     * Добавляет задачу в индекс пересечений и, если у неё есть время начала, в порядок приоритета
+     *
+     * @return новая версия порядка приоритета
+     */
+    private PersistentSortedSet<Task> schedule(PersistentSortedSet<Task> prioritizedTasks, Task task) {
+        timeIndex.add(task);
+        return task.getStartTime() == null ? prioritizedTasks : prioritizedTasks.add(task);
+    }
+
+    /**
+     * Убирает задачу из индекса пересечений и порядка приоритета
+     *
+     * @return новая версия порядка приоритета
+     */
+    private PersistentSortedSet<Task> unschedule(PersistentSortedSet<Task> prioritizedTasks, Task task) {
+        timeIndex.remove(task);
+        return task.getStartTime() == null ? prioritizedTasks : prioritizedTasks.remove(task);
+    }
+
+    /**
+     * Возвращает последнюю версию, которую видит писатель, включая ещё не опубликованную версию пакета
+     */
+    private TaskBoardSnapshot workingSnapshot() {
+        return pendingSnapshot != null ? pendingSnapshot : snapshot;
+    }
+
+    /**
+     * Публикует новую версию. Внутри пакета все изменения получают один номер версии,
+     * следующий за последним опубликованным
+     */
+    private void publish(TaskBoardSnapshot newSnapshot) {
+        if (isBatchRunning) {
+            pendingSnapshot = newSnapshot.withVersion(snapshot.getVersion() + 1);
+        } else {
+            snapshot = newSnapshot;
+        }
+    }
+
+    /**
+     * Возвращает копию эпика с изменённым списком подзадач, статусом и датами из индекса.
+     * Сохранённый эпик при этом не изменяется, так как он может быть виден читателям старых снимков.
+     * Эпик, скопированный в текущем пакете, ещё никому не виден и изменяется на месте
+     */
+    private Epic copyEpic(Epic epic, EpicIndex epicIndex, Consumer<ArrayList<Integer>> subtasksIdListChange) {
+        Epic epicCopy = unpublishedEpics.contains(epic) ? epic : epic.getCopy();
+        if (isBatchRunning) {
+            unpublishedEpics.add(epicCopy);
+        }
+        subtasksIdListChange.accept(epicCopy.getSubtasksIdList());
+        applyEpicIndex(epicCopy, epicIndex);
+        return epicCopy;
+    }
+
+    private void applyEpicIndex(Epic epic, EpicIndex epicIndex) {
+        epic.setStatus(epicIndex.getStatus());
+        epic.setStartTime(epicIndex.getStartTime());
+        epic.setEndTime(epicIndex.getEndTime());
+        epic.setDuration(epicIndex.getDuration());
+    }
+
+    /**
+     * Возвращает индекс эпика из менеджера.
+     * Для эпика, которого нет в менеджере, строит временный индекс по его списку подзадач
+     */
+    private EpicIndex getEpicIndex(Epic epic) {
+        EpicIndex epicIndex = epicIndexes.get(epic.getId());
+        if (epicIndex != null) {
+            return epicIndex;
+        }
+
+        EpicIndex calculatedIndex = new EpicIndex();
+        PersistentIntMap<Subtask> currentSubtasks = workingSnapshot().subtasks();
+        for (Integer subtaskId : epic.getSubtasksIdList()) {
+            Subtask subtask = currentSubtasks.get(subtaskId);
+            if (subtask != null) {
+                calculatedIndex.addSubtask(subtask);
+            }
+        }
+        return calculatedIndex;
+    }
+
+    private static <T> ArrayList<T> toList(Iterable<? extends T> items, int size) {
+        ArrayList<T> list = new ArrayList<>(size);
+        items.forEach(list::add);
+        return list;
+    }
+}
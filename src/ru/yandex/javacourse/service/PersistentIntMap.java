@@ -0,0 +1,240 @@
+package ru.yandex.javacourse.service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Неизменяемое отображение неотрицательных int-ключей в значения.
+ * Реализовано как префиксное дерево с ветвлением 32 и битовыми масками в узлах (в стиле HAMT):
+ * каждый уровень разбирает 5 бит ключа, начиная со старших, а узел хранит только занятые ячейки.
+ * Запись возвращает новое отображение и копирует только путь от корня до ключа,
+ * остальные узлы разделяются между версиями. Глубина не превышает 7 уровней.
+ * Обход идёт в порядке возрастания ключей.
+ */
+final class PersistentIntMap<V> implements Iterable<V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 30;
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0, 0);
+
+    private final Node root;
+    private final int shift;
+    private final int size;
+
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] array;
+
+        private Node(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+    }
+
+    private PersistentIntMap(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        if (root == null || !fits(key, shift)) {
+            return null;
+        }
+        Node node = root;
+        for (int level = shift; ; level -= BITS) {
+            int bit = bit(key, level);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object child = node.array[index(node.bitmap, bit)];
+            if (level == 0) {
+                return (V) child;
+            }
+            node = (Node) child;
+        }
+    }
+
+    /**
+     * Возвращает новую версию отображения с заданным значением по ключу
+     *
+     * @throws IllegalArgumentException если ключ отрицательный или значение равно null
+     */
+    PersistentIntMap<V> put(int key, V value) {
+        if (key < 0 || value == null) {
+            throw new IllegalArgumentException("Ключ должен быть неотрицательным, а значение не null");
+        }
+        if (root == null) {
+            int rootShift = 0;
+            while (!fits(key, rootShift)) {
+                rootShift += BITS;
+            }
+            return new PersistentIntMap<>(path(rootShift, key, value), rootShift, 1);
+        }
+
+        Node newRoot = root;
+        int newShift = shift;
+        while (!fits(key, newShift)) {
+            newRoot = new Node(1, new Object[]{newRoot});
+            newShift += BITS;
+        }
+        int newSize = containsKey(key) ? size : size + 1;
+        return new PersistentIntMap<>(put(newRoot, newShift, key, value), newShift, newSize);
+    }
+
+    /**
+     * Возвращает новую версию отображения без заданного ключа.
+     * Если ключа нет, возвращает текущую версию
+     */
+    PersistentIntMap<V> remove(int key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        Node newRoot = remove(root, shift, key);
+        if (newRoot == null) {
+            return empty();
+        }
+        return new PersistentIntMap<>(newRoot, shift, size - 1);
+    }
+
+    /**
+     * Обходит значения в порядке возрастания ключей
+     */
+    @Override
+    public Iterator<V> iterator() {
+        return new ValueIterator<>(root, shift);
+    }
+
+    private static Node put(Node node, int level, int key, Object value) {
+        int bit = bit(key, level);
+        int index = index(node.bitmap, bit);
+        if ((node.bitmap & bit) != 0) {
+            Object[] array = node.array.clone();
+            array[index] = level == 0 ? value : put((Node) node.array[index], level - BITS, key, value);
+            return new Node(node.bitmap, array);
+        }
+
+        Object[] array = new Object[node.array.length + 1];
+        System.arraycopy(node.array, 0, array, 0, index);
+        array[index] = level == 0 ? value : path(level - BITS, key, value);
+        System.arraycopy(node.array, index, array, index + 1, node.array.length - index);
+        return new Node(node.bitmap | bit, array);
+    }
+
+    private static Node remove(Node node, int level, int key) {
+        int bit = bit(key, level);
+        int index = index(node.bitmap, bit);
+        if (level > 0) {
+            Node child = remove((Node) node.array[index], level - BITS, key);
+            if (child != null) {
+                Object[] array = node.array.clone();
+                array[index] = child;
+                return new Node(node.bitmap, array);
+            }
+        }
+
+        if (node.bitmap == bit) {
+            return null;
+        }
+        Object[] array = new Object[node.array.length - 1];
+        System.arraycopy(node.array, 0, array, 0, index);
+        System.arraycopy(node.array, index + 1, array, index, array.length - index);
+        return new Node(node.bitmap & ~bit, array);
+    }
+
+    /**
+     * Строит цепочку узлов от заданного уровня до значения
+     */
+    private static Node path(int level, int key, Object value) {
+        Object child = level == 0 ? value : path(level - BITS, key, value);
+        return new Node(bit(key, level), new Object[]{child});
+    }
+
+    private static boolean fits(int key, int level) {
+        return key >= 0 && (level >= MAX_SHIFT || key >>> (level + BITS) == 0);
+    }
+
+    private static int bit(int key, int level) {
+        return 1 << ((key >>> level) & MASK);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * Итератор по значениям с явным стеком узлов вместо рекурсии
+     */
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final Node[] nodes = new Node[MAX_SHIFT / BITS + 1];
+        private final int[] positions = new int[MAX_SHIFT / BITS + 1];
+        private int depth = -1;
+        private Object next;
+
+        private ValueIterator(Node root, int shift) {
+            if (root != null) {
+                depth = shift / BITS;
+                nodes[depth] = root;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Object value = next;
+            advance();
+            return (V) value;
+        }
+
+        /**
+         * Спускается к следующему значению. Уровень depth соответствует сдвигу depth * BITS
+         */
+        private void advance() {
+            next = null;
+            while (depth >= 0 && depth < nodes.length) {
+                Node node = nodes[depth];
+                if (node == null || positions[depth] == node.array.length) {
+                    nodes[depth] = null;
+                    positions[depth] = 0;
+                    depth++;
+                    continue;
+                }
+                Object child = node.array[positions[depth]++];
+                if (depth == 0) {
+                    next = child;
+                    return;
+                }
+                depth--;
+                nodes[depth] = (Node) child;
+                positions[depth] = 0;
+            }
+        }
+    }
+}
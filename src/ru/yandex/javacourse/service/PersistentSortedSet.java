@@ -0,0 +1,362 @@
+package ru.yandex.javacourse.service;
+
+import java.util.*;
+
+/**
+ * Неизменяемое упорядоченное множество.
+ * Реализовано как АВЛ-дерево: добавление и удаление возвращают новую версию и копируют только
+ * путь от корня до изменённого узла с поворотами на нём, остальные узлы разделяются между версиями.
+ * Поэтому каждая версия строится за O(log n) без сортировки всех элементов заново.
+ * Обход идёт в порядке компаратора.
+ */
+final class PersistentSortedSet<E> implements Iterable<E> {
+    private final Comparator<? super E> comparator;
+    private final Node<E> root;
+
+    private static final class Node<E> {
+        private final E value;
+        private final Node<E> left;
+        private final Node<E> right;
+        private final int height;
+        private final int size;
+
+        private Node(E value, Node<E> left, Node<E> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private PersistentSortedSet(Comparator<? super E> comparator, Node<E> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    static <E> PersistentSortedSet<E> empty(Comparator<? super E> comparator) {
+        return new PersistentSortedSet<>(comparator, null);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    boolean contains(E value) {
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = comparator.compare(value, node.value);
+            if (comparison == 0) {
+                return true;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает новую версию множества с заданным элементом.
+     * Равный по компаратору элемент заменяется
+     *
+     * @throws IllegalArgumentException если элемент равен null
+     */
+    PersistentSortedSet<E> add(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Элемент не может быть null");
+        }
+        return new PersistentSortedSet<>(comparator, add(root, value));
+    }
+
+    /**
+     * Возвращает новую версию множества без заданного элемента.
+     * Если элемента нет, возвращает текущую версию
+     */
+    PersistentSortedSet<E> remove(E value) {
+        if (value == null || !contains(value)) {
+            return this;
+        }
+        return new PersistentSortedSet<>(comparator, remove(root, value));
+    }
+
+    /**
+     * Обходит элементы в порядке компаратора
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new AscendingIterator<>(root);
+    }
+
+    /**
+     * Возвращает представление множества только для чтения.
+     * Обход, поиск и соседние элементы работают по дереву за O(log n) на шаг. Поддиапазоны и обратный порядок
+     * строятся из уже упорядоченных элементов за O(n) без сортировки
+     */
+    NavigableSet<E> asNavigableSet() {
+        return new NavigableView();
+    }
+
+    private Node<E> add(Node<E> node, E value) {
+        if (node == null) {
+            return new Node<>(value, null, null);
+        }
+        int comparison = comparator.compare(value, node.value);
+        if (comparison == 0) {
+            return new Node<>(value, node.left, node.right);
+        }
+        return comparison < 0
+                ? balance(node.value, add(node.left, value), node.right)
+                : balance(node.value, node.left, add(node.right, value));
+    }
+
+    private Node<E> remove(Node<E> node, E value) {
+        int comparison = comparator.compare(value, node.value);
+        if (comparison < 0) {
+            return balance(node.value, remove(node.left, value), node.right);
+        }
+        if (comparison > 0) {
+            return balance(node.value, node.left, remove(node.right, value));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<E> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.value, node.left, removeFirst(node.right));
+    }
+
+    private static <E> Node<E> removeFirst(Node<E> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.value, removeFirst(node.left), node.right);
+    }
+
+    /**
+     * Собирает узел и восстанавливает баланс одним или двумя поворотами, если высоты поддеревьев
+     * отличаются больше чем на 1
+     */
+    private static <E> Node<E> balance(E value, Node<E> left, Node<E> right) {
+        int difference = height(left) - height(right);
+        if (difference > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left.value, left.left, left.right);
+            }
+            return rotateRight(value, left, right);
+        }
+        if (difference < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.value, right.left, right.right);
+            }
+            return rotateLeft(value, left, right);
+        }
+        return new Node<>(value, left, right);
+    }
+
+    private static <E> Node<E> rotateRight(E value, Node<E> left, Node<E> right) {
+        return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+    }
+
+    private static <E> Node<E> rotateLeft(E value, Node<E> left, Node<E> right) {
+        return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Возвращает ближайший к заданному элемент
+     *
+     * @param isLower true для поиска меньшего элемента, false для большего
+     * @param isInclusive true, если равный элемент тоже подходит
+     */
+    private E nearest(E value, boolean isLower, boolean isInclusive) {
+        E found = null;
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = comparator.compare(value, node.value);
+            if (comparison == 0 && isInclusive) {
+                return node.value;
+            }
+            boolean isCandidate = isLower ? comparison > 0 : comparison < 0;
+            if (isCandidate) {
+                found = node.value;
+            }
+            node = isLower == isCandidate ? node.right : node.left;
+        }
+        return found;
+    }
+
+    /**
+     * Итератор по возрастанию с явным стеком левого пути вместо рекурсии
+     */
+    private static final class AscendingIterator<E> implements Iterator<E> {
+        private final ArrayDeque<Node<E>> path = new ArrayDeque<>();
+
+        private AscendingIterator(Node<E> root) {
+            pushLeft(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<E> node = path.pop();
+            pushLeft(node.right);
+            return node.value;
+        }
+
+        private void pushLeft(Node<E> node) {
+            for (; node != null; node = node.left) {
+                path.push(node);
+            }
+        }
+    }
+
+    /**
+     * Представление версии множества в виде NavigableSet только для чтения
+     */
+    private final class NavigableView extends AbstractSet<E> implements NavigableSet<E> {
+
+        @Override
+        public Iterator<E> iterator() {
+            return PersistentSortedSet.this.iterator();
+        }
+
+        @Override
+        public int size() {
+            return PersistentSortedSet.this.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object value) {
+            return value != null && PersistentSortedSet.this.contains((E) value);
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public E first() {
+            if (root == null) {
+                throw new NoSuchElementException();
+            }
+            Node<E> node = root;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node.value;
+        }
+
+        @Override
+        public E last() {
+            if (root == null) {
+                throw new NoSuchElementException();
+            }
+            Node<E> node = root;
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node.value;
+        }
+
+        @Override
+        public E lower(E value) {
+            return nearest(value, true, false);
+        }
+
+        @Override
+        public E floor(E value) {
+            return nearest(value, true, true);
+        }
+
+        @Override
+        public E ceiling(E value) {
+            return nearest(value, false, true);
+        }
+
+        @Override
+        public E higher(E value) {
+            return nearest(value, false, false);
+        }
+
+        @Override
+        public E pollFirst() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public E pollLast() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return sorted().descendingSet();
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return sorted().descendingIterator();
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            return sorted().subSet(fromElement, fromInclusive, toElement, toInclusive);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return sorted().headSet(toElement, inclusive);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return sorted().tailSet(fromElement, inclusive);
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+        /**
+         * Копирует элементы в TreeSet. Элементы уже упорядочены, поэтому TreeSet строится за O(n)
+         */
+        private NavigableSet<E> sorted() {
+            return Collections.unmodifiableNavigableSet(new TreeSet<>(this));
+        }
+    }
+}
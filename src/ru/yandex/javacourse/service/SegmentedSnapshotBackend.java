@@ -0,0 +1,247 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.ManagerSaveException;
+import ru.yandex.javacourse.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static ru.yandex.javacourse.service.FileBackedTaskManager.SEGMENT_SIZE;
+import static ru.yandex.javacourse.service.FileBackedTaskManager.SEGMENT_SUFFIX;
+
+/**
+ * Хранилище, которое делит задачи на сегменты по {@link FileBackedTaskManager#SEGMENT_SIZE} ID
+ * и переписывает только сегменты, изменённые с прошлой записи.
+ * Сегменты лежат в отдельных файлах CSV рядом с основным файлом, а основной файл хранит список сегментов
+ * с поколениями их файлов
+ */
+final class SegmentedSnapshotBackend extends SnapshotBackend {
+    private static final String SEGMENTS_SIGNATURE = "JKSG";
+    private static final String SEGMENTS_MANIFEST = SEGMENTS_SIGNATURE + "," + SEGMENT_SIZE;
+
+    private final BitSet dirtySegments = new BitSet();
+    private final BitSet failedSegments = new BitSet();
+    private final Map<Integer, Long> segmentGenerations;
+
+    private SegmentedSnapshotBackend(File file, Board board, Object monitor, Map<Integer, Long> segmentGenerations) {
+        super(file, board, monitor);
+        this.segmentGenerations = new TreeMap<>(segmentGenerations);
+    }
+
+    /**
+     * Создаёт хранилище для нового файла и удаляет оставшиеся рядом с ним файлы сегментов
+     */
+    static SegmentedSnapshotBackend create(File file, Board board, Object monitor) {
+        deleteSegmentFiles(file, Map.of());
+        return new SegmentedSnapshotBackend(file, board, monitor, Map.of());
+    }
+
+    /**
+     * Открывает хранилище загруженного файла. Файлы сегментов, которых нет в списке, остались
+     * от прерванной записи и удаляются
+     *
+     * @param generations поколения сегментов из основного файла
+     */
+    static SegmentedSnapshotBackend open(File file, Map<Integer, Long> generations, Board board, Object monitor) {
+        deleteSegmentFiles(file, generations);
+        return new SegmentedSnapshotBackend(file, board, monitor, generations);
+    }
+
+    static boolean isSegmented(byte[] header) {
+        return new String(header, StandardCharsets.UTF_8).equals(SEGMENTS_SIGNATURE);
+    }
+
+    @Override
+    public SnapshotFormat getFormat() {
+        return SnapshotFormat.SEGMENTED;
+    }
+
+    /**
+     * Отмечает сегмент задачи как изменённый, чтобы следующая запись переписала его
+     */
+    @Override
+    void markChanged(int id) {
+        dirtySegments.set(id / SEGMENT_SIZE);
+    }
+
+    @Override
+    void markAllChanged() {
+        dirtySegments.set(0, board.getMaxId() / SEGMENT_SIZE + 1);
+    }
+
+    /**
+     * Фиксирует задачи сегментов, изменённых с прошлой записи, вместе с сегментами, запись которых не удалась
+     */
+    @Override
+    SnapshotWrite prepareSnapshot() {
+        synchronized (failedSegments) {
+            dirtySegments.or(failedSegments);
+            failedSegments.clear();
+        }
+        BitSet writtenSegments = (BitSet) dirtySegments.clone();
+        Map<Integer, List<Task>> segments = new TreeMap<>();
+        for (int segment = writtenSegments.nextSetBit(0); segment >= 0;
+             segment = writtenSegments.nextSetBit(segment + 1)) {
+            segments.put(segment, board.freezeRange(segment * SEGMENT_SIZE, (segment + 1) * SEGMENT_SIZE));
+        }
+        FrozenBoard.Text text = board.freezeText();
+        dirtySegments.clear();
+        return new SnapshotWrite() {
+            @Override
+            public void write(boolean isSynced) {
+                try {
+                    writeSegments(encodeSegments(segments, text), isSynced);
+                } catch (ManagerSaveException exception) {
+                    discard();
+                    throw exception;
+                }
+            }
+
+            @Override
+            public void discard() {
+                synchronized (failedSegments) {
+                    failedSegments.or(writtenSegments);
+                }
+            }
+        };
+    }
+
+    /**
+     * Возвращает содержимое сегментов. Для сегмента без задач возвращается null
+     */
+    private static Map<Integer, byte[]> encodeSegments(Map<Integer, List<Task>> segments, FrozenBoard.Text text) {
+        Map<Integer, byte[]> segmentsBytes = new TreeMap<>();
+        for (Map.Entry<Integer, List<Task>> segment : segments.entrySet()) {
+            segmentsBytes.put(segment.getKey(), segment.getValue().isEmpty() ? null
+                    : FrozenBoard.encodeCsv(segment.getValue(), text));
+        }
+        return segmentsBytes;
+    }
+
+    /**
+     * Записывает сегменты в файлы рядом с основным файлом под новым поколением и последним шагом
+     * атомарно переписывает основной файл со списком сегментов и их поколений.
+     * Загрузка читает только перечисленные в основном файле сегменты, поэтому сбой на любом шаге
+     * оставляет на диске прежнее согласованное состояние. Опустевший сегмент убирается из списка.
+     * После замены списка файлы прежних поколений удаляются; файлы, которые не удалось удалить,
+     * и файлы прерванной записи удаляются при следующей загрузке
+     */
+    private void writeSegments(Map<Integer, byte[]> segments, boolean isSynced) {
+        synchronized (segmentGenerations) {
+            long generation = segmentGenerations.values().stream().mapToLong(Long::longValue).max().orElse(0) + 1;
+            Map<Integer, Long> writtenGenerations = new TreeMap<>(segmentGenerations);
+            List<File> writtenFiles = new ArrayList<>();
+            try {
+                for (Map.Entry<Integer, byte[]> segment : segments.entrySet()) {
+                    if (segment.getValue() == null) {
+                        writtenGenerations.remove(segment.getKey());
+                        continue;
+                    }
+                    File segmentFile = segmentFile(file, segment.getKey(), generation);
+                    writeSnapshot(segmentFile, segment.getValue(), isSynced);
+                    writtenFiles.add(segmentFile);
+                    writtenGenerations.put(segment.getKey(), generation);
+                }
+                writeSnapshot(file, encodeManifest(writtenGenerations), isSynced);
+            } catch (ManagerSaveException exception) {
+                writtenFiles.forEach(File::delete);
+                throw exception;
+            }
+
+            for (Map.Entry<Integer, Long> segment : segmentGenerations.entrySet()) {
+                if (!segment.getValue().equals(writtenGenerations.get(segment.getKey()))) {
+                    segmentFile(file, segment.getKey(), segment.getValue()).delete();
+                }
+            }
+            segmentGenerations.clear();
+            segmentGenerations.putAll(writtenGenerations);
+        }
+    }
+
+    /**
+     * Возвращает содержимое основного файла: заголовок формата и по строке «сегмент,поколение» на каждый сегмент
+     */
+    private static byte[] encodeManifest(Map<Integer, Long> generations) {
+        StringBuilder manifest = new StringBuilder(SEGMENTS_MANIFEST).append(System.lineSeparator());
+        for (Map.Entry<Integer, Long> segment : generations.entrySet()) {
+            manifest.append(segment.getKey()).append(',').append(segment.getValue()).append(System.lineSeparator());
+        }
+        return manifest.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Читает из основного файла поколения сегментов
+     */
+    static Map<Integer, Long> readManifest(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(SEGMENTS_MANIFEST)) {
+            throw new IOException("Неизвестный заголовок файла сегментов");
+        }
+        Map<Integer, Long> generations = new TreeMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int separatorIndex = line.indexOf(',');
+            try {
+                generations.put(Integer.parseInt(line.substring(0, separatorIndex)),
+                        Long.parseLong(line.substring(separatorIndex + 1)));
+            } catch (RuntimeException exception) {
+                throw new IOException("Повреждена строка файла сегментов: " + line, exception);
+            }
+        }
+        return generations;
+    }
+
+    /**
+     * Читает записи сегментов, перечисленных в основном файле, в порядке номеров сегментов
+     */
+    static List<Task> readSegments(File file, Map<Integer, Long> generations, ForkJoinPool pool)
+            throws IOException {
+        List<Task> records = new ArrayList<>();
+        for (Map.Entry<Integer, Long> segment : generations.entrySet()) {
+            records.addAll(CsvSnapshotReader.read(segmentFile(file, segment.getKey(), segment.getValue()).toPath(),
+                    pool));
+        }
+        return records;
+    }
+
+    static File segmentFile(File file, int segment, long generation) {
+        return new File(file.getPath() + SEGMENT_SUFFIX + segment + "." + generation);
+    }
+
+    /**
+     * Возвращает файл сегмента, указанный в основном файле, или null, если сегмента нет
+     */
+    static File findSegmentFile(File file, int segment) throws IOException {
+        Long generation = readManifest(file).get(segment);
+        return generation == null ? null : segmentFile(file, segment, generation);
+    }
+
+    /**
+     * Удаляет файлы сегментов, лежащие рядом с заданным файлом, кроме файлов заданных поколений
+     */
+    private static void deleteSegmentFiles(File file, Map<Integer, Long> keptGenerations) {
+        File directory = file.getAbsoluteFile().getParentFile();
+        String prefix = file.getName() + SEGMENT_SUFFIX;
+        File[] segmentFiles = directory.listFiles((dir, name) -> name.startsWith(prefix)
+                && name.substring(prefix.length()).matches("\\d+\\.\\d+"));
+        if (segmentFiles == null) {
+            return;
+        }
+        for (File segmentFile : segmentFiles) {
+            String[] parts = segmentFile.getName().substring(prefix.length()).split("\\.");
+            Long keptGeneration = keptGenerations.get(Integer.parseInt(parts[0]));
+            if (keptGeneration != null && keptGeneration == Long.parseLong(parts[1])) {
+                continue;
+            }
+            if (!segmentFile.delete()) {
+                throw new ManagerSaveException("Ошибка при удалении старого сегмента");
+            }
+        }
+    }
+}
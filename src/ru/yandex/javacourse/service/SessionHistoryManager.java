@@ -0,0 +1,357 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * Менеджер истории с отдельной историей для каждого клиента.
+ * Клиент текущего потока задаётся через {@link #setCurrentClient(String)}, например на время обработки
+ * HTTP-запроса. Вызовы без клиента работают с общей историей, как раньше; она обёрнута
+ * в {@link SynchronizedHistoryManager}, так как запросы могут обрабатываться в нескольких потоках.
+ * История клиента - ограниченный {@link HistoryIdList} только с ID задач, поэтому занимает несколько килобайт.
+ * Задачи находятся по ID в менеджере задач при вызове {@link #getHistory()}: удалённые задачи пропускаются
+ * и убираются из истории клиента, поэтому удаление не обходит истории всех клиентов.
+ * Удаления записываются в общий кольцевой журнал с номером. Заполненная история клиента перед вытеснением
+ * применяет удаления, которых ещё не видела, поэтому удалённые задачи не занимают места живых просмотров.
+ * Сессии лежат в ConcurrentHashMap: поиск выполняется за O(1) без общей блокировки,
+ * а история каждой сессии защищена своим монитором, поэтому запросы разных клиентов не ждут друг друга.
+ * Когда число сессий превышает заданное, сессии, к которым дольше всех не обращались, вытесняются пачкой
+ * под отдельной блокировкой вытеснения. Простаивающие сессии удаляются при обращении к ним
+ * и при периодическом обходе.
+ * Клиент хранится в ThreadLocal, поэтому вызовы менеджера задач должны выполняться в потоке запроса
+ */
+public class SessionHistoryManager implements HistoryManager {
+    public static final int DEFAULT_SESSION_CAPACITY = 100;
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final int EVICTION_BATCH_DIVISOR = 16;
+    private static final int DELETION_LOG_CAPACITY = 1024;
+
+    private final HistoryManager sharedHistory;
+    private final int sessionCapacity;
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+    private final ThreadLocal<String> currentClient = new ThreadLocal<>();
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private volatile long lastIdleSweepNanos = System.nanoTime();
+    private volatile IntFunction<Task> taskLookup = id -> null;
+    private final int[] deletedIds = new int[DELETION_LOG_CAPACITY];
+    private final TaskType[] deletedTypes = new TaskType[DELETION_LOG_CAPACITY];
+    private volatile long deletionsCount = 0;
+
+    private static final class Session {
+        private final HistoryIdList historyIds;
+        private final TaskType[] taskTypes;
+        private volatile long lastAccessNanos;
+        private long appliedDeletionsCount;
+
+        private Session(int capacity, long now, long deletionsCount) {
+            historyIds = new HistoryIdList(capacity);
+            taskTypes = new TaskType[capacity];
+            lastAccessNanos = now;
+            appliedDeletionsCount = deletionsCount;
+        }
+
+        private void removeAll(TaskType taskType) {
+            int slot = historyIds.first();
+            while (slot != HistoryIdList.NO_SLOT) {
+                int nextSlot = historyIds.next(slot);
+                if (taskTypes[slot] == taskType) {
+                    historyIds.remove(historyIds.idAt(slot));
+                }
+                slot = nextSlot;
+            }
+        }
+    }
+
+    /**
+     * Время обращения, зафиксированное для сортировки: сами сессии могут обновлять его параллельно
+     */
+    private record SessionAccess(String clientId, Session session, long lastAccessNanos) {
+    }
+
+    public SessionHistoryManager() {
+        this(Managers.getDefaultHistory(), DEFAULT_SESSION_CAPACITY, DEFAULT_MAX_SESSIONS, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param sharedHistory история для вызовов без клиента
+     * @param sessionCapacity максимальное количество задач в истории клиента
+     * @param maxSessions максимальное количество сессий
+     * @param idleTimeout время простоя, после которого сессия удаляется
+     */
+    public SessionHistoryManager(HistoryManager sharedHistory, int sessionCapacity, int maxSessions,
+                                 Duration idleTimeout) {
+        if (sessionCapacity <= 0 || maxSessions <= 0) {
+            throw new IllegalArgumentException("Размер истории и число сессий должны быть положительными");
+        }
+        this.sharedHistory = new SynchronizedHistoryManager(sharedHistory);
+        this.sessionCapacity = sessionCapacity;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    /**
+     * Задаёт клиента текущего потока
+     *
+     * @param clientId ключ клиента или null для общей истории
+     * @return прежний клиент потока, чтобы восстановить его после запроса
+     */
+    public String setCurrentClient(String clientId) {
+        String previousClientId = currentClient.get();
+        if (clientId == null) {
+            currentClient.remove();
+        } else {
+            currentClient.set(clientId);
+        }
+        return previousClientId;
+    }
+
+    public int getSessionsCount() {
+        evictionLock.lock();
+        try {
+            evictIdleSessions(System.nanoTime());
+        } finally {
+            evictionLock.unlock();
+        }
+        return sessions.size();
+    }
+
+    /**
+     * Возвращает текущие версии задач из истории клиента потока или общую историю, если клиент не задан
+     */
+    @Override
+    public List<Task> getHistory() {
+        String clientId = currentClient.get();
+        if (clientId == null) {
+            return sharedHistory.getHistory();
+        }
+
+        Session session = findSession(clientId, false);
+        if (session == null) {
+            return new ArrayList<>();
+        }
+
+        IntFunction<Task> lookup = taskLookup;
+        synchronized (session) {
+            HistoryIdList historyIds = session.historyIds;
+            List<Task> historyList = new ArrayList<>(historyIds.size());
+            int slot = historyIds.first();
+            while (slot != HistoryIdList.NO_SLOT) {
+                int id = historyIds.idAt(slot);
+                slot = historyIds.next(slot);
+                Task task = lookup.apply(id);
+                if (task == null) {
+                    historyIds.remove(id);
+                } else {
+                    historyList.add(task);
+                }
+            }
+            return historyList;
+        }
+    }
+
+    /**
+     * Переносит задачу в конец истории клиента. Если история заполнена, сначала применяет
+     * удаления из журнала, чтобы новый просмотр вытеснил самую старую живую задачу, а не удалённую
+     */
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        String clientId = currentClient.get();
+        if (clientId == null) {
+            sharedHistory.add(task);
+            return;
+        }
+
+        Session session = findSession(clientId, true);
+        synchronized (session) {
+            HistoryIdList historyIds = session.historyIds;
+            if (historyIds.size() == historyIds.capacity() && !historyIds.contains(task.getId())) {
+                applyDeletions(session);
+            }
+            session.taskTypes[historyIds.add(task.getId())] = TaskType.of(task);
+        }
+    }
+
+    /**
+     * Удаляет задачу из общей истории и из истории клиента потока и записывает удаление в журнал.
+     * Истории остальных клиентов применят удаление перед вытеснением или уберут задачу при запросе истории
+     */
+    @Override
+    public void remove(int id) {
+        sharedHistory.remove(id);
+        logDeletion(id, null);
+        String clientId = currentClient.get();
+        if (clientId == null) {
+            return;
+        }
+
+        Session session = sessions.get(clientId);
+        if (session != null) {
+            synchronized (session) {
+                session.historyIds.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Удаляет задачи типа из общей истории и записывает удаление в журнал,
+     * поэтому удаление не обходит все сессии: каждая применит его сама
+     */
+    @Override
+    public void removeAll(TaskType taskType) {
+        sharedHistory.removeAll(taskType);
+        logDeletion(0, taskType);
+    }
+
+    @Override
+    public void bind(IntFunction<Task> taskLookup) {
+        this.taskLookup = taskLookup;
+        sharedHistory.bind(taskLookup);
+    }
+
+    /**
+     * Находит сессию клиента и отмечает обращение к ней. Простаивающая сессия считается отсутствующей
+     *
+     * @param isCreated true, если сессию нужно создать, когда её нет
+     */
+    private Session findSession(String clientId, boolean isCreated) {
+        long now = System.nanoTime();
+        sweepIdleSessionsIfDue(now);
+        Session session = sessions.get(clientId);
+        if (session != null && now - session.lastAccessNanos > idleTimeoutNanos) {
+            sessions.remove(clientId, session);
+            session = null;
+        }
+        if (session == null) {
+            if (!isCreated) {
+                return null;
+            }
+            session = sessions.computeIfAbsent(clientId, key -> new Session(sessionCapacity, now, deletionsCount));
+            if (sessions.size() > maxSessions) {
+                evictLeastRecentlyUsed(now, session);
+            }
+        }
+        session.lastAccessNanos = now;
+        return session;
+    }
+
+    /**
+     * Записывает удаление в кольцевой журнал
+     *
+     * @param taskType тип для удаления всех задач типа или null для удаления по ID
+     */
+    private void logDeletion(int id, TaskType taskType) {
+        synchronized (deletedIds) {
+            int index = (int) (deletionsCount % DELETION_LOG_CAPACITY);
+            deletedIds[index] = id;
+            deletedTypes[index] = taskType;
+            deletionsCount++;
+        }
+    }
+
+    /**
+     * Применяет к истории сессии удаления из журнала, которых она ещё не видела. Вызывается под монитором сессии.
+     * Если журнал успел перезаписать часть из них, проверяет каждую задачу истории поиском в менеджере задач
+     */
+    private void applyDeletions(Session session) {
+        long count = deletionsCount;
+        if (session.appliedDeletionsCount == count) {
+            return;
+        }
+
+        boolean isLogOverwritten;
+        synchronized (deletedIds) {
+            count = deletionsCount;
+            isLogOverwritten = count - session.appliedDeletionsCount > DELETION_LOG_CAPACITY;
+            for (long i = session.appliedDeletionsCount; !isLogOverwritten && i < count; i++) {
+                int index = (int) (i % DELETION_LOG_CAPACITY);
+                if (deletedTypes[index] != null) {
+                    session.removeAll(deletedTypes[index]);
+                } else {
+                    session.historyIds.remove(deletedIds[index]);
+                }
+            }
+        }
+        session.appliedDeletionsCount = count;
+
+        if (isLogOverwritten) {
+            IntFunction<Task> lookup = taskLookup;
+            HistoryIdList historyIds = session.historyIds;
+            int slot = historyIds.first();
+            while (slot != HistoryIdList.NO_SLOT) {
+                int id = historyIds.idAt(slot);
+                slot = historyIds.next(slot);
+                if (lookup.apply(id) == null) {
+                    historyIds.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Раз в половину времени простоя обходит сессии и удаляет простаивающие.
+     * Если обход уже выполняет другой поток, не ждёт его
+     */
+    private void sweepIdleSessionsIfDue(long now) {
+        if (now - lastIdleSweepNanos < idleTimeoutNanos / 2 || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            lastIdleSweepNanos = now;
+            evictIdleSessions(now);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет простаивающие сессии, а если сессий всё ещё больше заданного числа, вытесняет пачку сессий,
+     * к которым дольше всех не обращались. Пачка с запасом делает сортировку редкой
+     *
+     * @param createdSession только что созданная сессия, которую нельзя вытеснять
+     */
+    private void evictLeastRecentlyUsed(long now, Session createdSession) {
+        evictionLock.lock();
+        try {
+            evictIdleSessions(now);
+            int excessCount = sessions.size() - maxSessions;
+            if (excessCount <= 0) {
+                return;
+            }
+
+            List<SessionAccess> accesses = new ArrayList<>(sessions.size());
+            sessions.forEach((clientId, session) -> {
+                if (session != createdSession) {
+                    accesses.add(new SessionAccess(clientId, session, session.lastAccessNanos));
+                }
+            });
+            accesses.sort(Comparator.comparingLong(SessionAccess::lastAccessNanos));
+            int evictedCount = Math.min(accesses.size(), excessCount + maxSessions / EVICTION_BATCH_DIVISOR);
+            for (int i = 0; i < evictedCount; i++) {
+                sessions.remove(accesses.get(i).clientId(), accesses.get(i).session());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет сессии, простаивающие дольше заданного времени. Вызывается под блокировкой вытеснения
+     */
+    private void evictIdleSessions(long now) {
+        sessions.values().removeIf(session -> now - session.lastAccessNanos > idleTimeoutNanos);
+    }
+}
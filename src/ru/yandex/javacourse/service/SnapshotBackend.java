@@ -0,0 +1,246 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.ManagerSaveException;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранилище, которое переписывает файл состояния снимками.
+ * Под монитором менеджера фиксируется только вид задач, а кодирование и запись выполняются
+ * в единственном фоновом потоке записи в порядке постановки.
+ * Изменение ставит запись снимка в очередь и не ждёт её: если в очереди уже ждёт не начатая запись снимка,
+ * её вид заменяется новым, поэтому изменения, пришедшие во время записи, пишутся одной следующей записью
+ */
+abstract class SnapshotBackend extends BatchedBackend {
+    protected final File file;
+    protected final Board board;
+    private ThreadPoolExecutor snapshotWriter;
+    private final Object snapshotQueue = new Object();
+    private QueuedSnapshot queuedSnapshot;
+    private ManagerSaveException snapshotFailure;
+
+    SnapshotBackend(File file, Board board, Object monitor) {
+        super(monitor);
+        this.file = file;
+        this.board = board;
+    }
+
+    /**
+     * Фиксирует вид задач для записи. Вызывается под монитором менеджера
+     */
+    abstract SnapshotWrite prepareSnapshot();
+
+    /**
+     * Отмечает задачу как изменённую с прошлой записи
+     */
+    abstract void markChanged(int id);
+
+    /**
+     * Отмечает все задачи как изменённые с прошлой записи
+     */
+    abstract void markAllChanged();
+
+    @Override
+    public void put(Task task) {
+        markChanged(task.getId());
+        changed();
+    }
+
+    @Override
+    public void delete(int id) {
+        markChanged(id);
+        changed();
+    }
+
+    @Override
+    public void deleteEpic(int epicId, List<Integer> subtaskIds) {
+        subtaskIds.forEach(this::markChanged);
+        markChanged(epicId);
+        changed();
+    }
+
+    @Override
+    public void clear(TaskType taskType) {
+        markAllChanged();
+        changed();
+    }
+
+    @Override
+    public CompletableFuture<Void> saveInBackground() {
+        return scheduleSnapshot();
+    }
+
+    @Override
+    public void compact() {
+        StorageBackend.await(scheduleSnapshot());
+    }
+
+    /**
+     * Ставит запись снимка в очередь и бросает ошибку предыдущей записи из очереди, если она была
+     */
+    @Override
+    protected void writeChange() {
+        scheduleSnapshot();
+        reportSnapshotFailure();
+    }
+
+    @Override
+    protected Runnable prepareBatch(boolean isSynced) {
+        CompletableFuture<Void> write = submitSnapshot(isSynced);
+        return () -> StorageBackend.await(write);
+    }
+
+    /**
+     * Фиксирует вид задач и ставит его запись в очередь, не дожидаясь её.
+     * Если в очереди уже ждёт не начатая запись снимка, её вид заменяется новым
+     *
+     * @return future, который завершается после записи вида с текущими изменениями
+     */
+    private CompletableFuture<Void> scheduleSnapshot() {
+        synchronized (snapshotQueue) {
+            if (queuedSnapshot != null) {
+                queuedSnapshot.snapshot.discard();
+                queuedSnapshot.snapshot = prepareSnapshot();
+                return queuedSnapshot.future;
+            }
+            QueuedSnapshot snapshot = new QueuedSnapshot(prepareSnapshot());
+            snapshot.future = executeWrite(snapshot::write);
+            queuedSnapshot = snapshot;
+            return snapshot.future;
+        }
+    }
+
+    /**
+     * Запись снимка в очереди, вид которой заменяется новым, пока запись не началась
+     */
+    private final class QueuedSnapshot {
+        private SnapshotWrite snapshot;
+        private CompletableFuture<Void> future;
+
+        private QueuedSnapshot(SnapshotWrite snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private void write() {
+            SnapshotWrite currentSnapshot;
+            synchronized (snapshotQueue) {
+                currentSnapshot = snapshot;
+                if (queuedSnapshot == this) {
+                    queuedSnapshot = null;
+                }
+            }
+            ManagerSaveException failure = null;
+            try {
+                currentSnapshot.write(false);
+            } catch (ManagerSaveException exception) {
+                failure = exception;
+            }
+            synchronized (snapshotQueue) {
+                snapshotFailure = failure;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Бросает ошибку последней записи снимка из очереди, если после неё не было успешной записи.
+     * Ошибка сообщается один раз: следующая запись уже содержит все изменения
+     */
+    private void reportSnapshotFailure() {
+        ManagerSaveException failure;
+        synchronized (snapshotQueue) {
+            failure = snapshotFailure;
+            snapshotFailure = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Фиксирует вид задач и ставит его запись в очередь за всеми уже поставленными.
+     * Вызывается под монитором менеджера, поэтому записи идут в порядке изменений
+     */
+    CompletableFuture<Void> submitSnapshot(boolean isSynced) {
+        SnapshotWrite snapshot = prepareSnapshot();
+        return submitWrite(() -> snapshot.write(isSynced));
+    }
+
+    /**
+     * Ставит запись в очередь за всеми уже поставленными. Ждущая запись снимка после этого
+     * больше не меняет свой вид, чтобы не записать изменения позже этой записи
+     */
+    CompletableFuture<Void> submitWrite(Runnable write) {
+        synchronized (snapshotQueue) {
+            queuedSnapshot = null;
+            return executeWrite(write);
+        }
+    }
+
+    /**
+     * Ставит запись в очередь единственного фонового потока записи.
+     * Поток создаётся при первой записи и завершается после простоя.
+     * Задачи этого потока не берут монитор менеджера, иначе сохранение под монитором ждало бы само себя
+     */
+    private CompletableFuture<Void> executeWrite(Runnable write) {
+        if (snapshotWriter == null) {
+            snapshotWriter = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "task-manager-snapshot-writer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return CompletableFuture.runAsync(write, snapshotWriter);
+    }
+
+    /**
+     * Записывает состояние во временный файл и атомарно заменяет им целевой файл
+     *
+     * @param isSynced true, если временный файл нужно сбросить на диск до замены
+     */
+    static void writeSnapshot(File target, byte[] data, boolean isSynced) {
+        File tempFile = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(data);
+            if (isSynced) {
+                out.getFD().sync();
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка во время работы метода автосохранения");
+        }
+
+        try {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка во время работы метода автосохранения");
+        }
+    }
+
+    /**
+     * Запись подготовленного снимка в файл
+     */
+    interface SnapshotWrite {
+        void write(boolean isSynced);
+
+        /**
+         * Отказывается от записи: изменения, которые она должна была записать, попадут в следующую запись
+         */
+        default void discard() {
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.javacourse.service;
+
+/**
+ * Формат файла состояния {@link FileBackedTaskManager}
+ */
+public enum SnapshotFormat {
+    /**
+     * Текстовый формат: заголовок и по строке CSV на задачу
+     */
+    CSV,
+    /**
+     * Двоичный формат {@link BinarySnapshotCodec}: компактнее и быстрее при сохранении и загрузке
+     */
+    BINARY,
+    /**
+     * Хранилище слотов {@link MappedRecordStore}: файл не переписывается целиком,
+     * каждое изменение переписывает только слот задачи в отображённой памяти
+     */
+    MAPPED,
+    /**
+     * Сегменты по {@link FileBackedTaskManager#SEGMENT_SIZE} ID в отдельных файлах CSV рядом с основным файлом.
+     * Запись переписывает только сегменты, в которых были изменения с прошлой записи, в файлы нового поколения,
+     * а основной файл со списком сегментов заменяется последним, поэтому запись применяется целиком или никак
+     */
+    SEGMENTED
+}
@@ -0,0 +1,239 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Потокобезопасная обёртка над менеджером задач для нагрузки, в которой преобладает чтение.
+ * Списки задач, эпиков и подзадач эпика читаются под общей блокировкой на чтение StampedLock,
+ * поэтому читатели не мешают друг другу. Оптимистичное чтение без блокировки здесь не используется:
+ * коллекции менеджера не потокобезопасны, и их обход во время записи может вернуть мусор или зависнуть.
+ * Список приоритетов читается из неизменяемого снимка, который сбрасывается при каждой записи
+ * и заново строится первым читателем под блокировкой на чтение. В отличие от {@link InMemoryTaskManager},
+ * представление приоритетов - это снимок на момент чтения, а не живое представление.
+ * Изменения и получение задачи по ID, которое пишет в историю, выполняются под блокировкой на запись
+ */
+public class StampedLockTaskManager implements TaskManager {
+    private final TaskManager taskManager;
+    private final StampedLock lock = new StampedLock();
+    private volatile NavigableSet<Task> prioritizedSnapshot;
+
+    public StampedLockTaskManager() {
+        this(new InMemoryTaskManager());
+    }
+
+    public StampedLockTaskManager(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return read(taskManager::getAllTasks);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(taskManager::deleteAllTasks);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return view(() -> taskManager.getTaskById(id));
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        return write(() -> taskManager.addTask(task));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> taskManager.updateTask(task));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        write(() -> taskManager.deleteTaskById(id));
+    }
+
+    /**
+     * Возвращает копии всех эпиков.
+     * Эпики в менеджере изменяются на месте, поэтому копируются под блокировкой на чтение
+     */
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        return read(() -> taskManager.getAllEpics().stream()
+                .map(Epic::getCopy)
+                .collect(Collectors.toCollection(ArrayList::new)));
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(taskManager::deleteAllEpics);
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return view(() -> taskManager.getEpicById(id));
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return write(() -> taskManager.addEpic(epic));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> taskManager.updateEpic(epic));
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        write(() -> taskManager.deleteEpicById(id));
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return read(taskManager::getAllSubtasks);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(taskManager::deleteAllSubtasks);
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return view(() -> taskManager.getSubtaskById(id));
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        return write(() -> taskManager.addSubtask(subtask));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> taskManager.updateSubtask(subtask));
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        write(() -> taskManager.deleteSubtaskById(id));
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasksByEpicId(int epicId) {
+        return read(() -> taskManager.getAllSubtasksByEpicId(epicId));
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        write(() -> taskManager.updateEpicStatus(epic));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(taskManager::getHistory);
+    }
+
+    @Override
+    public void updateEpicDates(Epic epic) {
+        write(() -> taskManager.updateEpicDates(epic));
+    }
+
+    @Override
+    public TreeSet<Task> getPrioritizedTasks() {
+        return new TreeSet<>(getPrioritizedTasksView());
+    }
+
+    /**
+     * Возвращает неизменяемый снимок списка приоритетов.
+     * В отличие от живого представления {@link InMemoryTaskManager#getPrioritizedTasksView()},
+     * снимок не меняется при последующих изменениях менеджера: чтобы увидеть их, нужно запросить его заново
+     */
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        NavigableSet<Task> snapshot = prioritizedSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return read(() -> {
+            NavigableSet<Task> currentSnapshot = prioritizedSnapshot;
+            if (currentSnapshot == null) {
+                currentSnapshot = Collections.unmodifiableNavigableSet(taskManager.getPrioritizedTasks());
+                prioritizedSnapshot = currentSnapshot;
+            }
+            return currentSnapshot;
+        });
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Некорректные параметры страницы");
+        }
+        return getPrioritizedTasksView().stream()
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public boolean ifTasksCrossInTime(Task firstTask, Task secondTask) {
+        return taskManager.ifTasksCrossInTime(firstTask, secondTask);
+    }
+
+    @Override
+    public boolean hasCrossInTimeWithManagerTasks(Task task) {
+        return read(() -> taskManager.hasCrossInTimeWithManagerTasks(task));
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Выполняет изменение под блокировкой на запись и сбрасывает снимок списка приоритетов
+     */
+    private <T> T write(Supplier<T> writer) {
+        long stamp = lock.writeLock();
+        try {
+            prioritizedSnapshot = null;
+            return writer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Получает задачу по ID под блокировкой на запись, так как получение пишет в историю.
+     * Список приоритетов при этом не меняется, поэтому снимок не сбрасывается
+     */
+    private <T> T view(Supplier<T> viewer) {
+        long stamp = lock.writeLock();
+        try {
+            return viewer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void write(Runnable writer) {
+        write(() -> {
+            writer.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.ManagerSaveException;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Способ хранения состояния {@link FileBackedTaskManager} на диске.
+ * Менеджер применяет изменение в памяти и передаёт его хранилищу, а хранилище само решает,
+ * когда и как его записать. Методы вызываются под монитором менеджера
+ */
+interface StorageBackend {
+
+    SnapshotFormat getFormat();
+
+    /**
+     * Сохраняет добавленную или изменённую задачу. Задача передаётся с текстом
+     */
+    void put(Task task);
+
+    void delete(int id);
+
+    /**
+     * Сохраняет удаление эпика вместе с его подзадачами
+     */
+    void deleteEpic(int epicId, List<Integer> subtaskIds);
+
+    void clear(TaskType taskType);
+
+    /**
+     * Фиксирует текущее состояние и ставит его запись в очередь, не дожидаясь её
+     *
+     * @return future, который завершается после записи или с ManagerSaveException
+     */
+    CompletableFuture<Void> saveInBackground();
+
+    /**
+     * Записывает всё состояние и ждёт записи. Накопленные записи изменений после этого не нужны
+     */
+    void compact();
+
+    default void close() {
+    }
+
+    default void startBackgroundFlush(Duration flushWindow, Durability durability) {
+        throw new IllegalStateException("Формат " + getFormat() + " не поддерживает фоновое сохранение");
+    }
+
+    default void stopBackgroundFlush() {
+    }
+
+    default Duration getFlushLag() {
+        return Duration.ZERO;
+    }
+
+    default Duration getLastFlushLag() {
+        return Duration.ZERO;
+    }
+
+    default void setCompactionThreshold(int compactionThreshold) {
+    }
+
+    default void awaitCompaction() {
+    }
+
+    /**
+     * Ждёт окончания фоновой записи и пробрасывает её ошибку без обёртки
+     */
+    static void await(CompletableFuture<Void> write) {
+        try {
+            write.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof ManagerSaveException cause) {
+                throw cause;
+            }
+            throw new ManagerSaveException("Ошибка во время работы метода автосохранения");
+        }
+    }
+
+    /**
+     * Доступ хранилища к задачам менеджера. Методы вызываются под монитором менеджера
+     */
+    interface Board {
+
+        /**
+         * Возвращает неизменяемый вид всех задач
+         */
+        FrozenBoard freeze();
+
+        /**
+         * Возвращает задачи с ID из диапазона в порядке ID. Эпики копируются, так как меняются на месте
+         */
+        List<Task> freezeRange(int firstId, int endId);
+
+        FrozenBoard.Text freezeText();
+
+        int getMaxId();
+    }
+}
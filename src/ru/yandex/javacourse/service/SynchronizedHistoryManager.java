@@ -0,0 +1,44 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Потокобезопасная обёртка над менеджером истории.
+ * Все обращения к исходному менеджеру выполняются под одним монитором
+ */
+public class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager historyManager;
+
+    public SynchronizedHistoryManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        historyManager.add(task);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        historyManager.remove(id);
+    }
+
+    @Override
+    public synchronized void removeAll(TaskType taskType) {
+        historyManager.removeAll(taskType);
+    }
+
+    @Override
+    public synchronized void bind(IntFunction<Task> taskLookup) {
+        historyManager.bind(taskLookup);
+    }
+}
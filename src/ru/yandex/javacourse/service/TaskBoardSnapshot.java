@@ -0,0 +1,138 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.util.*;
+
+/**
+ * Согласованный снимок всех задач {@link MvccTaskManager} на момент публикации одной версии.
+ * Снимок неизменяем и получается за O(1) без блокировок. Объекты задач разделяются между версиями,
+ * поэтому читатель не должен их изменять.
+ */
+public final class TaskBoardSnapshot {
+    static final Comparator<Task> PRIORITY_ORDER = Comparator.comparing(Task::getStartTime)
+            .thenComparingInt(Task::getId);
+    static final TaskBoardSnapshot EMPTY = new TaskBoardSnapshot(0, PersistentIntMap.empty(),
+            PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentSortedSet.empty(PRIORITY_ORDER));
+
+    private final long version;
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+    private final PersistentSortedSet<Task> prioritizedTasks;
+
+    private TaskBoardSnapshot(long version, PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                              PersistentIntMap<Subtask> subtasks, PersistentSortedSet<Task> prioritizedTasks) {
+        this.version = version;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.prioritizedTasks = prioritizedTasks;
+    }
+
+    /**
+     * Возвращает номер версии. Каждая запись в менеджере или пакет записей публикует версию со следующим номером
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Optional<Task> getTask(int id) {
+        return Optional.ofNullable(tasks.get(id));
+    }
+
+    public Optional<Epic> getEpic(int id) {
+        return Optional.ofNullable(epics.get(id));
+    }
+
+    public Optional<Subtask> getSubtask(int id) {
+        return Optional.ofNullable(subtasks.get(id));
+    }
+
+    /**
+     * Возвращает задачи в порядке возрастания ID без копирования
+     */
+    public Iterable<Task> getTasks() {
+        return tasks;
+    }
+
+    public Iterable<Epic> getEpics() {
+        return epics;
+    }
+
+    public Iterable<Subtask> getSubtasks() {
+        return subtasks;
+    }
+
+    public int getTasksCount() {
+        return tasks.size();
+    }
+
+    public int getEpicsCount() {
+        return epics.size();
+    }
+
+    public int getSubtasksCount() {
+        return subtasks.size();
+    }
+
+    /**
+     * Возвращает подзадачи эпика в порядке его списка ID.
+     * Для неизвестного эпика возвращает пустой список
+     */
+    public List<Subtask> getSubtasksByEpicId(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return List.of();
+        }
+
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtasksIdList().size());
+        for (Integer subtaskId : epic.getSubtasksIdList()) {
+            epicSubtasks.add(subtasks.get(subtaskId));
+        }
+        return epicSubtasks;
+    }
+
+    /**
+     * Возвращает задачи и подзадачи с временем начала в порядке приоритета без копирования.
+     * Порядок хранится в неизменяемом дереве, которое менеджер обновляет вместе с отображениями,
+     * поэтому чтение после записи не сортирует задачи заново
+     */
+    public NavigableSet<Task> getPrioritizedTasks() {
+        return prioritizedTasks.asNavigableSet();
+    }
+
+    PersistentIntMap<Task> tasks() {
+        return tasks;
+    }
+
+    PersistentIntMap<Epic> epics() {
+        return epics;
+    }
+
+    PersistentIntMap<Subtask> subtasks() {
+        return subtasks;
+    }
+
+    PersistentSortedSet<Task> prioritizedTasks() {
+        return prioritizedTasks;
+    }
+
+    /**
+     * Возвращает следующую версию снимка с заданными отображениями и порядком приоритета
+     */
+    TaskBoardSnapshot next(PersistentIntMap<Task> newTasks, PersistentIntMap<Epic> newEpics,
+                           PersistentIntMap<Subtask> newSubtasks, PersistentSortedSet<Task> newPrioritizedTasks) {
+        return new TaskBoardSnapshot(version + 1, newTasks, newEpics, newSubtasks, newPrioritizedTasks);
+    }
+
+    /**
+     * Возвращает тот же снимок с заданным номером версии
+     */
+    TaskBoardSnapshot withVersion(long newVersion) {
+        return newVersion == version ? this
+                : new TaskBoardSnapshot(newVersion, tasks, epics, subtasks, prioritizedTasks);
+    }
+}
@@ -5,6 +5,7 @@ import ru.yandex.javacourse.model.Subtask;
 import ru.yandex.javacourse.model.Task;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.TreeSet;
 
 public interface TaskManager {
@@ -124,6 +125,16 @@ public interface TaskManager {
      */
     TreeSet<Task> getPrioritizedTasks();
 
+    /**
+     * Возвращает доступное только для чтения представление задач в порядке приоритета
+     */
+    NavigableSet<Task> getPrioritizedTasksView();
+
+    /**
+     * Возвращает страницу задач в порядке приоритета
+     */
+    List<Task> getPrioritizedTasks(int offset, int limit);
+
     /**
      * Проверяет, пересекаются ли две задачи по времени
      */
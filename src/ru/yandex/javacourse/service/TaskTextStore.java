@@ -0,0 +1,154 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.exceptions.ManagerSaveException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Файл имён и описаний задач, которые менеджер не держит в памяти.
+ * Имя и описание задачи записываются в конец файла одной записью, задача хранит только смещение записи.
+ * Запись читается позиционным чтением, последние прочитанные записи лежат в ограниченном кэше.
+ * Записи не изменяются, поэтому кэш не нужно сбрасывать: новая версия текста получает новое смещение.
+ * Место старых версий не переиспользуется, файл пересоздаётся при следующем открытии
+ */
+final class TaskTextStore implements AutoCloseable {
+    static final String TEXT_SUFFIX = ".text";
+    private static final int HEADER_SIZE = 8;
+    private static final int NULL_LENGTH = -1;
+
+    private final FileChannel channel;
+    private final Map<Long, TaskText> cache;
+    private long size = 0;
+
+    /**
+     * Имя и описание задачи
+     */
+    record TaskText(String name, String description) {
+    }
+
+    private TaskTextStore(FileChannel channel, int cacheCapacity) {
+        this.channel = channel;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TaskText> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+    }
+
+    /**
+     * Открывает пустой файл текста, прежнее содержимое отбрасывается
+     *
+     * @param cacheCapacity максимальное количество записей в кэше
+     */
+    static TaskTextStore open(File file, int cacheCapacity) throws IOException {
+        if (cacheCapacity < 0) {
+            throw new IllegalArgumentException("Размер кэша текста не может быть отрицательным");
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new TaskTextStore(channel, cacheCapacity);
+    }
+
+    /**
+     * Дописывает имя и описание задачи в конец файла
+     *
+     * @return смещение записи
+     */
+    synchronized long append(String name, String description) {
+        byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        byte[] descriptionBytes = description == null ? null : description.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + length(nameBytes) + length(descriptionBytes));
+        buffer.putInt(nameBytes == null ? NULL_LENGTH : nameBytes.length);
+        buffer.putInt(descriptionBytes == null ? NULL_LENGTH : descriptionBytes.length);
+        if (nameBytes != null) {
+            buffer.put(nameBytes);
+        }
+        if (descriptionBytes != null) {
+            buffer.put(descriptionBytes);
+        }
+        buffer.flip();
+
+        long offset = size;
+        try {
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer, size);
+            }
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка при записи текста задачи");
+        }
+        return offset;
+    }
+
+    /**
+     * Возвращает имя и описание по смещению записи: из кэша или позиционным чтением файла
+     */
+    TaskText read(long offset) {
+        synchronized (cache) {
+            TaskText text = cache.get(offset);
+            if (text != null) {
+                return text;
+            }
+        }
+
+        TaskText text = readUncached(offset);
+        synchronized (cache) {
+            cache.put(offset, text);
+        }
+        return text;
+    }
+
+    /**
+     * Читает запись из файла, не помещая её в кэш. Используется при полном сохранении,
+     * чтобы обход всех задач не вытеснял из кэша часто читаемые записи
+     */
+    TaskText readUncached(long offset) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, offset);
+            header.flip();
+            int nameLength = header.getInt();
+            int descriptionLength = header.getInt();
+
+            ByteBuffer body = ByteBuffer.allocate(Math.max(nameLength, 0) + Math.max(descriptionLength, 0));
+            readFully(body, offset + HEADER_SIZE);
+            byte[] bytes = body.array();
+            String name = nameLength == NULL_LENGTH ? null
+                    : new String(bytes, 0, nameLength, StandardCharsets.UTF_8);
+            String description = descriptionLength == NULL_LENGTH ? null
+                    : new String(bytes, Math.max(nameLength, 0), descriptionLength, StandardCharsets.UTF_8);
+            return new TaskText(name, description);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка при чтении текста задачи");
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Ошибка при закрытии файла текста");
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Запись текста обрезана");
+            }
+        }
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+}
@@ -0,0 +1,211 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Task;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Индекс временных интервалов задач для быстрой проверки пересечений.
+ * Реализован как декартово дерево (treap) по ключу (startTime, id), где каждый узел
+ * дополнительно хранит максимальное время окончания в своём поддереве.
+ * Добавление, удаление и поиск пересечения выполняются за O(log n) в среднем.
+ * В индекс попадают только задачи, у которых заданы и время начала, и время окончания.
+ */
+class TimeIntervalIndex {
+    private final Random random = new Random();
+    private Node root;
+    private int size = 0;
+
+    private static class Node {
+        private final Task task;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int priority;
+        private LocalDateTime maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(Task task, int priority) {
+            this.task = task;
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+
+    /**
+     * Добавляет задачу в индекс.
+     * Задачи без времени начала или окончания игнорируются
+     */
+    public void add(Task task) {
+        if (!isIndexable(task)) {
+            return;
+        }
+        root = insert(root, new Node(task, random.nextInt()));
+        size++;
+    }
+
+    /**
+     * Удаляет задачу из индекса.
+     * Для поиска узла используются время начала и id переданной задачи,
+     * поэтому передавать нужно ту версию задачи, которая была добавлена в индекс
+     */
+    public void remove(Task task) {
+        if (!isIndexable(task)) {
+            return;
+        }
+        root = remove(root, task.getStartTime(), task.getId());
+    }
+
+    /**
+     * Удаляет все задачи из индекса
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ищет в индексе задачу, пересекающуюся по времени с заданной.
+     * Сама задача (равная по equals) пересечением не считается.
+     * Границы интервалов включаются: касание концами тоже считается пересечением.
+     *
+     * @param task задача для проверки
+     * @return первая найденная пересекающаяся задача или пустой Optional
+     */
+    public Optional<Task> findCross(Task task) {
+        if (!isIndexable(task)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(findCross(root, task, task.getStartTime(), task.getEndTime()));
+    }
+
+    private Task findCross(Node node, Task task, LocalDateTime start, LocalDateTime end) {
+        if (node == null || node.maxEnd.isBefore(start)) {
+            return null;
+        }
+
+        Task leftCross = findCross(node.left, task, start, end);
+        if (leftCross != null) {
+            return leftCross;
+        }
+
+        if (node.start.isAfter(end)) {
+            return null;
+        }
+
+        if (!node.end.isBefore(start) && !node.task.equals(task)) {
+            return node.task;
+        }
+        return findCross(node.right, task, start, end);
+    }
+
+    private boolean isIndexable(Task task) {
+        return task != null && task.getStartTime() != null && task.getEndTime() != null;
+    }
+
+    private Node insert(Node node, Node item) {
+        if (node == null) {
+            return item;
+        }
+        if (item.priority > node.priority) {
+            Node[] parts = split(node, item.start, item.task.getId());
+            item.left = parts[0];
+            item.right = parts[1];
+            update(item);
+            return item;
+        }
+        if (compare(item.start, item.task.getId(), node) < 0) {
+            node.left = insert(node.left, item);
+        } else {
+            node.right = insert(node.right, item);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node remove(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp == 0) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else {
+            node.right = remove(node.right, start, id);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Делит поддерево на две части: с ключами меньше заданного и все остальные
+     */
+    private Node[] split(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(start, id, node) > 0) {
+            Node[] parts = split(node.right, start, id);
+            node.right = parts[0];
+            update(node);
+            return new Node[]{node, parts[1]};
+        } else {
+            Node[] parts = split(node.left, start, id);
+            node.left = parts[1];
+            update(node);
+            return new Node[]{parts[0], node};
+        }
+    }
+
+    /**
+     * Объединяет два поддерева, где все ключи левого меньше ключей правого
+     */
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            update(right);
+            return right;
+        }
+    }
+
+    private void update(Node node) {
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private int compare(LocalDateTime start, int id, Node node) {
+        int cmp = start.compareTo(node.start);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Integer.compare(id, node.task.getId());
+    }
+}
@@ -17,10 +17,13 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpTaskServerPrioritizedTest {
     private static final String EPIC_NAME = "Эпик";
@@ -102,4 +105,49 @@ public class HttpTaskServerPrioritizedTest {
         // then
         assertEquals(HttpStatusCode.NOT_FOUND.getCode(), response.statusCode());
     }
+
+    @Test
+    @DisplayName("Должен возвращать страницу приоритизированных задач при передаче параметров limit и offset")
+    public void test_getPrioritizedTasks_WhenLimitAndOffsetPassed_ShouldReturnPage()
+            throws IOException, InterruptedException {
+        //given
+        URI url = URI.create("http://localhost:8080/prioritized?offset=1&limit=1");
+        Epic epic = manager.addEpic(new Epic(EPIC_NAME, EPIC_DESCRIPTION));
+        manager.addSubtask(new Subtask(SUBTASK_NAME_1, SUBTASK_DESCRIPTION_1, epic.getId(),
+                Duration.ofMinutes(30), LocalDateTime.now()));
+        manager.addSubtask(new Subtask(SUBTASK_NAME_2, SUBTASK_DESCRIPTION_2, epic.getId(),
+                Duration.ofMinutes(30), LocalDateTime.now().plusHours(1)));
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(url)
+                .GET()
+                .build();
+
+        //when
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Task> page = manager.getPrioritizedTasks(1, 1);
+
+        // then
+        assertEquals(HttpStatusCode.OK.getCode(), response.statusCode());
+        assertEquals(1, page.size(), "Некорректное количество задач на странице");
+        assertEquals(SUBTASK_NAME_2, page.get(0).getName(), "Некорректное имя задачи на странице");
+        assertTrue(response.body().contains(SUBTASK_NAME_2), "В ответе нет задачи со страницы");
+        assertFalse(response.body().contains(SUBTASK_NAME_1), "В ответе есть задача не со страницы");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать 500 при некорректных параметрах страницы")
+    public void test_getPrioritizedTasks_WhenLimitNotNumber_ShouldReturn500() throws IOException, InterruptedException {
+        //given
+        URI url = URI.create("http://localhost:8080/prioritized?limit=test");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(url)
+                .GET()
+                .build();
+
+        //when
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        // then
+        assertEquals(HttpStatusCode.INTERNAL_SERVER_ERROR.getCode(), response.statusCode());
+    }
 }
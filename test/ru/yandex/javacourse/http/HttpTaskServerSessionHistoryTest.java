@@ -0,0 +1,129 @@
+package ru.yandex.javacourse.http;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.http.handler.SessionHttpHandler;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.service.ConcurrentTaskManager;
+import ru.yandex.javacourse.service.SessionHistoryManager;
+import ru.yandex.javacourse.service.TaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HttpTaskServerSessionHistoryTest {
+    private static final String TASK_NAME_1 = "Задача 1";
+    private static final String TASK_NAME_2 = "Задача 2";
+    private static final String TASK_DESCRIPTION = "Описание задачи";
+
+    SessionHistoryManager sessionHistory = new SessionHistoryManager();
+    TaskManager manager = new ConcurrentTaskManager(sessionHistory);
+    ExecutorService serverExecutor = Executors.newFixedThreadPool(4);
+    HttpTaskServer taskServer = new HttpTaskServer(manager, 8080, serverExecutor, sessionHistory);
+    HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void setUp() {
+        try {
+            taskServer.start();
+        } catch (IOException exception) {
+            System.out.println("Возникла ошибка во время старта тестов");
+        }
+    }
+
+    @AfterEach
+    public void shutDown() {
+        taskServer.stop();
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Должен возвращать каждому клиенту его историю по заголовку клиента")
+    public void test_getHistory_WhenClientHeaderSent_ShouldReturnClientHistory()
+            throws IOException, InterruptedException {
+        //given
+        Task task1 = manager.addTask(new Task(TASK_NAME_1, TASK_DESCRIPTION));
+        Task task2 = manager.addTask(new Task(TASK_NAME_2, TASK_DESCRIPTION));
+        send("/tasks/" + task1.getId(), "client-1");
+        send("/tasks/" + task2.getId(), "client-2");
+        send("/tasks/" + task1.getId(), "client-2");
+
+        //when
+        JsonArray firstHistory = JsonParser.parseString(send("/history", "client-1").body()).getAsJsonArray();
+        JsonArray secondHistory = JsonParser.parseString(send("/history", "client-2").body()).getAsJsonArray();
+        JsonArray sharedHistory = JsonParser.parseString(send("/history", null).body()).getAsJsonArray();
+
+        //then
+        assertEquals(1, firstHistory.size(), "Некорректное количество задач в истории первого клиента");
+        assertEquals(TASK_NAME_1, firstHistory.get(0).getAsJsonObject().get("name").getAsString(),
+                "Некорректное имя задачи в истории первого клиента");
+        assertEquals(2, secondHistory.size(), "Некорректное количество задач в истории второго клиента");
+        assertEquals(TASK_NAME_2, secondHistory.get(0).getAsJsonObject().get("name").getAsString(),
+                "Некорректное имя задачи в истории второго клиента");
+        assertEquals(0, sharedHistory.size(), "Просмотры клиентов не должны попадать в общую историю");
+    }
+
+    @Test
+    @DisplayName("Должен вести истории клиентов, которые обращаются к серверу одновременно")
+    public void test_getHistory_WhenClientsRequestConcurrently_ShouldKeepHistoriesSeparate() throws Exception {
+        //given
+        int clientsCount = 8;
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < clientsCount; i++) {
+            tasks.add(manager.addTask(new Task("Задача " + i, TASK_DESCRIPTION)));
+        }
+        ExecutorService clients = Executors.newFixedThreadPool(clientsCount);
+        List<Future<JsonArray>> histories = new ArrayList<>();
+
+        //when
+        try {
+            for (int i = 0; i < clientsCount; i++) {
+                Task task = tasks.get(i);
+                String clientId = "client-" + i;
+                histories.add(clients.submit(() -> {
+                    for (int j = 0; j < 5; j++) {
+                        send("/tasks/" + task.getId(), clientId);
+                    }
+                    return JsonParser.parseString(send("/history", clientId).body()).getAsJsonArray();
+                }));
+            }
+
+            //then
+            for (int i = 0; i < clientsCount; i++) {
+                JsonArray history = histories.get(i).get(30, TimeUnit.SECONDS);
+                assertEquals(1, history.size(), "Клиент должен видеть только свою задачу");
+                assertEquals(tasks.get(i).getName(), history.get(0).getAsJsonObject().get("name").getAsString(),
+                        "Клиент должен видеть только свою задачу");
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private HttpResponse<String> send(String path, String clientId) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .GET();
+        if (clientId != null) {
+            builder.header(SessionHttpHandler.CLIENT_ID_HEADER, clientId);
+        }
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(HttpStatusCode.OK.getCode(), response.statusCode());
+        return response;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.exceptions.NotFoundException;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTaskManagerTest {
+
+    @Test
+    @DisplayName("Должен выполнять вызовы менеджера и позволять составлять их в цепочку")
+    public void test_addEpic_WhenComposedWithAddSubtask_ShouldReturnSubtasksOfEpic() throws Exception {
+        //given
+        try (AsyncTaskManager asyncTaskManager = new AsyncTaskManager(Managers.getConcurrent())) {
+
+            //when
+            int subtasksCount = asyncTaskManager.addEpic(new Epic("Эпик", "Эпик"))
+                    .thenCompose(epic -> asyncTaskManager.addSubtask(new Subtask("Подзадача", "Подзадача",
+                            epic.getId())))
+                    .thenCompose(subtask -> asyncTaskManager.getAllSubtasksByEpicId(subtask.getEpicId()))
+                    .thenApply(ArrayList::size)
+                    .get(5, TimeUnit.SECONDS);
+
+            //then
+            assertEquals(1, subtasksCount, "Подзадача должна быть добавлена в эпик");
+            assertEquals(0, asyncTaskManager.getPendingCount(), "Незавершённых операций не должно остаться");
+        }
+    }
+
+    @Test
+    @DisplayName("Должен завершать future исключением менеджера")
+    public void test_getTaskById_WhenTaskNotFound_ShouldCompleteExceptionally() {
+        //given
+        try (AsyncTaskManager asyncTaskManager = new AsyncTaskManager(Managers.getConcurrent())) {
+
+            //when
+            CompletableFuture<Task> future = asyncTaskManager.getTaskById(100);
+
+            //then
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(NotFoundException.class, exception.getCause(), "Должно прийти исключение менеджера");
+            assertEquals(0, asyncTaskManager.getPendingCount(), "Разрешение должно вернуться после ошибки");
+        }
+    }
+
+    @Test
+    @DisplayName("Должен отклонять операции сверх лимита незавершённых")
+    public void test_addTask_WhenPendingLimitExceeded_ShouldRejectOperation() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Executor blockedExecutor = command -> executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            command.run();
+        });
+        AsyncTaskManager asyncTaskManager = new AsyncTaskManager(Managers.getConcurrent(), blockedExecutor, 2);
+
+        try {
+            //when
+            CompletableFuture<Task> first = asyncTaskManager.addTask(new Task("Задача", "Первая"));
+            CompletableFuture<Task> second = asyncTaskManager.addTask(new Task("Задача", "Вторая"));
+            CompletableFuture<Task> rejected = asyncTaskManager.addTask(new Task("Задача", "Третья"));
+
+            //then
+            assertEquals(2, asyncTaskManager.getPendingCount(), "Должно быть две незавершённые операции");
+            ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(RejectedExecutionException.class, exception.getCause(),
+                    "Операция сверх лимита должна быть отклонена");
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertEquals(0, asyncTaskManager.getPendingCount(), "Незавершённых операций не должно остаться");
+            assertNotNull(asyncTaskManager.addTask(new Task("Задача", "Четвёртая")).get(5, TimeUnit.SECONDS),
+                    "После завершения операций новые должны приниматься");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundFlushFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Новая задача";
+    private File file;
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() throws IOException {
+        file = File.createTempFile("tmpFile", ".txt");
+        FileBackedTaskManager fileBackedTaskManager = Managers.getDefaultFileBacked(file);
+        fileBackedTaskManager.startBackgroundFlush(Duration.ofMillis(1), Durability.NONE);
+        return fileBackedTaskManager;
+    }
+
+    @AfterEach
+    public void stopFlusher() {
+        taskManager.stopBackgroundFlush();
+    }
+
+    @Test
+    @DisplayName("Должен записывать изменения, собранные за окно, одной записью файла")
+    public void test_addTask_WhenBackgroundFlush_ShouldWriteBatchAfterWindow() throws IOException {
+        //given
+        taskManager.stopBackgroundFlush();
+        taskManager.startBackgroundFlush(Duration.ofMinutes(1), Durability.FSYNC_PER_BATCH);
+
+        //when
+        for (int i = 0; i < 100; i++) {
+            taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        }
+
+        //then
+        assertEquals(0, Files.size(file.toPath()), "До конца окна файл не должен перезаписываться");
+        assertTrue(taskManager.getFlushLag().compareTo(Duration.ZERO) > 0,
+                "Несохранённые изменения должны давать задержку");
+        taskManager.stopBackgroundFlush();
+        assertEquals(100, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "После остановки все изменения должны быть в файле");
+        assertEquals(Duration.ZERO, taskManager.getFlushLag(), "После записи задержки быть не должно");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать вызов только после записи изменения при FSYNC_PER_MUTATION")
+    public void test_addTask_WhenFsyncPerMutation_ShouldBeOnDiskAfterReturn() throws IOException {
+        //given
+        taskManager.stopBackgroundFlush();
+        taskManager.startBackgroundFlush(Duration.ofMillis(5), Durability.FSYNC_PER_MUTATION);
+
+        //when
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+
+        //then
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "Изменение должно быть в файле сразу после вызова");
+        assertTrue(taskManager.getLastFlushLag().compareTo(Duration.ofMillis(5)) >= 0,
+                "Задержка пакета не может быть меньше окна");
+    }
+
+    @Test
+    @DisplayName("Должен дописывать пакет изменений в журнал одной записью")
+    public void test_addTask_WhenJournaledBackgroundFlush_ShouldReplayBatch() throws IOException {
+        //given
+        taskManager.stopBackgroundFlush();
+        File journaledFile = File.createTempFile("tmpFile", ".txt");
+        new File(journaledFile.getPath() + FileBackedTaskManager.JOURNAL_SUFFIX).deleteOnExit();
+        FileBackedTaskManager journaledTaskManager = Managers.getJournaledFileBacked(journaledFile);
+        journaledTaskManager.startBackgroundFlush(Duration.ofMillis(5), Durability.FSYNC_PER_BATCH);
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            journaledTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        }
+        journaledTaskManager.stopBackgroundFlush();
+
+        //then
+        assertEquals(10, FileBackedTaskManager.loadFromFile(journaledFile).getAllTasks().size(),
+                "Все изменения должны восстановиться из файла и журнала");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять изменения, пришедшие во время остановки фонового сохранения")
+    public void test_stopBackgroundFlush_WhenMutationsRunConcurrently_ShouldNotLoseChanges() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            //given
+            File journaledFile = File.createTempFile("tmpFile", ".txt");
+            new File(journaledFile.getPath() + FileBackedTaskManager.JOURNAL_SUFFIX).deleteOnExit();
+            FileBackedTaskManager journaledTaskManager = Managers.getJournaledFileBacked(journaledFile);
+            journaledTaskManager.startBackgroundFlush(Duration.ofMillis(1), Durability.FSYNC_PER_MUTATION);
+            AtomicInteger addedCount = new AtomicInteger();
+            Thread mutator = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    journaledTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+                    addedCount.incrementAndGet();
+                }
+            });
+
+            //when
+            mutator.start();
+            journaledTaskManager.stopBackgroundFlush();
+            mutator.join();
+
+            //then
+            assertEquals(addedCount.get(), FileBackedTaskManager.loadFromFile(journaledFile).getAllTasks().size(),
+                    "Ни одно изменение не должно потеряться при остановке");
+        }
+    }
+}
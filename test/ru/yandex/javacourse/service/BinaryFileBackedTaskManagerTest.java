@@ -0,0 +1,102 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Новая задача";
+    private File file;
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() throws IOException {
+        file = File.createTempFile("tmpFile", ".bin");
+        return Managers.getBinaryFileBacked(file);
+    }
+
+    @Test
+    @DisplayName("Должен восстанавливать все поля задач из двоичного файла")
+    public void test_loadFromFile_WhenBinary_ShouldRestoreAllFields() throws IOException {
+        //given
+        LocalDateTime startTime = LocalDateTime.of(1969, 12, 31, 23, 30);
+        Task task = taskManager.addTask(new Task("Имя, с запятой", null, TaskStatus.IN_PROGRESS,
+                Duration.ofMinutes(90), startTime));
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача", "", TaskStatus.DONE, epic.getId(),
+                Duration.ofMinutes(15), startTime.plusDays(1)));
+        taskManager.addSubtask(new Subtask("Подзадача", "Без времени", epic.getId()));
+        taskManager.save();
+
+        //when
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals(SnapshotFormat.BINARY, loadedTaskManager.getSnapshotFormat(), "Формат должен определиться");
+        Task loadedTask = loadedTaskManager.getTaskById(task.getId());
+        assertEquals(task.getName(), loadedTask.getName(), "Имя должно восстановиться");
+        assertNull(loadedTask.getDescription(), "Пустое описание должно остаться null");
+        assertEquals(TaskStatus.IN_PROGRESS, loadedTask.getStatus(), "Статус должен восстановиться");
+        assertEquals(startTime, loadedTask.getStartTime(), "Время до эпохи должно восстановиться");
+        assertEquals(Duration.ofMinutes(90), loadedTask.getDuration(), "Длительность должна восстановиться");
+        Subtask loadedSubtask = loadedTaskManager.getSubtaskById(subtask.getId());
+        assertEquals("", loadedSubtask.getDescription(), "Пустая строка должна восстановиться");
+        assertEquals(epic.getId(), loadedSubtask.getEpicId(), "Эпик подзадачи должен восстановиться");
+        assertEquals(2, loadedTaskManager.getAllSubtasksByEpicId(epic.getId()).size(),
+                "Подзадачи эпика должны восстановиться");
+        assertEquals(TaskStatus.IN_PROGRESS, loadedTaskManager.getEpicById(epic.getId()).getStatus(),
+                "Статус эпика должен пересчитаться");
+    }
+
+    @Test
+    @DisplayName("Должен конвертировать файл из CSV в двоичный формат и обратно без потерь")
+    public void test_convert_WhenCsvToBinaryAndBack_ShouldKeepAllTasks() throws IOException {
+        //given
+        File csvFile = File.createTempFile("tmpFile", ".csv");
+        FileBackedTaskManager csvTaskManager = Managers.getDefaultFileBacked(csvFile);
+        Epic epic = csvTaskManager.addEpic(new Epic("Эпик", "Эпик"));
+        csvTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, Duration.ofMinutes(30),
+                LocalDateTime.of(2025, 1, 1, 10, 0)));
+        csvTaskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+        csvTaskManager.save();
+        File convertedCsvFile = File.createTempFile("tmpFile", ".csv");
+
+        //when
+        FileBackedTaskManager.convert(csvFile, file, SnapshotFormat.BINARY);
+        FileBackedTaskManager.convert(file, convertedCsvFile, SnapshotFormat.CSV);
+
+        //then
+        assertEquals(SnapshotFormat.BINARY, FileBackedTaskManager.loadFromFile(file).getSnapshotFormat(),
+                "Результат должен быть в двоичном формате");
+        assertEquals(Files.readAllLines(csvFile.toPath()), Files.readAllLines(convertedCsvFile.toPath()),
+                "После обратной конвертации файл должен совпасть с исходным");
+    }
+
+    @Test
+    @DisplayName("Должен бросать IOException при загрузке обрезанного двоичного файла")
+    public void test_loadFromFile_WhenBinaryTruncated_ShouldThrowIOException() throws IOException {
+        //given
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.save();
+        byte[] data = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(data, data.length - 3));
+
+        //when
+        //then
+        assertThrows(IOException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Обрезанный файл должен давать ошибку");
+    }
+}
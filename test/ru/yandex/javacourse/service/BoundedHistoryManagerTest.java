@@ -0,0 +1,178 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedHistoryManagerTest {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Описание задачи";
+
+    private final BoundedHistoryManager historyManager = new BoundedHistoryManager(3);
+
+    @Test
+    @DisplayName("Должен переносить повторно просмотренную задачу в конец истории")
+    public void test_add_WhenTaskViewedAgain_ShouldMoveItToEnd() {
+        //given
+        historyManager.add(createTask(1));
+        historyManager.add(createTask(2));
+
+        //when
+        historyManager.add(createTask(1));
+
+        //then
+        assertEquals(List.of(2, 1), historyIds(), "Повторный просмотр должен перенести задачу в конец");
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять самую старую задачу, когда история заполнена")
+    public void test_add_WhenHistoryFull_ShouldEvictOldestTask() {
+        //given
+        for (int id = 1; id <= 3; id++) {
+            historyManager.add(createTask(id));
+        }
+        historyManager.add(createTask(1));
+
+        //when
+        historyManager.add(createTask(4));
+
+        //then
+        assertEquals(List.of(3, 1, 4), historyIds(), "Должна вытесниться самая давно просмотренная задача");
+    }
+
+    @Test
+    @DisplayName("Должен удалять задачу из середины истории и переиспользовать её слот")
+    public void test_remove_WhenMiddleTaskRemoved_ShouldKeepOrderAndReuseSlot() {
+        //given
+        for (int id = 1; id <= 3; id++) {
+            historyManager.add(createTask(id));
+        }
+
+        //when
+        historyManager.remove(2);
+        historyManager.remove(5);
+        historyManager.add(createTask(4));
+
+        //then
+        assertEquals(List.of(1, 3, 4), historyIds(), "Порядок остальных задач должен сохраниться");
+    }
+
+    @Test
+    @DisplayName("Должен совпадать с эталонной историей при случайных просмотрах и удалениях")
+    public void test_add_WhenRandomViewsAndRemovals_ShouldMatchReferenceHistory() {
+        //given
+        int capacity = 64;
+        BoundedHistoryManager boundedHistoryManager = new BoundedHistoryManager(capacity);
+        LinkedHashMap<Integer, Integer> expectedHistory = new LinkedHashMap<>(16, 0.75f, true);
+        Random random = new Random(42);
+
+        //when
+        for (int i = 0; i < 100_000; i++) {
+            int id = random.nextInt(200) * 1024;
+            if (random.nextInt(4) == 0) {
+                boundedHistoryManager.remove(id);
+                expectedHistory.remove(id);
+                continue;
+            }
+            boundedHistoryManager.add(createTask(id));
+            expectedHistory.put(id, id);
+            if (expectedHistory.size() > capacity) {
+                expectedHistory.remove(expectedHistory.keySet().iterator().next());
+            }
+        }
+
+        //then
+        List<Integer> historyIds = new ArrayList<>();
+        boundedHistoryManager.getHistory().forEach(task -> historyIds.add(task.getId()));
+        assertEquals(new ArrayList<>(expectedHistory.keySet()), historyIds, "История должна совпасть с эталоном");
+    }
+
+    @Test
+    @DisplayName("Должен запрещать историю неположительного размера")
+    public void test_constructor_WhenCapacityNotPositive_ShouldThrow() {
+        //given & when & then
+        assertThrows(IllegalArgumentException.class, () -> new BoundedHistoryManager(0),
+                "Размер истории должен быть положительным");
+    }
+
+    @Test
+    @DisplayName("Должен записывать просмотры менеджера задач в ограниченную историю")
+    public void test_getTaskById_WhenBoundedHistory_ShouldKeepLastViews() {
+        //given
+        TaskManager taskManager = new InMemoryTaskManager(Managers.getBoundedHistory(2));
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION)).getId());
+        }
+
+        //when
+        ids.forEach(taskManager::getTaskById);
+
+        //then
+        List<Task> history = taskManager.getHistory();
+        assertEquals(2, history.size(), "История не должна превышать заданный размер");
+        assertEquals(ids.get(2), history.get(1).getId(), "Последний просмотр должен быть в конце истории");
+    }
+
+    @Test
+    @DisplayName("Должен удалять задачи типа из истории и освобождать их слоты")
+    public void test_removeAll_WhenEpicsRemoved_ShouldFreeTheirSlots() {
+        //given
+        Epic epic = new Epic(TASK_NAME, TASK_DESCRIPTION);
+        epic.setId(2);
+        Subtask subtask = new Subtask(TASK_NAME, TASK_DESCRIPTION, epic.getId());
+        subtask.setId(3);
+        historyManager.add(createTask(1));
+        historyManager.add(epic);
+        historyManager.add(subtask);
+
+        //when
+        historyManager.removeAll(TaskType.EPIC);
+        historyManager.add(createTask(4));
+
+        //then
+        assertEquals(List.of(1, 3, 4), historyIds(), "Новый просмотр должен занять слот удалённого эпика");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать копии задач, изменение которых не меняет менеджер")
+    public void test_getHistory_WhenReturnedTaskChanged_ShouldNotChangeManager() {
+        //given
+        TaskManager taskManager = new InMemoryTaskManager(Managers.getBoundedHistory(2));
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.getTaskById(task.getId());
+
+        //when
+        Task historyTask = taskManager.getHistory().get(0);
+        historyTask.setName("Изменённое имя");
+        historyTask.setStatus(TaskStatus.DONE);
+
+        //then
+        Task storedTask = taskManager.getTaskById(task.getId());
+        assertEquals(TASK_NAME, storedTask.getName(), "Изменение копии не должно менять имя в менеджере");
+        assertEquals(TaskStatus.NEW, storedTask.getStatus(), "Изменение копии не должно менять статус в менеджере");
+    }
+
+    private Task createTask(int id) {
+        Task task = new Task(TASK_NAME, TASK_DESCRIPTION);
+        task.setId(id);
+        return task;
+    }
+
+    private List<Integer> historyIds() {
+        List<Integer> ids = new ArrayList<>();
+        historyManager.getHistory().forEach(task -> ids.add(task.getId()));
+        return ids;
+    }
+}
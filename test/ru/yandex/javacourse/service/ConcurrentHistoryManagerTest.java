@@ -0,0 +1,197 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Описание задачи";
+    private static final Executor NO_BACKGROUND_DRAIN = task -> {
+    };
+
+    @Test
+    @DisplayName("Должен возвращать просмотр в истории сразу после записи, даже без фонового применения")
+    public void test_getHistory_WhenEventsNotDrainedInBackground_ShouldApplyThemItself() {
+        //given
+        HistoryManager historyManager = new ConcurrentHistoryManager(new InMemoryHistoryManager(), 16,
+                NO_BACKGROUND_DRAIN);
+        historyManager.add(createTask(1));
+        historyManager.add(createTask(2));
+
+        //when
+        historyManager.add(createTask(1));
+        List<Task> history = historyManager.getHistory();
+
+        //then
+        assertEquals(List.of(2, 1), ids(history), "История должна учесть все просмотры до вызова");
+        assertSame(history, historyManager.getHistory(), "Без новых событий снимок должен переиспользоваться");
+    }
+
+    @Test
+    @DisplayName("Должен применять события по порядку, когда буфер заполняется")
+    public void test_remove_WhenBufferFull_ShouldApplyEventsInOrder() {
+        //given
+        ConcurrentHistoryManager historyManager = new ConcurrentHistoryManager(new InMemoryHistoryManager(), 2,
+                NO_BACKGROUND_DRAIN);
+
+        //when
+        for (int id = 1; id <= 5; id++) {
+            historyManager.add(createTask(id));
+        }
+        historyManager.remove(2);
+        historyManager.remove(4);
+        historyManager.add(createTask(1));
+
+        //then
+        assertEquals(List.of(3, 5, 1), ids(historyManager.getHistory()), "События должны примениться по порядку");
+        assertEquals(0, historyManager.getDroppedViewsCount(), "Свободный потребитель не должен терять просмотры");
+    }
+
+    @Test
+    @DisplayName("Должен применять удаление задач типа по порядку с просмотрами")
+    public void test_removeAll_WhenPublishedBetweenViews_ShouldApplyInOrder() {
+        //given
+        ConcurrentHistoryManager historyManager = new ConcurrentHistoryManager(new InMemoryHistoryManager(), 2,
+                NO_BACKGROUND_DRAIN);
+        Epic epic = new Epic(TASK_NAME, TASK_DESCRIPTION);
+        epic.setId(3);
+        historyManager.add(createTask(1));
+        historyManager.add(epic);
+        historyManager.add(createTask(2));
+
+        //when
+        historyManager.removeAll(TaskType.TASK);
+        historyManager.add(createTask(4));
+
+        //then
+        assertEquals(List.of(3, 4), ids(historyManager.getHistory()), "Удаление типа должно учесть только "
+                + "просмотры, опубликованные до него");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять задачу на момент просмотра, даже если её изменили до применения события")
+    public void test_add_WhenTaskChangedBeforeDrain_ShouldKeepViewedVersion() {
+        //given
+        HistoryManager historyManager = new ConcurrentHistoryManager(new InMemoryHistoryManager(), 16,
+                NO_BACKGROUND_DRAIN);
+        Task task = createTask(1);
+        historyManager.add(task);
+
+        //when
+        task.setName("Изменённое имя");
+
+        //then
+        assertEquals(TASK_NAME, historyManager.getHistory().get(0).getName(),
+                "Событие должно хранить копию, снятую при просмотре");
+    }
+
+    @Test
+    @DisplayName("Должен повторить просмотр, а не удалить задачу, если исходный менеджер бросил исключение")
+    public void test_getHistory_WhenSourceManagerFailsOnce_ShouldRetryView() {
+        //given
+        HistoryManager failingOnce = new InMemoryHistoryManager() {
+            private boolean isFailed = false;
+
+            @Override
+            public void add(Task task) {
+                if (!isFailed && task.getId() == 2) {
+                    isFailed = true;
+                    throw new IllegalStateException("Сбой менеджера истории");
+                }
+                super.add(task);
+            }
+        };
+        HistoryManager historyManager = new ConcurrentHistoryManager(failingOnce, 16, NO_BACKGROUND_DRAIN);
+        historyManager.add(createTask(1));
+        historyManager.add(createTask(2));
+        historyManager.add(createTask(3));
+
+        //when
+        assertThrows(IllegalStateException.class, historyManager::getHistory, "Сбой должен дойти до вызывающего");
+        List<Task> history = historyManager.getHistory();
+
+        //then
+        assertEquals(List.of(1, 2, 3), ids(history), "Просмотр должен примениться повторно и по порядку");
+    }
+
+    @Test
+    @DisplayName("Должен корректно записывать просмотры и удаления из нескольких потоков")
+    public void test_add_WhenViewedFromManyThreads_ShouldKeepHistoryConsistent() throws Exception {
+        //given
+        ConcurrentHistoryManager historyManager = new ConcurrentHistoryManager(new InMemoryHistoryManager());
+        int threadsCount = 8;
+        int tasksCount = 100;
+        List<Task> tasks = new ArrayList<>();
+        for (int id = 1; id <= tasksCount; id++) {
+            tasks.add(createTask(id));
+        }
+
+        //when
+        try (ExecutorService executor = Executors.newFixedThreadPool(threadsCount)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threadsCount; thread++) {
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        historyManager.add(tasks.get((i + offset) % tasksCount));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        for (int id = 2; id <= tasksCount; id += 2) {
+            historyManager.remove(id);
+        }
+
+        //then
+        List<Integer> historyIds = ids(historyManager.getHistory());
+        Set<Integer> uniqueIds = new HashSet<>(historyIds);
+        assertEquals(historyIds.size(), uniqueIds.size(), "Задача не должна повторяться в истории");
+        assertTrue(uniqueIds.stream().allMatch(id -> id % 2 == 1), "Удалённые задачи не должны остаться в истории");
+        if (historyManager.getDroppedViewsCount() == 0) {
+            assertEquals(tasksCount / 2, historyIds.size(), "Все неудалённые задачи должны быть в истории");
+        }
+    }
+
+    @Test
+    @DisplayName("Должен записывать просмотры многопоточного менеджера задач в историю")
+    public void test_getTaskById_WhenConcurrentManager_ShouldRecordView() {
+        //given
+        TaskManager taskManager = Managers.getConcurrent();
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+
+        //when
+        taskManager.getTaskById(task.getId());
+
+        //then
+        assertEquals(List.of(task.getId()), ids(taskManager.getHistory()), "Просмотр должен попасть в историю");
+    }
+
+    private Task createTask(int id) {
+        Task task = new Task(TASK_NAME, TASK_DESCRIPTION);
+        task.setId(id);
+        return task;
+    }
+
+    private List<Integer> ids(List<Task> history) {
+        List<Integer> ids = new ArrayList<>();
+        history.forEach(task -> ids.add(task.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,165 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.exceptions.NotFoundException;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<TaskManager> {
+    private static final int THREADS_COUNT = 8;
+    private static final int OPERATIONS_PER_THREAD = 250;
+
+    @Override
+    protected TaskManager createTaskManager() {
+        return Managers.getConcurrent();
+    }
+
+    @Test
+    @DisplayName("Должен выдавать уникальные ID и не терять задачи при параллельном добавлении")
+    public void test_addTask_WhenCalledFromManyThreads_ShouldKeepAllTasksWithUniqueIds() throws Exception {
+        //given
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Общий эпик"));
+
+        //when
+        runInParallel(threadNumber -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                taskManager.addTask(new Task("Задача", "Задача потока " + threadNumber));
+                taskManager.addSubtask(new Subtask("Подзадача", "Подзадача потока " + threadNumber,
+                        epic.getId()));
+            }
+        });
+
+        //then
+        int expectedCount = THREADS_COUNT * OPERATIONS_PER_THREAD;
+        HashSet<Integer> ids = new HashSet<>();
+        taskManager.getAllTasks().forEach(task -> ids.add(task.getId()));
+        taskManager.getAllSubtasks().forEach(subtask -> ids.add(subtask.getId()));
+        assertEquals(expectedCount, taskManager.getAllTasks().size(), "Потеряны задачи");
+        assertEquals(expectedCount, taskManager.getAllSubtasks().size(), "Потеряны подзадачи");
+        assertEquals(expectedCount * 2, ids.size(), "ID задач должны быть уникальными");
+        assertEquals(expectedCount, taskManager.getEpicById(epic.getId()).getSubtasksIdList().size(),
+                "В эпике должны быть все подзадачи");
+    }
+
+    @Test
+    @DisplayName("Должен добавлять только одну из пересекающихся задач при параллельном добавлении")
+    public void test_addTask_WhenOverlappingTasksAddedInParallel_ShouldAddOnlyOne() throws Exception {
+        //given
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        AtomicInteger rejectedCount = new AtomicInteger();
+
+        //when
+        runInParallel(threadNumber -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                try {
+                    taskManager.addTask(new Task("Задача", "Задача потока " + threadNumber,
+                            Duration.ofMinutes(30), startTime.plusMinutes(i % 10)));
+                } catch (NotFoundException exception) {
+                    rejectedCount.incrementAndGet();
+                }
+            }
+        });
+
+        //then
+        assertEquals(1, taskManager.getAllTasks().size(), "Должна быть добавлена только одна задача");
+        assertEquals(1, taskManager.getPrioritizedTasks().size(), "В списке приоритетов должна быть одна задача");
+        assertEquals(THREADS_COUNT * OPERATIONS_PER_THREAD - 1, rejectedCount.get(),
+                "Остальные задачи должны быть отклонены");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять статус эпика согласованным при параллельных изменениях подзадач")
+    public void test_updateSubtask_WhenCalledFromManyThreads_EpicShouldMatchSubtasks() throws Exception {
+        //given
+        Epic firstEpic = taskManager.addEpic(new Epic("Первый эпик", "Эпик"));
+        Epic secondEpic = taskManager.addEpic(new Epic("Второй эпик", "Эпик"));
+        List<Subtask> addedSubtasks = new ArrayList<>();
+        for (int i = 0; i < THREADS_COUNT; i++) {
+            addedSubtasks.add(taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", firstEpic.getId())));
+        }
+
+        //when
+        runInParallel(threadNumber -> {
+            Subtask subtask = addedSubtasks.get(threadNumber);
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Subtask movedSubtask = new Subtask(subtask.getName(), subtask.getDescription(),
+                        i % 2 == 0 ? secondEpic.getId() : firstEpic.getId());
+                movedSubtask.setId(subtask.getId());
+                taskManager.updateSubtask(movedSubtask);
+            }
+        });
+
+        //then
+        Epic first = taskManager.getEpicById(firstEpic.getId());
+        Epic second = taskManager.getEpicById(secondEpic.getId());
+        assertEquals(THREADS_COUNT, first.getSubtasksIdList().size() + second.getSubtasksIdList().size(),
+                "Каждая подзадача должна находиться ровно в одном эпике");
+        assertEquals(taskManager.getAllSubtasksByEpicId(first.getId()).size(), first.getSubtasksIdList().size(),
+                "Индекс эпика должен совпадать со списком подзадач");
+        taskManager.getAllSubtasksByEpicId(second.getId())
+                .forEach(subtask -> assertEquals(second.getId(), subtask.getEpicId(), "Подзадача в чужом эпике"));
+    }
+
+    @Test
+    @DisplayName("Должен работать с переданным менеджером истории и передавать ему поиск задачи")
+    public void test_constructor_WhenLiveHistoryManagerPassed_ShouldReturnCurrentVersions() {
+        //given
+        ConcurrentTaskManager liveTaskManager = new ConcurrentTaskManager(new LiveHistoryManager(2));
+        Task firstTask = liveTaskManager.addTask(new Task("Задача 1", "Задача"));
+        Task secondTask = liveTaskManager.addTask(new Task("Задача 2", "Задача"));
+        Task thirdTask = liveTaskManager.addTask(new Task("Задача 3", "Задача"));
+        liveTaskManager.getTaskById(firstTask.getId());
+        liveTaskManager.getTaskById(secondTask.getId());
+        liveTaskManager.getTaskById(thirdTask.getId());
+
+        //when
+        Task updatedTask = new Task("Обновлённая задача", "Задача", TaskStatus.DONE);
+        updatedTask.setId(thirdTask.getId());
+        liveTaskManager.updateTask(updatedTask);
+        List<Task> history = liveTaskManager.getHistory();
+
+        //then
+        assertEquals(List.of(secondTask.getId(), thirdTask.getId()), history.stream().map(Task::getId).toList(),
+                "История должна быть ограничена переданным менеджером истории");
+        assertEquals("Обновлённая задача", history.get(1).getName(), "История должна находить текущую версию задачи");
+    }
+
+    private interface ThreadAction {
+        void run(int threadNumber);
+    }
+
+    private void runInParallel(ThreadAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS_COUNT; i++) {
+                int threadNumber = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    action.run(threadNumber);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.javacourse.service;
+
+import com.sun.management.ThreadMXBean;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Замер памяти, выделяемой на одну запись при кодировании и разборе CSV.
+ * Запускается вручную: аргумент - число записей в замере
+ */
+public class CsvCodecAllocationBenchmark {
+
+    public static void main(String[] args) {
+        int recordsCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Subtask subtask = new Subtask("Подзадача, с запятой", "Описание подзадачи", TaskStatus.DONE, 1,
+                Duration.ofMinutes(30), LocalDateTime.of(2025, 1, 1, 10, 0));
+        subtask.setId(123456);
+        StringBuilder line = new StringBuilder();
+        CsvTaskCodec.encode(subtask, line);
+        CharBuffer buffer = CharBuffer.wrap(line.toString());
+        CsvTaskCodec codec = new CsvTaskCodec();
+
+        for (int round = 0; round < 3; round++) {
+            long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < recordsCount; i++) {
+                line.setLength(0);
+                CsvTaskCodec.encode(subtask, line);
+            }
+            long encodeBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            long encodeNanos = System.nanoTime() - startNanos;
+
+            allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+            startNanos = System.nanoTime();
+            long checksum = 0;
+            for (int i = 0; i < recordsCount; i++) {
+                checksum += codec.decode(buffer, 0, buffer.length()).getId();
+            }
+            long decodeBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            long decodeNanos = System.nanoTime() - startNanos;
+
+            System.out.printf("Кодирование: %d байт, %d нс на запись; разбор: %d байт, %d нс на запись (%d)%n",
+                    encodeBytes / recordsCount, encodeNanos / recordsCount, decodeBytes / recordsCount,
+                    decodeNanos / recordsCount, checksum);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.exceptions.NotFoundException;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLoopTaskManagerTest extends TaskManagerTest<EventLoopTaskManager> {
+    private static final int THREADS_COUNT = 8;
+    private static final int OPERATIONS_PER_THREAD = 200;
+
+    @Override
+    protected EventLoopTaskManager createTaskManager() {
+        return Managers.getEventLoop();
+    }
+
+    @AfterEach
+    void closeTaskManager() {
+        taskManager.close();
+    }
+
+    @Test
+    @DisplayName("Должен применять изменения из многих потоков и публиковать их в снимке")
+    public void test_addSubtask_WhenCalledFromManyThreads_ShouldPublishAllChanges() throws Exception {
+        //given
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Общий эпик"));
+        long initialVersion = taskManager.getSnapshot().getVersion();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_COUNT);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        try {
+            for (int i = 0; i < THREADS_COUNT; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача", "Подзадача",
+                                epic.getId()));
+                        assertTrue(taskManager.getSnapshot().getSubtask(subtask.getId()).isPresent(),
+                                "Поток должен видеть своё изменение после возврата вызова");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        int expectedCount = THREADS_COUNT * OPERATIONS_PER_THREAD;
+        assertEquals(expectedCount, taskManager.getAllSubtasksByEpicId(epic.getId()).size(), "Потеряны подзадачи");
+        assertEquals(expectedCount, taskManager.getEpicById(epic.getId()).getSubtasksIdList().size(),
+                "В эпике должны быть все подзадачи");
+        assertTrue(taskManager.getSnapshot().getVersion() - initialVersion < expectedCount,
+                "Пакет изменений должен публиковаться одной версией");
+    }
+
+    @Test
+    @DisplayName("Должен пробрасывать исключение изменения вызывающему потоку без обёртки")
+    public void test_addTask_WhenMutationFails_ShouldThrowOriginalException() {
+        //given
+        Subtask subtask = new Subtask("Подзадача", "Подзадача без эпика", 100);
+
+        //when & then
+        assertThrows(NotFoundException.class, () -> taskManager.addSubtask(subtask));
+        assertNotNull(taskManager.addTask(new Task("Задача", "Задача после ошибки")),
+                "Поток-писатель должен продолжить работу после ошибки");
+    }
+
+    @Test
+    @DisplayName("Должен завершать каждый вызов результатом или ошибкой, если менеджер остановили во время записи")
+    public void test_close_WhenCalledDuringConcurrentMutations_ShouldNotHangCallers() throws Exception {
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_COUNT);
+        List<Future<?>> futures = new ArrayList<>();
+        CountDownLatch isStarted = new CountDownLatch(THREADS_COUNT);
+
+        //when
+        try {
+            for (int i = 0; i < THREADS_COUNT; i++) {
+                futures.add(executor.submit(() -> {
+                    isStarted.countDown();
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        try {
+                            taskManager.addTask(new Task("Задача", "Задача"));
+                        } catch (IllegalStateException exception) {
+                            return null;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            isStarted.await();
+            taskManager.close();
+
+            //then
+            for (Future<?> future : futures) {
+                assertDoesNotThrow(() -> future.get(10, TimeUnit.SECONDS), "Вызов не должен зависнуть после остановки");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен отклонять изменения после остановки")
+    public void test_addTask_WhenClosed_ShouldThrowIllegalStateException() {
+        //given
+        taskManager.close();
+
+        //when & then
+        assertThrows(IllegalStateException.class, () -> taskManager.addTask(new Task("Задача", "Задача")));
+    }
+}
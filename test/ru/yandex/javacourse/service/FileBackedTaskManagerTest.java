@@ -2,16 +2,24 @@ package ru.yandex.javacourse.service;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import ru.yandex.javacourse.model.Epic;
 import ru.yandex.javacourse.model.Subtask;
 import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,6 +63,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     public void test_AddTask_WhenTaskAddedToFileBacked_FileShouldBeNotEmpty() {
         //given
         Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.save();
 
         //when
         int taskId = -1;
@@ -79,6 +88,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         //given
         taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
         taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.save();
 
         //when
         List<String> fileContent = new ArrayList<>();
@@ -120,6 +130,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         //given
         taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
         taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.save();
         FileBackedTaskManager newFileBackedTaskManager = FileBackedTaskManager.loadFromFile(file);
 
         //when
@@ -150,4 +161,150 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         //when & then
         assertDoesNotThrow(taskManager::save, "Сохранение не должно вызывать исключений");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Должен восстанавливать эпики из файла, ничего не записывая в файл")
+    public void test_LoadFromFile_WhenEpicsRestored_ShouldNotWriteFile() throws IOException {
+        //given
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Epic firstEpic = taskManager.addEpic(new Epic("Первый эпик", "Эпик"));
+        Epic secondEpic = taskManager.addEpic(new Epic("Второй эпик", "Эпик"));
+        taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", TaskStatus.DONE, firstEpic.getId(),
+                Duration.ofMinutes(30), startTime));
+        taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", TaskStatus.NEW, firstEpic.getId(),
+                Duration.ofMinutes(15), startTime.plusHours(2)));
+        taskManager.save();
+        long lastModified = file.lastModified() - 60_000;
+        file.setLastModified(lastModified);
+        List<String> fileContent = Files.readAllLines(file.toPath());
+
+        //when
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals(lastModified, file.lastModified(), "Загрузка не должна перезаписывать файл");
+        assertEquals(fileContent, Files.readAllLines(file.toPath()), "Содержимое файла не должно меняться");
+        Epic loadedEpic = loadedTaskManager.getEpicById(firstEpic.getId());
+        assertEquals(TaskStatus.IN_PROGRESS, loadedEpic.getStatus(), "Статус эпика должен пересчитаться");
+        assertEquals(startTime, loadedEpic.getStartTime(), "Начало эпика должно пересчитаться");
+        assertEquals(startTime.plusHours(2).plusMinutes(15), loadedEpic.getEndTime(),
+                "Окончание эпика должно пересчитаться");
+        assertEquals(Duration.ofMinutes(45), loadedEpic.getDuration(), "Длительность эпика должна пересчитаться");
+        assertEquals(TaskStatus.NEW, loadedTaskManager.getEpicById(secondEpic.getId()).getStatus(),
+                "Эпик без подзадач должен быть новым");
+    }
+
+    @Test
+    @DisplayName("Должен бросать IOException, если эпик подзадачи отсутствует в файле")
+    public void test_LoadFromFile_WhenSubtaskEpicMissing_ShouldThrowIOException() throws IOException {
+        //given
+        Files.writeString(file.toPath(), "id,type,name,status,description,epic,startTime,duration(min)\n"
+                + "2,SUBTASK,Подзадача,NEW,Подзадача,1,,\n");
+
+        //when & then
+        assertThrows(IOException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Подзадача без эпика должна давать ошибку загрузки");
+    }
+
+    @Test
+    @DisplayName("Должен разбирать большой файл по кускам параллельно, сохраняя все записи и связи")
+    public void test_LoadFromFile_WhenFileSplitIntoChunks_ShouldRestoreAllRecords() throws IOException {
+        //given
+        int subtasksCount = 100_000;
+        StringBuilder content = new StringBuilder("id,type,name,status,description,epic,startTime,duration(min)\r\n");
+        content.append("1,EPIC,Эпик,NEW,Описание эпика,без эпика,,\r\n");
+        for (int id = 2; id <= subtasksCount + 1; id++) {
+            content.append(id).append(",SUBTASK,Подзадача ").append(id).append(",DONE,Описание подзадачи,1,,\r\n");
+        }
+        Files.writeString(file.toPath(), content);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        //when
+        FileBackedTaskManager loadedTaskManager;
+        try {
+            loadedTaskManager = FileBackedTaskManager.loadFromFile(file, false, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        //then
+        List<Subtask> subtasks = loadedTaskManager.getAllSubtasksByEpicId(1);
+        assertEquals(subtasksCount, subtasks.size(), "Все подзадачи должны привязаться к эпику");
+        for (int i = 0; i < subtasks.size(); i++) {
+            assertEquals(i + 2, subtasks.get(i).getId(), "Порядок записей должен совпадать с порядком строк");
+            assertEquals("Подзадача " + (i + 2), subtasks.get(i).getName(), "Строки не должны разрываться");
+        }
+        assertEquals(TaskStatus.DONE, loadedTaskManager.getEpicById(1).getStatus(),
+                "Статус эпика должен пересчитаться");
+        assertEquals(subtasksCount + 2, loadedTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION)).getId(),
+                "Новый ID должен идти после последней записи");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять и загружать имена и описания с запятыми, кавычками и переводами строк")
+    public void test_LoadFromFile_WhenTextNeedsQuoting_ShouldRestoreItExactly() throws IOException {
+        //given
+        Task quotedTask = taskManager.addTask(new Task("Купить хлеб, молоко", "Сказал \"срочно\"\nи ушёл \\ домой"));
+        Task emptyTask = taskManager.addTask(new Task("", null));
+        Epic epic = taskManager.addEpic(new Epic("Эпик,", "\r\n"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("\"", ",,,", epic.getId(), Duration.ofMinutes(5),
+                LocalDateTime.of(999, 1, 2, 3, 4)));
+        taskManager.save();
+
+        //when
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals(quotedTask.getName(), loadedTaskManager.getTaskById(quotedTask.getId()).getName(),
+                "Имя с запятой должно восстановиться");
+        assertEquals(quotedTask.getDescription(), loadedTaskManager.getTaskById(quotedTask.getId()).getDescription(),
+                "Описание с кавычками и переводом строки должно восстановиться");
+        assertEquals("", loadedTaskManager.getTaskById(emptyTask.getId()).getName(), "Пустое имя должно остаться");
+        assertNull(loadedTaskManager.getTaskById(emptyTask.getId()).getDescription(), "null должен остаться null");
+        assertEquals("\r\n", loadedTaskManager.getEpicById(epic.getId()).getDescription(),
+                "Переводы строк должны восстановиться");
+        Subtask loadedSubtask = loadedTaskManager.getSubtaskById(subtask.getId());
+        assertEquals(",,,", loadedSubtask.getDescription(), "Описание из запятых должно восстановиться");
+        assertEquals(subtask.getStartTime(), loadedSubtask.getStartTime(),
+                "Время с годом до 1000 должно восстановиться");
+        assertEquals(5, Files.readAllLines(file.toPath()).size(), "Каждая запись должна занимать одну строку");
+    }
+
+    @Test
+    @EnabledOnOs({OS.LINUX, OS.MAC})
+    @DisplayName("Должен завершать изменения, пока идёт медленная запись файла")
+    public void test_addTask_WhenSnapshotWriteIsSlow_ShouldNotWaitForIt() throws Exception {
+        //given
+        File tempFile = new File(file.getPath() + ".tmp");
+        Process mkfifo = new ProcessBuilder("mkfifo", tempFile.getPath()).start();
+        assertEquals(0, mkfifo.waitFor(), "Временный файл должен стать каналом, запись в который ждёт чтения");
+
+        //when
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+            taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        }, "Изменения не должны ждать записи файла");
+        String writtenSnapshot = new String(Files.readAllBytes(tempFile.toPath()), StandardCharsets.UTF_8);
+        taskManager.save();
+
+        //then
+        assertTrue(writtenSnapshot.startsWith(CsvTaskCodec.HEADER), "Медленная запись должна завершиться");
+        assertEquals(2, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "После save() файл должен содержать оба изменения");
+    }
+
+    @Test
+    @DisplayName("Должен бросать исключение при разборе повреждённой строки")
+    public void test_FromString_WhenLineMalformed_ShouldThrowIllegalArgumentException() {
+        //given
+        String[] malformedLines = {"1,TASK", "x,TASK,Имя,NEW,Описание,без эпика,,", "1,BUG,Имя,NEW,,,,",
+                "1,TASK,\"Имя,NEW,,,,", "1,TASK,Имя,NEW,,без эпика,01.01.2025,",
+                "1,TASK,Имя,NEW,,без эпика,,30,"};
+
+        //when & then
+        for (String line : malformedLines) {
+            assertThrows(IllegalArgumentException.class, () -> taskManager.fromString(line),
+                    "Строка должна считаться повреждённой: " + line);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.javacourse.service;
+
+import com.sun.management.ThreadMXBean;
+import ru.yandex.javacourse.model.Task;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Замер памяти, выделяемой на один просмотр задачи в менеджерах истории.
+ * Запускается вручную: аргументы - число просмотров в замере и число разных задач
+ */
+public class HistoryAllocationBenchmark {
+
+    public static void main(String[] args) {
+        int viewsCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int tasksCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        Task[] tasks = new Task[tasksCount];
+        for (int i = 0; i < tasksCount; i++) {
+            tasks[i] = new Task("Задача " + i, "Описание задачи " + i);
+            tasks[i].setId(i + 1);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            measure("InMemoryHistoryManager", new InMemoryHistoryManager(), tasks, viewsCount);
+            measure("BoundedHistoryManager", new BoundedHistoryManager(tasksCount / 2), tasks, viewsCount);
+            measure("LiveHistoryManager", new LiveHistoryManager(tasksCount / 2), tasks, viewsCount);
+        }
+    }
+
+    private static void measure(String name, HistoryManager historyManager, Task[] tasks, int viewsCount) {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (Task task : tasks) {
+            historyManager.add(task);
+        }
+
+        long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+        long startNanos = System.nanoTime();
+        int index = 0;
+        for (int i = 0; i < viewsCount; i++) {
+            historyManager.add(tasks[index]);
+            index += 7919;
+            if (index >= tasks.length) {
+                index %= tasks.length;
+            }
+        }
+        long allocatedBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        System.out.printf("%s: %d байт, %d нс на просмотр%n", name, allocatedBytes / viewsCount,
+                elapsedNanos / viewsCount);
+    }
+}
@@ -3,7 +3,10 @@ package ru.yandex.javacourse.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
 import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskType;
 
 import java.util.List;
 
@@ -60,4 +63,30 @@ public class InMemoryHistoryManagerTest {
         assertEquals(task.getId(),history.get(history.size() - 1).getId(), "При повторном добавлении задачи " +
                 "она должна оказаться в конце истории");
     }
+
+    @Test
+    @DisplayName("Должен удалять из истории только задачи заданного типа, сохраняя порядок остальных")
+    void test_RemoveAll_WhenSubtasksRemoved_ShouldKeepOtherTasksInOrder() {
+        //given
+        task.setId(TASK_ID);
+        Epic epic = new Epic(TASK_NAME_2, TASK_DESCRIPTION_2);
+        epic.setId(TASK_ID_2);
+        Subtask subtask1 = new Subtask(TASK_NAME, TASK_DESCRIPTION, TASK_ID_2);
+        subtask1.setId(3);
+        Subtask subtask2 = new Subtask(TASK_NAME, TASK_DESCRIPTION, TASK_ID_2);
+        subtask2.setId(4);
+        historyManager.add(subtask1);
+        historyManager.add(task);
+        historyManager.add(subtask2);
+        historyManager.add(epic);
+
+        //when
+        historyManager.removeAll(TaskType.SUBTASK);
+        historyManager.add(subtask1);
+        final List<Task> history = historyManager.getHistory();
+
+        //then
+        assertEquals(List.of(TASK_ID, TASK_ID_2, 3), history.stream().map(Task::getId).toList(),
+                "В истории должны остаться задачи других типов в прежнем порядке.");
+    }
 }
@@ -3,9 +3,17 @@ package ru.yandex.javacourse.service;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import ru.yandex.javacourse.exceptions.NotFoundException;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
 import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -109,4 +117,171 @@ class InMemoryTaskManagerTest extends TaskManagerTest<TaskManager> {
                 () -> taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, taskDuration, now)),
                 "Задача не может быть добавлена в менеджер, если есть пересечение по времени");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Должен позволять занять время задачи после её удаления из менеджера")
+    public void test_hasCrossInTimeWithManagerTasks_WhenTaskDeleted_ShouldAllowSameTime() {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        Duration taskDuration = Duration.ofMinutes(30);
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, taskDuration, now));
+
+        //when
+        taskManager.deleteTaskById(task.getId());
+
+        //then
+        assertDoesNotThrow(() -> taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, taskDuration, now)),
+                "После удаления задачи её время должно освобождаться");
+    }
+
+    @Test
+    @DisplayName("Должен учитывать новое время задачи после её обновления при поиске пересечений")
+    public void test_hasCrossInTimeWithManagerTasks_WhenTaskUpdated_ShouldUseNewTime() {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextDay = now.plusDays(1);
+        Duration taskDuration = Duration.ofMinutes(30);
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, taskDuration, now));
+
+        //when
+        Task updatedTask = new Task(TASK_NAME, TASK_DESCRIPTION, taskDuration, nextDay);
+        updatedTask.setId(task.getId());
+        taskManager.updateTask(updatedTask);
+
+        //then
+        assertFalse(taskManager.hasCrossInTimeWithManagerTasks(new Task(TASK_NAME, TASK_DESCRIPTION,
+                taskDuration, now)), "Старое время задачи после обновления должно освобождаться");
+        assertTrue(taskManager.hasCrossInTimeWithManagerTasks(new Task(TASK_NAME, TASK_DESCRIPTION,
+                taskDuration, nextDay.plusMinutes(10))), "Новое время задачи должно учитываться");
+    }
+
+    @Test
+    @DisplayName("Должен находить пересечение среди большого количества задач, не пересекающихся между собой")
+    public void test_hasCrossInTimeWithManagerTasks_WhenManyTasksAdded_ShouldFindOnlyRealCross() {
+        //given
+        LocalDateTime start = LocalDateTime.now();
+        Duration taskDuration = Duration.ofMinutes(30);
+        for (int i = 0; i < 1000; i++) {
+            taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, taskDuration, start.plusHours(i)));
+        }
+
+        //when
+        boolean hasCrossInGap = taskManager.hasCrossInTimeWithManagerTasks(new Task(TASK_NAME, TASK_DESCRIPTION,
+                Duration.ofMinutes(20), start.plusHours(500).plusMinutes(35)));
+        boolean hasCrossInTask = taskManager.hasCrossInTimeWithManagerTasks(new Task(TASK_NAME, TASK_DESCRIPTION,
+                Duration.ofMinutes(20), start.plusHours(500).plusMinutes(25)));
+
+        //then
+        assertFalse(hasCrossInGap, "Задача в промежутке между задачами не должна пересекаться с ними");
+        assertTrue(hasCrossInTask, "Задача, начинающаяся до окончания другой, должна пересекаться с ней");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять в порядке приоритета задачи с одинаковым временем начала")
+    public void test_getPrioritizedTasks_WhenTasksHaveSameStart_ShouldKeepBoth() {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, null, now));
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, null, now));
+
+        //when
+        TreeSet<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+
+        //then
+        assertEquals(2, prioritizedTasks.size(), "Задачи с одинаковым временем начала не должны теряться");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать актуальное представление задач в порядке приоритета, недоступное для изменения")
+    public void test_getPrioritizedTasksView_WhenTaskDeleted_ShouldReflectChangesAndBeReadOnly() {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        Duration taskDuration = Duration.ofMinutes(30);
+        Task firstTask = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, taskDuration, now.plusHours(1)));
+        Task secondTask = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, taskDuration, now));
+        NavigableSet<Task> prioritizedTasks = taskManager.getPrioritizedTasksView();
+
+        //when
+        taskManager.deleteTaskById(secondTask.getId());
+
+        //then
+        assertEquals(1, prioritizedTasks.size(), "Представление должно отражать удаление задачи");
+        assertEquals(firstTask, prioritizedTasks.first(), "Некорректная первая задача в порядке приоритета");
+        assertThrows(UnsupportedOperationException.class, () -> prioritizedTasks.remove(firstTask),
+                "Представление должно быть доступно только для чтения");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать страницу задач в порядке приоритета")
+    public void test_getPrioritizedTasks_WhenOffsetAndLimitPassed_ShouldReturnPage() {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+        Duration taskDuration = Duration.ofMinutes(30);
+        for (int i = 5; i > 0; i--) {
+            taskManager.addTask(new Task(TASK_NAME + " " + i, TASK_DESCRIPTION, taskDuration, now.plusHours(i)));
+        }
+
+        //when
+        List<Task> page = taskManager.getPrioritizedTasks(1, 2);
+
+        //then
+        assertEquals(2, page.size(), "Некорректное количество задач на странице");
+        assertEquals(TASK_NAME + " 2", page.get(0).getName(), "Некорректная первая задача на странице");
+        assertEquals(TASK_NAME + " 3", page.get(1).getName(), "Некорректная вторая задача на странице");
+    }
+
+    @Test
+    @DisplayName("Статусы и даты эпиков по индексу должны совпадать с полным пересчётом после серии изменений"
+            + " подзадач")
+    public void test_updateEpic_WhenConsistencyCheckEnabled_IndexShouldMatchRecalculation() {
+        //given
+        InMemoryTaskManager checkedTaskManager = new InMemoryTaskManager();
+        checkedTaskManager.setConsistencyCheckEnabled(true);
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now();
+        TaskStatus[] statuses = TaskStatus.values();
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            epics.add(checkedTaskManager.addEpic(new Epic(TASK_NAME, TASK_DESCRIPTION)));
+        }
+
+        //when
+        assertDoesNotThrow(() -> {
+            for (int i = 0; i < 500; i++) {
+                Epic epic = epics.get(random.nextInt(epics.size()));
+                List<Subtask> epicSubtasks = checkedTaskManager.getAllSubtasksByEpicId(epic.getId());
+                int operation = random.nextInt(3);
+                Duration duration = random.nextBoolean() ? Duration.ofMinutes(random.nextInt(50)) : null;
+                LocalDateTime startTime = random.nextBoolean() ? start.plusHours(i) : null;
+                if (operation == 0 || epicSubtasks.isEmpty()) {
+                    checkedTaskManager.addSubtask(new Subtask(TASK_NAME, TASK_DESCRIPTION,
+                            statuses[random.nextInt(statuses.length)], epic.getId(), duration, startTime));
+                } else {
+                    Subtask subtask = epicSubtasks.get(random.nextInt(epicSubtasks.size()));
+                    if (operation == 1) {
+                        Subtask updatedSubtask = new Subtask(TASK_NAME, TASK_DESCRIPTION,
+                                statuses[random.nextInt(statuses.length)],
+                                epics.get(random.nextInt(epics.size())).getId(), duration, startTime);
+                        updatedSubtask.setId(subtask.getId());
+                        checkedTaskManager.updateSubtask(updatedSubtask);
+                    } else {
+                        checkedTaskManager.deleteSubtaskById(subtask.getId());
+                    }
+                }
+            }
+        }, "Статус или даты эпика по индексу разошлись с полным пересчётом");
+
+        //then
+        for (Epic epic : epics) {
+            List<Subtask> epicSubtasks = checkedTaskManager.getAllSubtasksByEpicId(epic.getId());
+            TaskStatus expectedStatus = TaskStatus.IN_PROGRESS;
+            if (epicSubtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW)) {
+                expectedStatus = TaskStatus.NEW;
+            } else if (epicSubtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE)) {
+                expectedStatus = TaskStatus.DONE;
+            }
+            assertEquals(expectedStatus, checkedTaskManager.getEpicById(epic.getId()).getStatus(),
+                    "Некорректный статус эпика");
+        }
+    }
+}
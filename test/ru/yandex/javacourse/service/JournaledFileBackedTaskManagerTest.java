@@ -0,0 +1,238 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Новая задача";
+    private File file;
+    private File journalFile;
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() throws IOException {
+        file = File.createTempFile("tmpFile", ".txt");
+        journalFile = new File(file.getPath() + FileBackedTaskManager.JOURNAL_SUFFIX);
+        journalFile.deleteOnExit();
+        return Managers.getJournaledFileBacked(file);
+    }
+
+    @Test
+    @DisplayName("Должен дописывать изменения в журнал, не перезаписывая файл состояния")
+    public void test_addTask_WhenJournaled_ShouldAppendToJournalOnly() throws IOException {
+        //given
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        long snapshotSize = file.length();
+        long journalSize = journalFile.length();
+
+        //when
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+
+        //then
+        assertEquals(snapshotSize, file.length(), "Файл состояния не должен перезаписываться");
+        assertTrue(journalFile.length() > journalSize, "Изменение должно попасть в журнал");
+        assertEquals(2, Files.readAllLines(journalFile.toPath()).size(), "В журнале должна быть запись на изменение");
+    }
+
+    @Test
+    @DisplayName("Должен восстанавливать состояние из файла и журнала после перезапуска")
+    public void test_loadFromFile_WhenJournalExists_ShouldReplayAllChanges() throws IOException {
+        //given
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, Duration.ofMinutes(30), startTime));
+        Task deletedTask = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        Epic firstEpic = taskManager.addEpic(new Epic("Первый эпик", "Эпик"));
+        Epic secondEpic = taskManager.addEpic(new Epic("Второй эпик", "Эпик"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", firstEpic.getId(),
+                Duration.ofMinutes(15), startTime.plusHours(1)));
+        taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", firstEpic.getId()));
+        Subtask movedSubtask = new Subtask("Подзадача", "Перенесённая", TaskStatus.DONE, secondEpic.getId(),
+                Duration.ofMinutes(15), startTime.plusHours(2));
+        movedSubtask.setId(subtask.getId());
+        taskManager.updateSubtask(movedSubtask);
+        taskManager.deleteTaskById(deletedTask.getId());
+
+        //when
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals(taskManager.getAllTasks().size(), loadedTaskManager.getAllTasks().size(), "Задачи не совпадают");
+        assertEquals(task.getStartTime(), loadedTaskManager.getTaskById(task.getId()).getStartTime(),
+                "Время задачи должно восстановиться");
+        assertEquals(1, loadedTaskManager.getAllSubtasksByEpicId(firstEpic.getId()).size(),
+                "В первом эпике должна остаться одна подзадача");
+        Epic loadedSecondEpic = loadedTaskManager.getEpicById(secondEpic.getId());
+        assertEquals(TaskStatus.DONE, loadedSecondEpic.getStatus(), "Статус эпика должен восстановиться");
+        assertEquals(movedSubtask.getStartTime(), loadedSecondEpic.getStartTime(), "Даты эпика должны восстановиться");
+        assertEquals(taskManager.getPrioritizedTasks().size(), loadedTaskManager.getPrioritizedTasks().size(),
+                "Список приоритетов должен восстановиться");
+        Task newTask = loadedTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        assertTrue(newTask.getId() > subtask.getId(), "Новый ID не должен совпадать с ID из журнала");
+    }
+
+    @Test
+    @DisplayName("Должен сжимать журнал в файл состояния после заданного числа записей")
+    public void test_addTask_WhenCompactionThresholdReached_ShouldCompactJournal() throws IOException {
+        //given
+        taskManager.setCompactionThreshold(3);
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        }
+
+        //then
+        assertFalse(journalFile.exists(), "Журнал должен быть сжат");
+        taskManager.awaitCompaction();
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "Все задачи должны быть в файле состояния");
+    }
+
+    @Test
+    @DisplayName("Должен сжимать журнал в фоне, продолжая писать новые изменения в новый журнал")
+    public void test_addTask_WhenCompactingInBackground_ShouldWriteNewChangesToNewJournal() throws IOException {
+        //given
+        taskManager.setCompactionThreshold(3);
+        File compactingJournalFile = new File(journalFile.getPath() + FileBackedTaskManager.COMPACTING_SUFFIX);
+        compactingJournalFile.deleteOnExit();
+        for (int i = 0; i < 3; i++) {
+            taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        }
+
+        //when
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.awaitCompaction();
+
+        //then
+        assertEquals(1, Files.readAllLines(journalFile.toPath()).size(),
+                "Новое изменение должно попасть в новый журнал");
+        assertFalse(compactingJournalFile.exists(), "Сжатый журнал должен быть удалён после записи состояния");
+        assertEquals(4, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "Должны восстановиться задачи из файла состояния и нового журнала");
+    }
+
+    @Test
+    @DisplayName("Должен применять журнал прерванного сжатия раньше текущего журнала")
+    public void test_loadFromFile_WhenCompactionInterrupted_ShouldReplayBothJournals() throws IOException {
+        //given
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        File compactingJournalFile = new File(journalFile.getPath() + FileBackedTaskManager.COMPACTING_SUFFIX);
+        compactingJournalFile.deleteOnExit();
+        Files.move(journalFile.toPath(), compactingJournalFile.toPath());
+        Task updatedTask = new Task(TASK_NAME, "Обновлённая задача");
+        updatedTask.setId(task.getId());
+        taskManager.updateTask(updatedTask);
+
+        //when
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals(2, loadedTaskManager.getAllTasks().size(), "Должны восстановиться задачи из обоих журналов");
+        assertEquals("Обновлённая задача", loadedTaskManager.getTaskById(task.getId()).getDescription(),
+                "Изменение из текущего журнала должно примениться последним");
+    }
+
+    @Test
+    @DisplayName("Должен сжимать журнал сразу, если после сбоя остался журнал прерванного сжатия")
+    public void test_addTask_WhenInterruptedCompactionLeftJournal_ShouldCompactSynchronously() throws IOException {
+        //given
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        File compactingJournalFile = new File(journalFile.getPath() + FileBackedTaskManager.COMPACTING_SUFFIX);
+        compactingJournalFile.deleteOnExit();
+        Files.move(journalFile.toPath(), compactingJournalFile.toPath());
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file, true);
+        loadedTaskManager.setCompactionThreshold(1);
+
+        //when
+        loadedTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+
+        //then
+        assertFalse(compactingJournalFile.exists(), "Журнал прерванного сжатия не должен заменяться новым");
+        assertFalse(journalFile.exists(), "Журнал должен быть сжат");
+        assertEquals(4, Files.readAllLines(file.toPath()).size(),
+                "В файле состояния должны быть заголовок и все три задачи до возврата вызова");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять в фоне состояние на момент вызова, не дожидаясь записи")
+    public void test_saveInBackground_WhenTasksChangedAfterCall_ShouldWriteFrozenState() throws IOException {
+        //given
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+
+        //when
+        CompletableFuture<Void> snapshot = taskManager.saveInBackground();
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        snapshot.join();
+
+        //then
+        assertEquals(3, Files.readAllLines(file.toPath()).size(),
+                "В файле состояния должны быть заголовок и две задачи на момент вызова");
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "Задача, добавленная во время сохранения, должна восстановиться из журнала");
+    }
+
+    @Test
+    @DisplayName("Должен пропускать недописанную последнюю запись журнала")
+    public void test_loadFromFile_WhenLastRecordTorn_ShouldSkipIt() throws IOException {
+        //given
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        Files.writeString(journalFile.toPath(), "PUT,3,TA", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        //when
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals(2, loadedTaskManager.getAllTasks().size(), "Должны восстановиться только целые записи");
+    }
+
+    @Test
+    @DisplayName("Должен дописывать журнал после недописанной записи без склейки с ней")
+    public void test_addTask_WhenLoadedAfterTornRecord_ShouldAppendCleanRecord() throws IOException {
+        //given
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        Files.writeString(journalFile.toPath(), "PUT,2,TA", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file, true);
+
+        //when
+        loadedTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+
+        //then
+        assertEquals(2, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "Новая запись должна восстановиться после обрезанной");
+    }
+
+    @Test
+    @DisplayName("Должен прерывать загрузку и сохранять журнал, если повреждена запись в середине журнала")
+    public void test_loadFromFile_WhenMiddleRecordCorrupted_ShouldThrowAndKeepJournal() throws IOException {
+        //given
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        Files.writeString(journalFile.toPath(), "PUT,2,TA" + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        long journalSize = journalFile.length();
+
+        //when & then
+        assertThrows(IOException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Повреждение в середине журнала не должно молча терять следующие записи");
+        assertEquals(journalSize, journalFile.length(), "Журнал не должен удаляться или сжиматься");
+    }
+}
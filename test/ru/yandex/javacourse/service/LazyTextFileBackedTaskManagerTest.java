@@ -0,0 +1,104 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyTextFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private static final int CACHE_CAPACITY = 2;
+    private File file;
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() throws IOException {
+        file = File.createTempFile("tmpFile", ".txt");
+        new File(file.getPath() + TaskTextStore.TEXT_SUFFIX).deleteOnExit();
+        FileBackedTaskManager fileBackedTaskManager = Managers.getDefaultFileBacked(file);
+        fileBackedTaskManager.enableLazyText(CACHE_CAPACITY);
+        return fileBackedTaskManager;
+    }
+
+    @Test
+    @DisplayName("Должен хранить в памяти задачи без текста и читать текст из файла")
+    public void test_getTaskById_WhenLazyText_ShouldReadTextFromFile() {
+        //given
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача", "Описание подзадачи", epic.getId()));
+        for (int i = 0; i < CACHE_CAPACITY; i++) {
+            taskManager.getTaskById(taskManager.addTask(new Task("Задача " + i, null)).getId());
+        }
+
+        //when
+        Subtask loadedSubtask = taskManager.getSubtaskById(subtask.getId());
+
+        //then
+        assertNull(taskManager.subtasks.get(subtask.getId()).getDescription(), "Текст не должен храниться в памяти");
+        assertEquals("Подзадача", loadedSubtask.getName(), "Имя должно читаться из файла текста");
+        assertEquals("Описание подзадачи", loadedSubtask.getDescription(), "Описание должно читаться из файла текста");
+        assertEquals("Описание эпика", taskManager.getAllEpics().get(0).getDescription(),
+                "Список эпиков должен содержать текст");
+        assertNull(taskManager.getTaskById(epic.getId() + 2).getDescription(), "Пустое описание должно остаться null");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать новый текст после обновления задачи")
+    public void test_updateTask_WhenLazyText_ShouldReturnUpdatedText() {
+        //given
+        Task task = taskManager.addTask(new Task("Задача", "Старое описание"));
+        taskManager.getTaskById(task.getId());
+        Task updatedTask = new Task("Задача", "Новое описание");
+        updatedTask.setId(task.getId());
+
+        //when
+        taskManager.updateTask(updatedTask);
+
+        //then
+        assertEquals("Новое описание", taskManager.getTaskById(task.getId()).getDescription(),
+                "Должно вернуться новое описание");
+        assertEquals("Новое описание", taskManager.getHistory().get(0).getDescription(),
+                "История должна читать текущий текст");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять в файл состояния полный текст задач")
+    public void test_save_WhenLazyText_ShouldWriteFullText() throws IOException {
+        //given
+        Task task = taskManager.addTask(new Task("Имя, с запятой", "Описание задачи"));
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание эпика"));
+
+        //when
+        taskManager.save();
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals("Имя, с запятой", loadedTaskManager.getTaskById(task.getId()).getName(),
+                "Имя задачи должно сохраниться");
+        assertEquals("Описание эпика", loadedTaskManager.getEpicById(epic.getId()).getDescription(),
+                "Описание эпика должно сохраниться");
+    }
+
+    @Test
+    @DisplayName("Должен переносить в файл текста задачи, загруженные до включения режима")
+    public void test_enableLazyText_WhenManagerLoaded_ShouldOffloadExistingTasks() throws IOException {
+        //given
+        Task task = taskManager.addTask(new Task("Задача", "Описание задачи"));
+        taskManager.save();
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //when
+        loadedTaskManager.enableLazyText(CACHE_CAPACITY);
+
+        //then
+        assertNull(loadedTaskManager.tasks.get(task.getId()).getName(), "Текст не должен храниться в памяти");
+        assertEquals("Описание задачи", loadedTaskManager.getAllTasks().get(0).getDescription(),
+                "Описание должно читаться из файла текста");
+        assertThrows(IllegalStateException.class, () -> loadedTaskManager.enableLazyText(CACHE_CAPACITY),
+                "Повторное включение должно быть запрещено");
+    }
+}
@@ -0,0 +1,135 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveHistoryManagerTest {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Описание задачи";
+
+    private final TaskManager taskManager = new InMemoryTaskManager(Managers.getLiveHistory(3));
+
+    @Test
+    @DisplayName("Должен возвращать в истории текущую версию задачи после обновления")
+    public void test_getHistory_WhenTaskUpdatedAfterView_ShouldReturnCurrentVersion() {
+        //given
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.getTaskById(task.getId());
+        Task updatedTask = new Task(TASK_NAME, "Обновлённое описание", TaskStatus.DONE);
+        updatedTask.setId(task.getId());
+
+        //when
+        taskManager.updateTask(updatedTask);
+        List<Task> history = taskManager.getHistory();
+
+        //then
+        assertEquals(1, history.size(), "В истории должна быть одна задача");
+        assertEquals("Обновлённое описание", history.get(0).getDescription(), "История должна видеть обновление");
+        assertEquals(TaskStatus.DONE, history.get(0).getStatus(), "История должна видеть новый статус");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать текущий статус эпика и убирать удалённые подзадачи")
+    public void test_getHistory_WhenSubtaskDeleted_ShouldReturnLiveEpicWithoutSubtask() {
+        //given
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.NEW,
+                epic.getId()));
+        Subtask doneSubtask = taskManager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.DONE,
+                epic.getId()));
+        taskManager.getEpicById(epic.getId());
+        taskManager.getSubtaskById(subtask.getId());
+
+        //when
+        taskManager.deleteSubtaskById(subtask.getId());
+        List<Task> history = taskManager.getHistory();
+
+        //then
+        assertEquals(1, history.size(), "Удалённая подзадача должна уйти из истории");
+        assertEquals(TaskStatus.DONE, history.get(0).getStatus(), "Статус эпика должен быть текущим");
+        assertEquals(List.of(doneSubtask.getId()), ((Epic) history.get(0)).getSubtasksIdList(),
+                "Список подзадач эпика должен быть текущим");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать копии задач, изменение которых не меняет менеджер")
+    public void test_getHistory_WhenReturnedTaskChanged_ShouldNotChangeManager() {
+        //given
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.getTaskById(task.getId());
+
+        //when
+        taskManager.getHistory().get(0).setDescription("Изменённое описание");
+
+        //then
+        assertEquals(TASK_DESCRIPTION, taskManager.getHistory().get(0).getDescription(),
+                "Изменение копии не должно попадать в менеджер");
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять самый старый просмотр, когда история заполнена")
+    public void test_getTaskById_WhenHistoryFull_ShouldEvictOldestView() {
+        //given
+        int[] ids = new int[4];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = taskManager.addTask(new Task(TASK_NAME + " " + i, TASK_DESCRIPTION)).getId();
+        }
+
+        //when
+        for (int id : ids) {
+            taskManager.getTaskById(id);
+        }
+
+        //then
+        List<Task> history = taskManager.getHistory();
+        assertEquals(3, history.size(), "История не должна превышать заданный размер");
+        assertEquals(ids[1], history.get(0).getId(), "Самый старый просмотр должен быть вытеснен");
+    }
+
+    @Test
+    @DisplayName("Должен убирать из истории все подзадачи при их удалении, не трогая остальные задачи")
+    public void test_deleteAllSubtasks_WhenSubtasksViewed_ShouldRemoveOnlySubtasksFromHistory() {
+        //given
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.NEW,
+                epic.getId()));
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.getSubtaskById(subtask.getId());
+        taskManager.getEpicById(epic.getId());
+
+        //when
+        taskManager.deleteAllSubtasks();
+        taskManager.getTaskById(task.getId());
+        Subtask newSubtask = taskManager.addSubtask(new Subtask("Подзадача", "Описание", TaskStatus.NEW,
+                epic.getId()));
+        taskManager.getSubtaskById(newSubtask.getId());
+
+        //then
+        List<Task> history = taskManager.getHistory();
+        assertEquals(List.of(epic.getId(), task.getId(), newSubtask.getId()),
+                history.stream().map(Task::getId).toList(), "В истории должны остаться только новые просмотры");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать пустую историю, если менеджер истории не привязан к менеджеру задач")
+    public void test_getHistory_WhenNotBound_ShouldSkipUnresolvedIds() {
+        //given
+        HistoryManager historyManager = new LiveHistoryManager(3);
+        Task task = new Task(TASK_NAME, TASK_DESCRIPTION);
+        task.setId(1);
+
+        //when
+        historyManager.add(task);
+
+        //then
+        assertTrue(historyManager.getHistory().isEmpty(), "Задачи без поиска по ID должны пропускаться");
+    }
+}
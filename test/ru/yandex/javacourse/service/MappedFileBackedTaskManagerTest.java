@@ -0,0 +1,163 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Новая задача";
+    private File file;
+    private File heapFile;
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() throws IOException {
+        file = File.createTempFile("tmpFile", ".slots");
+        heapFile = new File(file.getPath() + MappedRecordStore.HEAP_SUFFIX);
+        heapFile.deleteOnExit();
+        return Managers.getMappedFileBacked(file);
+    }
+
+    @Test
+    @DisplayName("Должен восстанавливать задачи из хранилища слотов без явного сохранения")
+    public void test_loadFromFile_WhenMapped_ShouldRestoreAllTasks() throws IOException {
+        //given
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task task = taskManager.addTask(new Task("Имя, с запятой", null, TaskStatus.IN_PROGRESS,
+                Duration.ofMinutes(90), startTime));
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Описание эпика"));
+        Subtask subtask = taskManager.addSubtask(new Subtask("Подзадача", "", TaskStatus.DONE, epic.getId(),
+                Duration.ofMinutes(15), startTime.plusDays(1)));
+
+        //when
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals(SnapshotFormat.MAPPED, loadedTaskManager.getSnapshotFormat(), "Формат должен определиться");
+        Task loadedTask = loadedTaskManager.getTaskById(task.getId());
+        assertEquals(task.getName(), loadedTask.getName(), "Имя должно восстановиться");
+        assertNull(loadedTask.getDescription(), "null должен остаться null");
+        assertEquals(startTime, loadedTask.getStartTime(), "Время должно восстановиться");
+        assertEquals(Duration.ofMinutes(90), loadedTask.getDuration(), "Длительность должна восстановиться");
+        Subtask loadedSubtask = loadedTaskManager.getSubtaskById(subtask.getId());
+        assertEquals("", loadedSubtask.getDescription(), "Пустая строка должна восстановиться");
+        assertEquals(TaskStatus.DONE, loadedTaskManager.getEpicById(epic.getId()).getStatus(),
+                "Статус эпика должен пересчитаться");
+        Task newTask = loadedTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        assertTrue(newTask.getId() > subtask.getId(), "Новый ID не должен совпадать с загруженными");
+    }
+
+    @Test
+    @DisplayName("Должен переписывать только слот задачи, не дописывая неизменённые строки")
+    public void test_updateTask_WhenOnlyStatusChanged_ShouldNotGrowFiles() throws IOException {
+        //given
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        long slotsSize = file.length();
+        byte[] heapBefore = Files.readAllBytes(heapFile.toPath());
+        Task updatedTask = new Task(TASK_NAME, TASK_DESCRIPTION, TaskStatus.DONE);
+        updatedTask.setId(task.getId());
+
+        //when
+        taskManager.updateTask(updatedTask);
+
+        //then
+        assertEquals(slotsSize, file.length(), "Файл слотов не должен расти");
+        assertArrayEquals(heapBefore, Files.readAllBytes(heapFile.toPath()), "Куча не должна меняться");
+        assertEquals(TaskStatus.DONE, FileBackedTaskManager.loadFromFile(file).getTaskById(task.getId()).getStatus(),
+                "Новый статус должен быть в слоте");
+    }
+
+    @Test
+    @DisplayName("Должен освобождать слоты подзадач вместе с эпиком и расширять файл для больших ID")
+    public void test_deleteEpicById_WhenMapped_ShouldFreeSubtaskSlots() throws IOException {
+        //given
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Эпик"));
+        taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+        Epic keptEpic = taskManager.addEpic(new Epic("Эпик", "Эпик"));
+        for (int i = 0; i < 2000; i++) {
+            taskManager.addSubtask(new Subtask("Подзадача " + i, "Подзадача", keptEpic.getId()));
+        }
+
+        //when
+        taskManager.deleteEpicById(epic.getId());
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertEquals(1, loadedTaskManager.getAllEpics().size(), "Должен остаться один эпик");
+        assertEquals(2000, loadedTaskManager.getAllSubtasks().size(), "Подзадачи удалённого эпика не должны вернуться");
+        assertEquals("Подзадача 1999", loadedTaskManager.getAllSubtasksByEpicId(keptEpic.getId()).get(1999).getName(),
+                "Слоты после расширения файла должны читаться");
+    }
+
+    @Test
+    @DisplayName("Должен оставлять загружаемый файл, если удаление эпика прервалось на его подзадачах")
+    public void test_deleteEpic_WhenInterruptedBetweenSlots_ShouldKeepFileLoadable() throws IOException {
+        //given
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Эпик"));
+        Subtask firstSubtask = taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+        Subtask secondSubtask = taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+        List<Integer> interruptedSubtaskIds = new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                if (index > 0) {
+                    throw new IllegalStateException("Процесс прерван");
+                }
+                return firstSubtask.getId();
+            }
+
+            @Override
+            public int size() {
+                return 2;
+            }
+        };
+        MappedRecordStore store = MappedRecordStore.open(file, false);
+
+        //when
+        try {
+            assertThrows(IllegalStateException.class, () -> store.deleteEpic(epic.getId(), interruptedSubtaskIds));
+        } finally {
+            store.close();
+        }
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+
+        //then
+        assertNotNull(loadedTaskManager.getEpicById(epic.getId()), "Эпик должен освобождаться последним");
+        assertEquals(List.of(secondSubtask.getId()), loadedTaskManager.getEpicById(epic.getId()).getSubtasksIdList(),
+                "Должна остаться только неудалённая подзадача");
+    }
+
+    @Test
+    @DisplayName("Должен конвертировать файл из CSV в хранилище слотов и обратно без потерь")
+    public void test_convert_WhenCsvToMappedAndBack_ShouldKeepAllTasks() throws IOException {
+        //given
+        File csvFile = File.createTempFile("tmpFile", ".csv");
+        FileBackedTaskManager csvTaskManager = Managers.getDefaultFileBacked(csvFile);
+        Epic epic = csvTaskManager.addEpic(new Epic("Эпик", "Эпик"));
+        csvTaskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION, Duration.ofMinutes(30),
+                LocalDateTime.of(2025, 1, 1, 10, 0)));
+        csvTaskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+        csvTaskManager.save();
+        File convertedCsvFile = File.createTempFile("tmpFile", ".csv");
+
+        //when
+        FileBackedTaskManager.convert(csvFile, file, SnapshotFormat.MAPPED);
+        FileBackedTaskManager.convert(file, convertedCsvFile, SnapshotFormat.CSV);
+
+        //then
+        assertEquals(Files.readAllLines(csvFile.toPath()), Files.readAllLines(convertedCsvFile.toPath()),
+                "После обратной конвертации файл должен совпасть с исходным");
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MvccTaskManagerTest extends TaskManagerTest<TaskManager> {
+
+    @Override
+    protected TaskManager createTaskManager() {
+        return Managers.getMvcc();
+    }
+
+    @Test
+    @DisplayName("Должен сохранять в снимке состояние на момент его получения")
+    public void test_getSnapshot_WhenManagerChangedAfter_ShouldKeepPointInTimeState() {
+        //given
+        MvccTaskManager mvccTaskManager = (MvccTaskManager) taskManager;
+        Task task = mvccTaskManager.addTask(new Task("Задача", "Задача", Duration.ofMinutes(10),
+                LocalDateTime.of(2025, 1, 1, 10, 0)));
+        Epic epic = mvccTaskManager.addEpic(new Epic("Эпик", "Эпик"));
+        Subtask subtask = mvccTaskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+        Subtask doneSubtask = new Subtask("Подзадача", "Подзадача", TaskStatus.DONE, epic.getId());
+        doneSubtask.setId(subtask.getId());
+        TaskBoardSnapshot snapshot = mvccTaskManager.getSnapshot();
+
+        //when
+        mvccTaskManager.updateSubtask(doneSubtask);
+        mvccTaskManager.deleteTaskById(task.getId());
+
+        //then
+        assertEquals(1, snapshot.getTasksCount(), "Снимок не должен видеть удаление");
+        assertEquals(1, snapshot.getPrioritizedTasks().size(), "Снимок должен хранить свои приоритеты");
+        assertEquals(TaskStatus.NEW, snapshot.getEpic(epic.getId()).orElseThrow().getStatus(),
+                "Эпик в снимке не должен меняться");
+        assertEquals(TaskStatus.DONE, mvccTaskManager.getSnapshot().getEpic(epic.getId()).orElseThrow().getStatus(),
+                "Эпик в новом снимке должен быть обновлён");
+        assertEquals(0, mvccTaskManager.getSnapshot().getTasksCount(), "Новый снимок должен видеть удаление");
+        assertTrue(mvccTaskManager.getSnapshot().getVersion() > snapshot.getVersion(),
+                "Каждая запись должна публиковать новую версию");
+    }
+
+    @Test
+    @DisplayName("Должен обновлять порядок приоритета вместе с версией, не меняя порядок прежнего снимка")
+    public void test_getPrioritizedTasks_WhenTaskMovedInTime_ShouldUpdateOnlyNewSnapshot() {
+        //given
+        MvccTaskManager mvccTaskManager = (MvccTaskManager) taskManager;
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task firstTask = mvccTaskManager.addTask(new Task("Задача 1", "Задача", Duration.ofMinutes(10), startTime));
+        Task secondTask = mvccTaskManager.addTask(new Task("Задача 2", "Задача", Duration.ofMinutes(10),
+                startTime.plusHours(1)));
+        Epic epic = mvccTaskManager.addEpic(new Epic("Эпик", "Эпик"));
+        Subtask subtask = mvccTaskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId(),
+                Duration.ofMinutes(10), startTime.plusHours(2)));
+        TaskBoardSnapshot snapshot = mvccTaskManager.getSnapshot();
+        Task movedTask = new Task("Задача 1", "Задача", Duration.ofMinutes(10), startTime.plusHours(3));
+        movedTask.setId(firstTask.getId());
+
+        //when
+        mvccTaskManager.updateTask(movedTask);
+        mvccTaskManager.deleteEpicById(epic.getId());
+
+        //then
+        assertEquals(List.of(firstTask.getId(), secondTask.getId(), subtask.getId()),
+                snapshot.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Прежний снимок должен сохранить свой порядок");
+        assertEquals(List.of(secondTask.getId(), firstTask.getId()),
+                mvccTaskManager.getPrioritizedTasksView().stream().map(Task::getId).toList(),
+                "Новый снимок должен видеть перенос и удаление");
+    }
+
+    @Test
+    @DisplayName("Должен публиковать пакет изменений одной версией")
+    public void test_runBatch_WhenSeveralMutations_ShouldPublishOneVersion() {
+        //given
+        MvccTaskManager mvccTaskManager = (MvccTaskManager) taskManager;
+        Epic epic = mvccTaskManager.addEpic(new Epic("Эпик", "Эпик"));
+        long initialVersion = mvccTaskManager.getSnapshot().getVersion();
+
+        //when
+        mvccTaskManager.runBatch(() -> {
+            mvccTaskManager.addTask(new Task("Задача", "Задача"));
+            mvccTaskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+            mvccTaskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+        });
+
+        //then
+        assertEquals(initialVersion + 1, mvccTaskManager.getSnapshot().getVersion(),
+                "Пакет должен получить один номер версии");
+        assertEquals(2, mvccTaskManager.getSnapshot().getSubtasksCount(), "Все изменения пакета должны быть видны");
+    }
+}
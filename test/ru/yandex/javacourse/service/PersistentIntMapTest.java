@@ -0,0 +1,77 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentIntMapTest {
+
+    @Test
+    @DisplayName("Должен оставлять прежнюю версию без изменений после записи")
+    public void test_put_WhenNewVersionCreated_OldVersionShouldStayUnchanged() {
+        //given
+        PersistentIntMap<String> first = PersistentIntMap.<String>empty().put(1, "один");
+
+        //when
+        PersistentIntMap<String> second = first.put(2, "два").put(1, "первый");
+        PersistentIntMap<String> third = second.remove(1);
+
+        //then
+        assertEquals("один", first.get(1), "Старая версия не должна меняться");
+        assertNull(first.get(2), "Старая версия не должна видеть новые ключи");
+        assertEquals("первый", second.get(1), "Новая версия должна видеть замену");
+        assertEquals(2, second.size(), "Замена не должна менять размер");
+        assertNull(third.get(1), "Удалённый ключ не должен находиться");
+        assertEquals(1, third.size(), "Размер должен уменьшиться после удаления");
+    }
+
+    @Test
+    @DisplayName("Должен совпадать с HashMap на случайных операциях и обходить значения по возрастанию ключей")
+    public void test_putAndRemove_WhenRandomOperations_ShouldMatchHashMap() {
+        //given
+        Random random = new Random(7);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+
+        //when
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(i % 2 == 0 ? 5000 : Integer.MAX_VALUE);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, key);
+                map = map.put(key, key);
+            }
+        }
+
+        //then
+        assertEquals(expected.size(), map.size(), "Размер должен совпадать");
+        for (Integer key : expected.keySet()) {
+            assertEquals(key, map.get(key), "Значение должно находиться по ключу");
+        }
+        List<Integer> values = new ArrayList<>();
+        map.forEach(values::add);
+        List<Integer> sortedKeys = new ArrayList<>(expected.keySet());
+        sortedKeys.sort(null);
+        assertEquals(sortedKeys, values, "Обход должен идти по возрастанию ключей");
+    }
+
+    @Test
+    @DisplayName("Должен отклонять отрицательные ключи и не находить их")
+    public void test_put_WhenKeyNegative_ShouldThrowIllegalArgumentException() {
+        //given
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().put(0, "ноль");
+
+        //when & then
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, "минус один"));
+        assertNull(map.get(-1), "Отрицательный ключ не должен находиться");
+        assertEquals("ноль", map.get(0), "Нулевой ключ должен находиться");
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentSortedSetTest {
+
+    @Test
+    @DisplayName("Должен оставлять прежнюю версию без изменений после добавления и удаления")
+    public void test_add_WhenNewVersionCreated_OldVersionShouldStayUnchanged() {
+        //given
+        PersistentSortedSet<Integer> first = PersistentSortedSet.<Integer>empty(Comparator.naturalOrder()).add(2);
+
+        //when
+        PersistentSortedSet<Integer> second = first.add(1).add(3);
+        PersistentSortedSet<Integer> third = second.remove(2);
+
+        //then
+        assertEquals(List.of(2), toList(first), "Старая версия не должна меняться");
+        assertEquals(List.of(1, 2, 3), toList(second), "Новая версия должна видеть добавления");
+        assertEquals(List.of(1, 3), toList(third), "Удалённый элемент не должен находиться");
+        assertSame(third, third.remove(5), "Удаление отсутствующего элемента должно возвращать ту же версию");
+    }
+
+    @Test
+    @DisplayName("Должен совпадать с TreeSet на случайных операциях, включая поиск соседних элементов")
+    public void test_addAndRemove_WhenRandomOperations_ShouldMatchTreeSet() {
+        //given
+        Random random = new Random(11);
+        TreeSet<Integer> expected = new TreeSet<>();
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Comparator.naturalOrder());
+
+        //when
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(3000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                set = set.remove(value);
+            } else {
+                expected.add(value);
+                set = set.add(value);
+            }
+        }
+
+        //then
+        NavigableSet<Integer> view = set.asNavigableSet();
+        assertEquals(expected.size(), set.size(), "Размер должен совпадать");
+        assertEquals(new ArrayList<>(expected), toList(set), "Обход должен идти по возрастанию");
+        assertEquals(expected.first(), view.first(), "Первый элемент должен совпадать");
+        assertEquals(expected.last(), view.last(), "Последний элемент должен совпадать");
+        for (int value = -1; value <= 3000; value += 7) {
+            assertEquals(expected.lower(value), view.lower(value), "lower должен совпадать для " + value);
+            assertEquals(expected.floor(value), view.floor(value), "floor должен совпадать для " + value);
+            assertEquals(expected.ceiling(value), view.ceiling(value), "ceiling должен совпадать для " + value);
+            assertEquals(expected.higher(value), view.higher(value), "higher должен совпадать для " + value);
+        }
+        assertEquals(expected.headSet(1000), view.headSet(1000), "Поддиапазон должен совпадать");
+        assertThrows(UnsupportedOperationException.class, () -> view.add(1), "Представление только для чтения");
+    }
+
+    private static List<Integer> toList(PersistentSortedSet<Integer> set) {
+        List<Integer> values = new ArrayList<>();
+        set.forEach(values::add);
+        return values;
+    }
+}
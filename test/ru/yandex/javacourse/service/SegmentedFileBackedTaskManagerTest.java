@@ -0,0 +1,137 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.exceptions.ManagerSaveException;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+import ru.yandex.javacourse.model.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Новая задача";
+    private File file;
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() throws IOException {
+        file = File.createTempFile("tmpFile", ".txt");
+        return Managers.getSegmentedFileBacked(file);
+    }
+
+    @Test
+    @DisplayName("Должен переписывать только сегмент изменённой подзадачи")
+    public void test_updateSubtask_WhenSegmented_ShouldRewriteOnlyItsSegment() throws IOException {
+        //given
+        int subtasksCount = FileBackedTaskManager.SEGMENT_SIZE * 2;
+        StringBuilder content = new StringBuilder(CsvTaskCodec.HEADER).append(System.lineSeparator());
+        content.append("1,EPIC,Эпик,NEW,Эпик,без эпика,,").append(System.lineSeparator());
+        for (int id = 2; id <= subtasksCount + 1; id++) {
+            content.append(id).append(",SUBTASK,Подзадача,NEW,Подзадача,1,,").append(System.lineSeparator());
+        }
+        File csvFile = File.createTempFile("tmpFile", ".csv");
+        Files.writeString(csvFile.toPath(), content);
+        FileBackedTaskManager.convert(csvFile, file, SnapshotFormat.SEGMENTED);
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+        File[] segmentFiles = new File[3];
+        for (int segment = 0; segment < segmentFiles.length; segment++) {
+            segmentFiles[segment] = SegmentedSnapshotBackend.findSegmentFile(file, segment);
+            assertTrue(segmentFiles[segment].setLastModified(1_000_000), "Сегмент " + segment + " должен существовать");
+        }
+        int updatedId = FileBackedTaskManager.SEGMENT_SIZE + 5;
+        Subtask updatedSubtask = new Subtask("Подзадача", "Изменённая", TaskStatus.DONE, 1);
+        updatedSubtask.setId(updatedId);
+
+        //when
+        loadedTaskManager.updateSubtask(updatedSubtask);
+        loadedTaskManager.save();
+
+        //then
+        assertEquals(segmentFiles[0], SegmentedSnapshotBackend.findSegmentFile(file, 0),
+                "Первый сегмент не должен переписываться");
+        assertEquals(1_000_000, segmentFiles[0].lastModified(), "Первый сегмент не должен переписываться");
+        assertNotEquals(segmentFiles[1], SegmentedSnapshotBackend.findSegmentFile(file, 1),
+                "Сегмент подзадачи должен переписаться в файл нового поколения");
+        assertFalse(segmentFiles[1].exists(), "Файл прежнего поколения должен удаляться");
+        assertEquals(segmentFiles[2], SegmentedSnapshotBackend.findSegmentFile(file, 2),
+                "Последний сегмент не должен переписываться");
+        assertEquals(1_000_000, segmentFiles[2].lastModified(), "Последний сегмент не должен переписываться");
+        FileBackedTaskManager reloadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(subtasksCount, reloadedTaskManager.getAllSubtasks().size(), "Все подзадачи должны загрузиться");
+        assertEquals(TaskStatus.DONE, reloadedTaskManager.getSubtaskById(updatedId).getStatus(),
+                "Изменение должно сохраниться");
+        assertEquals(TaskStatus.IN_PROGRESS, reloadedTaskManager.getEpicById(1).getStatus(),
+                "Статус эпика должен пересчитаться");
+    }
+
+    @Test
+    @DisplayName("Должен переписывать сегменты подзадач удалённого эпика и удалять опустевшие сегменты")
+    public void test_deleteEpicById_WhenSegmented_ShouldRewriteSubtaskSegments() throws IOException {
+        //given
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Эпик"));
+        taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+
+        //when
+        taskManager.deleteEpicById(epic.getId());
+        taskManager.deleteAllTasks();
+        Task keptTask = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        taskManager.save();
+
+        //then
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(SnapshotFormat.SEGMENTED, loadedTaskManager.getSnapshotFormat(), "Формат должен определиться");
+        assertTrue(loadedTaskManager.getAllEpics().isEmpty(), "Эпик не должен вернуться");
+        assertTrue(loadedTaskManager.getAllSubtasks().isEmpty(), "Подзадачи эпика не должны вернуться");
+        assertEquals(1, loadedTaskManager.getAllTasks().size(), "Должна остаться одна задача");
+        assertNotEquals(task.getId(), keptTask.getId(), "ID удалённой задачи не должен переиспользоваться");
+        File firstSegmentFile = SegmentedSnapshotBackend.findSegmentFile(file, 0);
+        taskManager.deleteAllTasks();
+        taskManager.save();
+        assertNull(SegmentedSnapshotBackend.findSegmentFile(file, 0), "Опустевший сегмент должен убираться из списка");
+        assertFalse(firstSegmentFile.exists(), "Файл опустевшего сегмента должен удаляться");
+    }
+
+    @Test
+    @DisplayName("Должен загружать прежнее состояние, если запись прервалась после первого сегмента")
+    public void test_deleteEpicById_WhenSaveInterruptedAfterFirstSegment_ShouldKeepFileLoadable()
+            throws IOException {
+        //given
+        int subtaskId = FileBackedTaskManager.SEGMENT_SIZE + 1;
+        File csvFile = File.createTempFile("tmpFile", ".csv");
+        Files.writeString(csvFile.toPath(), CsvTaskCodec.HEADER + System.lineSeparator()
+                + "1,EPIC,Эпик,NEW,Эпик,без эпика,," + System.lineSeparator()
+                + "2,TASK,Задача,NEW,Задача,без эпика,," + System.lineSeparator()
+                + subtaskId + ",SUBTASK,Подзадача,NEW,Подзадача,1,," + System.lineSeparator()
+                + (subtaskId + 1) + ",TASK,Задача,NEW,Задача,без эпика,," + System.lineSeparator());
+        FileBackedTaskManager.convert(csvFile, file, SnapshotFormat.SEGMENTED);
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+        File firstSegmentFile = SegmentedSnapshotBackend.findSegmentFile(file, 0);
+        File blockedTempFile = new File(SegmentedSnapshotBackend.segmentFile(file, 1, 2).getPath() + ".tmp");
+        assertTrue(blockedTempFile.mkdir(), "Запись второго сегмента должна быть заблокирована");
+
+        //when
+        assertThrows(ManagerSaveException.class, () -> {
+            loadedTaskManager.deleteEpicById(1);
+            loadedTaskManager.save();
+        }, "Запись должна прерваться на втором сегменте");
+
+        //then
+        FileBackedTaskManager reloadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, reloadedTaskManager.getAllEpics().size(), "Эпик должен остаться в файле");
+        assertEquals(List.of(subtaskId), reloadedTaskManager.getEpicById(1).getSubtasksIdList(),
+                "Подзадача должна остаться привязанной к эпику");
+        assertEquals(firstSegmentFile, SegmentedSnapshotBackend.findSegmentFile(file, 0),
+                "Список сегментов не должен указывать на файлы прерванной записи");
+        assertFalse(SegmentedSnapshotBackend.segmentFile(file, 0, 2).exists(),
+                "Файл прерванной записи должен удаляться");
+        assertTrue(blockedTempFile.delete());
+    }
+}
@@ -0,0 +1,213 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoryManagerTest {
+    private static final String TASK_NAME = "Задача";
+    private static final String TASK_DESCRIPTION = "Описание задачи";
+    private static final String FIRST_CLIENT = "client-1";
+    private static final String SECOND_CLIENT = "client-2";
+
+    private SessionHistoryManager sessionHistory = new SessionHistoryManager();
+    private TaskManager taskManager = new InMemoryTaskManager(sessionHistory);
+
+    @AfterEach
+    public void tearDown() {
+        sessionHistory.setCurrentClient(null);
+    }
+
+    @Test
+    @DisplayName("Должен вести отдельную историю для каждого клиента")
+    public void test_getHistory_WhenDifferentClients_ShouldReturnOwnHistory() {
+        //given
+        Task firstTask = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        Task secondTask = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+
+        //when
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        taskManager.getTaskById(firstTask.getId());
+        sessionHistory.setCurrentClient(SECOND_CLIENT);
+        taskManager.getTaskById(secondTask.getId());
+        taskManager.getTaskById(firstTask.getId());
+
+        //then
+        assertEquals(List.of(secondTask.getId(), firstTask.getId()), ids(taskManager.getHistory()),
+                "Клиент должен видеть только свои просмотры");
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        assertEquals(List.of(firstTask.getId()), ids(taskManager.getHistory()),
+                "Клиент должен видеть только свои просмотры");
+        sessionHistory.setCurrentClient(null);
+        assertTrue(taskManager.getHistory().isEmpty(), "Просмотры клиентов не должны попадать в общую историю");
+    }
+
+    @Test
+    @DisplayName("Должен убирать удалённую задачу из истории другого клиента")
+    public void test_getHistory_WhenTaskDeletedByAnotherClient_ShouldSkipTask() {
+        //given
+        Task firstTask = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        Task secondTask = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        taskManager.getTaskById(firstTask.getId());
+        taskManager.getTaskById(secondTask.getId());
+
+        //when
+        sessionHistory.setCurrentClient(SECOND_CLIENT);
+        taskManager.deleteTaskById(firstTask.getId());
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+
+        //then
+        assertEquals(List.of(secondTask.getId()), ids(taskManager.getHistory()),
+                "Удалённая задача не должна остаться в истории");
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять сессию, к которой дольше всех не обращались, при превышении числа сессий")
+    public void test_add_WhenMaxSessionsExceeded_ShouldEvictLeastRecentlyUsedSession() {
+        //given
+        sessionHistory = new SessionHistoryManager(new InMemoryHistoryManager(), 10, 2, Duration.ofMinutes(1));
+        taskManager = new InMemoryTaskManager(sessionHistory);
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        taskManager.getTaskById(task.getId());
+        sessionHistory.setCurrentClient(SECOND_CLIENT);
+        taskManager.getTaskById(task.getId());
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        taskManager.getHistory();
+
+        //when
+        sessionHistory.setCurrentClient("client-3");
+        taskManager.getTaskById(task.getId());
+
+        //then
+        assertEquals(2, sessionHistory.getSessionsCount(), "Число сессий не должно превышать заданное");
+        sessionHistory.setCurrentClient(SECOND_CLIENT);
+        assertTrue(taskManager.getHistory().isEmpty(), "Сессия без обращений должна быть вытеснена");
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        assertEquals(1, taskManager.getHistory().size(), "Недавно использованная сессия должна сохраниться");
+    }
+
+    @Test
+    @DisplayName("Должен удалять сессии, простаивающие дольше заданного времени")
+    public void test_getSessionsCount_WhenSessionIdle_ShouldEvictSession() throws InterruptedException {
+        //given
+        sessionHistory = new SessionHistoryManager(new InMemoryHistoryManager(), 10, 10, Duration.ofMillis(50));
+        taskManager = new InMemoryTaskManager(sessionHistory);
+        Task task = taskManager.addTask(new Task(TASK_NAME, TASK_DESCRIPTION));
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        taskManager.getTaskById(task.getId());
+
+        //when
+        Thread.sleep(100);
+
+        //then
+        assertEquals(0, sessionHistory.getSessionsCount(), "Простаивающая сессия должна быть удалена");
+        assertTrue(taskManager.getHistory().isEmpty(), "История удалённой сессии должна быть пустой");
+    }
+
+    @Test
+    @DisplayName("Должен вытеснять из заполненной истории клиента задачи, удалённые другим клиентом, а не живые")
+    public void test_add_WhenFullHistoryHasTasksDeletedByAnotherClient_ShouldKeepNewestLiveTasks() {
+        //given
+        sessionHistory = new SessionHistoryManager(new InMemoryHistoryManager(), 3, 10, Duration.ofMinutes(1));
+        taskManager = new InMemoryTaskManager(sessionHistory);
+        List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            taskIds.add(taskManager.addTask(new Task(TASK_NAME + " " + i, TASK_DESCRIPTION)).getId());
+        }
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        taskIds.subList(0, 3).forEach(taskManager::getTaskById);
+        sessionHistory.setCurrentClient(SECOND_CLIENT);
+        taskManager.deleteTaskById(taskIds.get(1));
+        taskManager.deleteTaskById(taskIds.get(2));
+
+        //when
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        taskIds.subList(3, 5).forEach(taskManager::getTaskById);
+
+        //then
+        assertEquals(List.of(taskIds.get(0), taskIds.get(3), taskIds.get(4)), ids(taskManager.getHistory()),
+                "Удалённые задачи не должны вытеснять живые просмотры");
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать историю клиента заданным размером")
+    public void test_add_WhenSessionHistoryFull_ShouldEvictOldestView() {
+        //given
+        sessionHistory = new SessionHistoryManager(new InMemoryHistoryManager(), 2, 10, Duration.ofMinutes(1));
+        taskManager = new InMemoryTaskManager(sessionHistory);
+        sessionHistory.setCurrentClient(FIRST_CLIENT);
+        List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            taskIds.add(taskManager.addTask(new Task(TASK_NAME + " " + i, TASK_DESCRIPTION)).getId());
+        }
+
+        //when
+        taskIds.forEach(taskManager::getTaskById);
+
+        //then
+        assertEquals(taskIds.subList(1, 3), ids(taskManager.getHistory()),
+                "Самый старый просмотр должен быть вытеснен");
+    }
+
+    @Test
+    @DisplayName("Должен вести истории клиентов из многих потоков без смешивания и не превышать число сессий")
+    public void test_add_WhenManyClientsInManyThreads_ShouldKeepHistoriesSeparateAndLimit() throws Exception {
+        //given
+        int maxSessions = 32;
+        int threadsCount = 8;
+        sessionHistory = new SessionHistoryManager(new InMemoryHistoryManager(), 10, maxSessions,
+                Duration.ofMinutes(1));
+        taskManager = new StampedLockTaskManager(new InMemoryTaskManager(sessionHistory));
+        List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < threadsCount; i++) {
+            taskIds.add(taskManager.addTask(new Task(TASK_NAME + " " + i, TASK_DESCRIPTION)).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        List<Future<Boolean>> futures = new ArrayList<>();
+
+        //when
+        try {
+            for (int thread = 0; thread < threadsCount; thread++) {
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    boolean isOnlyOwnTaskSeen = true;
+                    for (int i = 0; i < 500; i++) {
+                        sessionHistory.setCurrentClient("client-" + offset + "-" + i % 20);
+                        taskManager.getTaskById(taskIds.get(offset));
+                        List<Integer> historyIds = ids(taskManager.getHistory());
+                        isOnlyOwnTaskSeen &= historyIds.isEmpty() || historyIds.equals(List.of(taskIds.get(offset)));
+                    }
+                    sessionHistory.setCurrentClient(null);
+                    return isOnlyOwnTaskSeen;
+                }));
+            }
+
+            //then
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(30, TimeUnit.SECONDS), "Клиент не должен видеть просмотры других клиентов");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(sessionHistory.getSessionsCount() <= maxSessions, "Число сессий не должно превышать заданное");
+    }
+
+    private List<Integer> ids(List<Task> history) {
+        List<Integer> ids = new ArrayList<>();
+        history.forEach(task -> ids.add(task.getId()));
+        return ids;
+    }
+}
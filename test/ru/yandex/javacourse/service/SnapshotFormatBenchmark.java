@@ -0,0 +1,89 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Сравнение времени сохранения и загрузки файла состояния в форматах CSV и двоичном,
+ * а также загрузки и изменения одной задачи в хранилище слотов.
+ * Запускается вручную: аргумент - число записей, по умолчанию миллион
+ */
+public class SnapshotFormatBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int recordsCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "Прогрев:" : "Замер:");
+            measure(SnapshotFormat.CSV, recordsCount);
+            File binaryFile = measure(SnapshotFormat.BINARY, recordsCount);
+            measureMapped(binaryFile);
+        }
+    }
+
+    private static File measure(SnapshotFormat snapshotFormat, int recordsCount) throws Exception {
+        File file = File.createTempFile("snapshot", "." + snapshotFormat.name().toLowerCase());
+        file.deleteOnExit();
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Epic epic = source.addEpic(new Epic("Эпик", "Описание эпика"));
+        for (int i = 1; i < recordsCount; i++) {
+            LocalDateTime taskStartTime = startTime.plusMinutes(i * 2L);
+            if (i % 2 == 0) {
+                source.restore(withId(new Task("Задача", "Описание задачи", Duration.ofMinutes(1),
+                        taskStartTime), i + 1));
+            } else {
+                source.restore(withId(new Subtask("Подзадача", "Описание подзадачи", epic.getId(),
+                        Duration.ofMinutes(1), taskStartTime), i + 1));
+            }
+        }
+
+        FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(file, snapshotFormat);
+        source.getAllTasks().forEach(fileBackedTaskManager::restore);
+        source.getAllEpics().forEach(fileBackedTaskManager::restore);
+        source.getAllSubtasks().forEach(fileBackedTaskManager::restore);
+
+        long saveStart = System.nanoTime();
+        fileBackedTaskManager.save();
+        long saveMillis = (System.nanoTime() - saveStart) / 1_000_000;
+
+        long loadStart = System.nanoTime();
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+        System.out.printf("%-6s записей: %d, размер: %d КБ, сохранение: %d мс, загрузка: %d мс%n",
+                snapshotFormat, loadedTaskManager.getAllTasks().size() + loadedTaskManager.getAllSubtasks().size()
+                        + loadedTaskManager.getAllEpics().size(), file.length() / 1024, saveMillis, loadMillis);
+        return file;
+    }
+
+    private static void measureMapped(File binaryFile) throws Exception {
+        File file = File.createTempFile("snapshot", ".slots");
+        file.deleteOnExit();
+        new File(file.getPath() + MappedRecordStore.HEAP_SUFFIX).deleteOnExit();
+        FileBackedTaskManager.convert(binaryFile, file, SnapshotFormat.MAPPED);
+
+        long loadStart = System.nanoTime();
+        FileBackedTaskManager loadedTaskManager = FileBackedTaskManager.loadFromFile(file);
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+        Task task = loadedTaskManager.getAllTasks().get(0).getCopy();
+        task.setDescription("Обновлённое описание");
+        long updateStart = System.nanoTime();
+        loadedTaskManager.updateTask(task);
+        long updateMicros = (System.nanoTime() - updateStart) / 1_000;
+
+        System.out.printf("%-6s загрузка: %d мс, изменение одной задачи: %d мкс%n", SnapshotFormat.MAPPED,
+                loadMillis, updateMicros);
+    }
+
+    private static <T extends Task> T withId(T task, int id) {
+        task.setId(id);
+        return task;
+    }
+}
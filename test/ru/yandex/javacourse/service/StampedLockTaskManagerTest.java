@@ -0,0 +1,86 @@
+package ru.yandex.javacourse.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StampedLockTaskManagerTest extends TaskManagerTest<TaskManager> {
+    private static final int WRITES_COUNT = 2000;
+
+    @Override
+    protected TaskManager createTaskManager() {
+        return Managers.getReadOptimized();
+    }
+
+    @Test
+    @DisplayName("Должен возвращать согласованные списки при чтении во время параллельной записи")
+    public void test_getAllTasks_WhenReadDuringWrites_ShouldReturnConsistentLists() throws Exception {
+        //given
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Эпик для подзадач"));
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> readers = new ArrayList<>();
+
+        //when
+        try {
+            for (int i = 0; i < 3; i++) {
+                readers.add(executor.submit(() -> {
+                    while (isWriting.get()) {
+                        taskManager.getAllTasks().forEach(Assertions::assertNotNull);
+                        taskManager.getAllEpics().forEach(Assertions::assertNotNull);
+                        taskManager.getAllSubtasksByEpicId(epic.getId()).forEach(Assertions::assertNotNull);
+                        taskManager.getPrioritizedTasks();
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < WRITES_COUNT; i++) {
+                taskManager.addTask(new Task("Задача", "Задача", Duration.ofMinutes(1),
+                        startTime.plusMinutes(i * 2L)));
+                taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+            }
+            isWriting.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        assertEquals(WRITES_COUNT, taskManager.getAllTasks().size(), "Потеряны задачи");
+        assertEquals(WRITES_COUNT, taskManager.getAllSubtasksByEpicId(epic.getId()).size(), "Потеряны подзадачи");
+        assertEquals(WRITES_COUNT, taskManager.getPrioritizedTasks().size(), "Потеряны задачи в приоритетах");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать снимок приоритетов, который не меняется после записи")
+    public void test_getPrioritizedTasksView_WhenTaskAddedAfter_ShouldKeepSnapshot() {
+        //given
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        taskManager.addTask(new Task("Задача", "Задача", Duration.ofMinutes(10), startTime));
+        NavigableSet<Task> snapshot = taskManager.getPrioritizedTasksView();
+
+        //when
+        taskManager.addTask(new Task("Задача", "Задача", Duration.ofMinutes(10), startTime.plusHours(1)));
+
+        //then
+        assertEquals(1, snapshot.size(), "Снимок не должен меняться после записи");
+        assertEquals(2, taskManager.getPrioritizedTasksView().size(), "Новый снимок должен содержать запись");
+        assertThrows(UnsupportedOperationException.class, snapshot::pollFirst, "Снимок должен быть только для чтения");
+    }
+}
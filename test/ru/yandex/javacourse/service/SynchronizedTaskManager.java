@@ -0,0 +1,159 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.util.*;
+
+/**
+ * Потокобезопасная обёртка над менеджером задач с одной общей блокировкой.
+ * Используется как точка отсчёта в {@link TaskManagerThroughputBenchmark}.
+ * Все операции, включая чтение, выполняются под одним монитором.
+ * Представление списка приоритетов заменяется копией, так как живое представление нельзя обходить без блокировки
+ */
+class SynchronizedTaskManager implements TaskManager {
+    private final TaskManager taskManager;
+
+    public SynchronizedTaskManager(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public synchronized ArrayList<Task> getAllTasks() {
+        return taskManager.getAllTasks();
+    }
+
+    @Override
+    public synchronized void deleteAllTasks() {
+        taskManager.deleteAllTasks();
+    }
+
+    @Override
+    public synchronized Task getTaskById(int id) {
+        return taskManager.getTaskById(id);
+    }
+
+    @Override
+    public synchronized Task addTask(Task task) {
+        return taskManager.addTask(task);
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        taskManager.updateTask(task);
+    }
+
+    @Override
+    public synchronized void deleteTaskById(int id) {
+        taskManager.deleteTaskById(id);
+    }
+
+    @Override
+    public synchronized ArrayList<Epic> getAllEpics() {
+        return taskManager.getAllEpics();
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        taskManager.deleteAllEpics();
+    }
+
+    @Override
+    public synchronized Epic getEpicById(int id) {
+        return taskManager.getEpicById(id);
+    }
+
+    @Override
+    public synchronized Epic addEpic(Epic epic) {
+        return taskManager.addEpic(epic);
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        taskManager.updateEpic(epic);
+    }
+
+    @Override
+    public synchronized void deleteEpicById(int id) {
+        taskManager.deleteEpicById(id);
+    }
+
+    @Override
+    public synchronized ArrayList<Subtask> getAllSubtasks() {
+        return taskManager.getAllSubtasks();
+    }
+
+    @Override
+    public synchronized void deleteAllSubtasks() {
+        taskManager.deleteAllSubtasks();
+    }
+
+    @Override
+    public synchronized Subtask getSubtaskById(int id) {
+        return taskManager.getSubtaskById(id);
+    }
+
+    @Override
+    public synchronized Subtask addSubtask(Subtask subtask) {
+        return taskManager.addSubtask(subtask);
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask subtask) {
+        taskManager.updateSubtask(subtask);
+    }
+
+    @Override
+    public synchronized void deleteSubtaskById(int id) {
+        taskManager.deleteSubtaskById(id);
+    }
+
+    @Override
+    public synchronized ArrayList<Subtask> getAllSubtasksByEpicId(int epicId) {
+        return taskManager.getAllSubtasksByEpicId(epicId);
+    }
+
+    @Override
+    public synchronized void updateEpicStatus(Epic epic) {
+        taskManager.updateEpicStatus(epic);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return taskManager.getHistory();
+    }
+
+    @Override
+    public synchronized void updateEpicDates(Epic epic) {
+        taskManager.updateEpicDates(epic);
+    }
+
+    @Override
+    public synchronized TreeSet<Task> getPrioritizedTasks() {
+        return taskManager.getPrioritizedTasks();
+    }
+
+    /**
+     * Возвращает доступную только для чтения копию списка приоритетов
+     */
+    @Override
+    public synchronized NavigableSet<Task> getPrioritizedTasksView() {
+        return Collections.unmodifiableNavigableSet(taskManager.getPrioritizedTasks());
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks(int offset, int limit) {
+        return taskManager.getPrioritizedTasks(offset, limit);
+    }
+
+    @Override
+    public boolean ifTasksCrossInTime(Task firstTask, Task secondTask) {
+        return taskManager.ifTasksCrossInTime(firstTask, secondTask);
+    }
+
+    @Override
+    public synchronized boolean hasCrossInTimeWithManagerTasks(Task task) {
+        return taskManager.hasCrossInTimeWithManagerTasks(task);
+    }
+}
@@ -224,4 +224,48 @@ abstract class TaskManagerTest<T extends TaskManager> {
         //then
         assertEquals(0, subtasks.size(), "После удаления эпика список подзадач должен быть очищен");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Должен возвращать только подзадачи указанного эпика")
+    public void test_GetAllSubtasksByEpicId_WhenTwoEpicsHaveSubtasks_ShouldReturnOnlyEpicSubtasks() {
+        //given
+        Epic firstEpic = taskManager.addEpic(new Epic(EPIC_NAME, EPIC_DESCRIPTION));
+        Epic secondEpic = taskManager.addEpic(new Epic(EPIC_NAME, EPIC_DESCRIPTION));
+        Subtask firstSubtask = taskManager.addSubtask(new Subtask(SUBTASK_NAME, SUBTASK_DESCRIPTION,
+                firstEpic.getId()));
+        taskManager.addSubtask(new Subtask(SUBTASK_NAME, SUBTASK_DESCRIPTION, secondEpic.getId()));
+        Subtask thirdSubtask = taskManager.addSubtask(new Subtask(SUBTASK_NAME, SUBTASK_DESCRIPTION,
+                firstEpic.getId()));
+
+        //when
+        List<Subtask> epicSubtasks = taskManager.getAllSubtasksByEpicId(firstEpic.getId());
+
+        //then
+        assertEquals(List.of(firstSubtask, thirdSubtask), epicSubtasks, "Некорректный список подзадач эпика");
+        assertTrue(taskManager.getAllSubtasksByEpicId(PREDEFINED_TASK_ID).isEmpty(),
+                "У несуществующего эпика не должно быть подзадач");
+    }
+
+    @Test
+    @DisplayName("При переносе подзадачи в другой эпик она должна переходить в список подзадач нового эпика")
+    public void test_UpdateSubtask_WhenEpicChanged_SubtaskShouldMoveToNewEpic() {
+        //given
+        Epic firstEpic = taskManager.addEpic(new Epic(EPIC_NAME, EPIC_DESCRIPTION));
+        Epic secondEpic = taskManager.addEpic(new Epic(EPIC_NAME, EPIC_DESCRIPTION));
+        Subtask subtask = taskManager.addSubtask(new Subtask(SUBTASK_NAME, SUBTASK_DESCRIPTION,
+                firstEpic.getId()));
+
+        //when
+        Subtask movedSubtask = new Subtask(SUBTASK_NAME, SUBTASK_DESCRIPTION, secondEpic.getId());
+        movedSubtask.setId(subtask.getId());
+        taskManager.updateSubtask(movedSubtask);
+
+        //then
+        assertTrue(taskManager.getAllSubtasksByEpicId(firstEpic.getId()).isEmpty(),
+                "Подзадача должна быть удалена из старого эпика");
+        assertEquals(List.of(subtask), taskManager.getAllSubtasksByEpicId(secondEpic.getId()),
+                "Подзадача должна быть добавлена в новый эпик");
+        assertEquals(List.of(subtask.getId()), taskManager.getEpicById(secondEpic.getId()).getSubtasksIdList(),
+                "ID подзадачи должен быть в списке подзадач нового эпика");
+    }
+}
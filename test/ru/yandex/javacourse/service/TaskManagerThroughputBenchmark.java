@@ -0,0 +1,83 @@
+package ru.yandex.javacourse.service;
+
+import ru.yandex.javacourse.model.Epic;
+import ru.yandex.javacourse.model.Subtask;
+import ru.yandex.javacourse.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение пропускной способности потокобезопасных менеджеров задач на нагрузке,
+ * где 95% операций - чтение списков задач, эпиков, подзадач эпика и приоритетов.
+ * Запускается вручную: аргументы - число потоков и длительность замера в секундах
+ */
+public class TaskManagerThroughputBenchmark {
+    private static final int TASKS_COUNT = 200;
+    private static final int READS_PER_WRITE = 19;
+
+    public static void main(String[] args) throws Exception {
+        int threadsCount = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "Прогрев:" : "Замер:");
+            measure("synchronized", () -> new SynchronizedTaskManager(new InMemoryTaskManager()),
+                    threadsCount, seconds);
+            measure("StampedLock", StampedLockTaskManager::new, threadsCount, seconds);
+            measure("Concurrent", ConcurrentTaskManager::new, threadsCount, seconds);
+        }
+    }
+
+    private static void measure(String name, Supplier<TaskManager> factory, int threadsCount, int seconds)
+            throws Exception {
+        TaskManager taskManager = factory.get();
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Epic epic = taskManager.addEpic(new Epic("Эпик", "Эпик"));
+        for (int i = 0; i < TASKS_COUNT; i++) {
+            taskManager.addTask(new Task("Задача", "Задача", Duration.ofMinutes(1), startTime.plusMinutes(i * 2L)));
+            taskManager.addSubtask(new Subtask("Подзадача", "Подзадача", epic.getId()));
+        }
+
+        AtomicLong operations = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threadsCount; i++) {
+            futures.add(executor.submit(() -> {
+                long count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    if (count % (READS_PER_WRITE + 1) == READS_PER_WRITE) {
+                        int taskNumber = random.nextInt(TASKS_COUNT);
+                        Task task = new Task("Задача", "Обновлённая задача", Duration.ofMinutes(1),
+                                startTime.plusMinutes(taskNumber * 2L));
+                        task.setId(taskNumber * 2 + 2);
+                        taskManager.updateTask(task);
+                    } else {
+                        switch ((int) (count % 4)) {
+                            case 0 -> taskManager.getAllTasks();
+                            case 1 -> taskManager.getAllEpics();
+                            case 2 -> taskManager.getAllSubtasksByEpicId(epic.getId());
+                            default -> taskManager.getPrioritizedTasks();
+                        }
+                    }
+                    count++;
+                }
+                operations.addAndGet(count);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        System.out.printf("%-14s потоков: %d, операций в секунду: %,d%n", name, threadsCount,
+                operations.get() / seconds);
+    }
+}